@@ -3,9 +3,11 @@ package com.cryptowallet;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class CryptoWalletApplication {
     public static void main(String[] args) {
         SpringApplication.run(CryptoWalletApplication.class, args);
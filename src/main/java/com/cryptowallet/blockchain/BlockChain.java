@@ -1,17 +1,23 @@
 package com.cryptowallet.blockchain;
 
-import com.cryptowallet.merkle.MerkleTreeBuilder;
+import com.cryptowallet.blockchain.bloom.TransactionLocator;
+import com.cryptowallet.blockchain.mmr.ChainMmr;
+import com.cryptowallet.blockchain.state.StateTree;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.merkle.MerkleEngine;
+import com.cryptowallet.merkle.MerkleEngines;
 import com.cryptowallet.model.Block;
-import com.cryptowallet.repository.BlockRepository;
-import com.cryptowallet.repository.TransactionRepository;
+import com.cryptowallet.model.ValidationCheckpoint;
+import com.cryptowallet.repository.ValidationCheckpointRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * Manages the conceptual blockchain, including adding new blocks and verifying the chain integrity.
@@ -22,42 +28,61 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BlockChain {
 
-    private List<Block> chain; // In-memory representation of the chain
-    private final BlockRepository blockRepository;
-    private final MerkleTreeBuilder merkleTreeBuilder;
-    private final TransactionRepository transactionRepository;
+    private final ChainStore chain; // Bounded in-memory representation of the chain
+    private volatile ChainTip tip = ChainTip.EMPTY; // Published by the single writer after each block
+    private final BlockStore blockStore;
+    private final MerkleEngines merkleEngines;
+    private final TransactionLeafLoader transactionLeafLoader;
+    private final ChainValidator chainValidator;
+    private final ValidationCheckpointRepository checkpointRepository;
+    private final ChainSnapshotService snapshotService;
+    private final ChainMmr chainMmr;
+    private final StateTree stateTree;
+    private final TransactionLocator transactionLocator;
 
     // A configurable genesis block hash for initialization
     @Value("${blockchain.genesis.hash:GENESIS_BLOCK_HASH_DEFAULT}")
     private String genesisBlockHash;
 
-    public BlockChain(BlockRepository blockRepository,
-                      MerkleTreeBuilder merkleTreeBuilder,
-                      TransactionRepository transactionRepository) {
-        this.blockRepository = blockRepository;
-        this.merkleTreeBuilder = merkleTreeBuilder;
-        this.transactionRepository = transactionRepository;
-        this.chain = new ArrayList<>();
+    public BlockChain(ChainStore chainStore,
+                      BlockStore blockStore,
+                      MerkleEngines merkleEngines,
+                      TransactionLeafLoader transactionLeafLoader,
+                      ChainValidator chainValidator,
+                      ValidationCheckpointRepository checkpointRepository,
+                      ChainSnapshotService snapshotService,
+                      ChainMmr chainMmr,
+                      StateTree stateTree,
+                      TransactionLocator transactionLocator) {
+        this.chain = chainStore;
+        this.blockStore = blockStore;
+        this.merkleEngines = merkleEngines;
+        this.transactionLeafLoader = transactionLeafLoader;
+        this.chainValidator = chainValidator;
+        this.checkpointRepository = checkpointRepository;
+        this.snapshotService = snapshotService;
+        this.chainMmr = chainMmr;
+        this.stateTree = stateTree;
+        this.transactionLocator = transactionLocator;
     }
 
     @PostConstruct
     public void init() {
         log.info("Initializing blockchain by loading existing blocks from database...");
-        List<Block> loadedBlocks = blockRepository.findAll();
-        // Sorting by timestamp to ensure correct chain order, as Mongo DB doesn't guarantee order.
-        loadedBlocks.sort((b1, b2) -> {
-            // A more robust sorting would ensure the chain structure itself is respected,
-            // but for a simple load, timestamp is often sufficient if blocks are added sequentially.
-            // For true chain reassembly, one might need to trace previousBlockHash.
-            return b1.getTimestamp().compareTo(b2.getTimestamp());
-        });
-        this.chain.addAll(loadedBlocks);
+        // A snapshot, when present, spares reading every header; only newer blocks are read from the store
+        Optional<ChainSnapshot> snapshot = snapshotService.load();
+        chain.load(snapshot.orElse(null));
+        snapshot.map(ChainSnapshot::checkpoint).ifPresent(this::adoptCheckpoint);
+        this.tip = ChainTip.of(chain.getLatestBlock());
+        chainMmr.load();
+        Block latestBlock = chain.getLatestBlock();
+        stateTree.load(latestBlock == null ? null : latestBlock.getStateRoot());
         if (this.chain.isEmpty()) {
             log.warn("No blocks found in the database. The blockchain is empty. A genesis block will be created upon first transaction group.");
         } else {
             log.info("Loaded {} blocks. Latest block hash: {}", this.chain.size(), getLatestBlock().getCurrentBlockHash());
-            // Optional run initial validation on start-up
-            if (!validateChain()) {
+            // Only the blocks appended since the last checkpoint are validated on start-up
+            if (!validateIncremental().valid()) {
                 log.error("Blockchain integrity compromised on startup.");
                 // Handle compromised chain, e.g,throw exception, trigger recovery
             } else {
@@ -66,7 +91,14 @@ public class BlockChain {
         }
     }
 
-
+    /**
+     * Builds, chains and persists a new block for the given transactions.
+     * Must only be called by the single writer, the {@link BlockSequencer} thread; readers observe the
+     * result through the volatile tip snapshot.
+     *
+     * @param transactionIds The transaction IDs of the block, in block order.
+     * @return The persisted block.
+     */
     public Block addBlock(List<String> transactionIds) {
         if (transactionIds == null || transactionIds.isEmpty()) {
             throw new IllegalArgumentException("Cannot add an empty block. Provide transaction IDs");
@@ -74,35 +106,53 @@ public class BlockChain {
 
         log.info("Attempting to add new block with {} transactions...", transactionIds.size());
 
-        // 1. Get transaction hashes from IDs (assuming transactionRepository can fetch them)
-        // In a real scenario, you might pass hashes directly or fetch full transactions and hash them.
-        List<String> transactionHashes = transactionIds.stream()
-                .map(id -> transactionRepository.findById(id)
-                        .orElseThrow(() -> new RuntimeException("Transaction with ID " + id + "not found for block creation"))
-                        .getSignature()) // Using signature as a unique hash-like identifier for Merkle tree.
-                .collect(Collectors.toList());
+        // 1. Get transaction hashes from IDs in one projected query.
+        // Using signature as a unique hash-like identifier for Merkle tree.
+        List<String> transactionHashes = transactionLeafLoader.loadSignatures(transactionIds);
 
-        // 2. Build Merkle Tree and get Merkle Root
-        merkleTreeBuilder.buildTree(transactionHashes);
-        String merkleRoot = merkleTreeBuilder.getMerkleRoot();
-        log.debug("Merkle Root calculated {}", merkleRoot);
+        // 2. Compute the Merkle Root in the format configured for new blocks
+        MerkleEngine merkleEngine = merkleEngines.forNewBlocks();
+        String merkleRoot = merkleEngine.computeRoot(transactionHashes);
+        log.debug("Merkle Root calculated {} ({})", merkleRoot, merkleEngine.format());
 
         // 3. Determine previous block hash for chaining
+        ChainTip currentTip = this.tip;
         String previousBlockHash = "0"; // Default for the genesis block (first block)
-        if (!chain.isEmpty()) {
-            previousBlockHash = getLatestBlock().getCurrentBlockHash();
+        if (!currentTip.isEmpty()) {
+            previousBlockHash = currentTip.blockHash();
         } else {
             // Use the configured genesis hash for the very first block if chain is empty
             previousBlockHash = genesisBlockHash;
             log.info("Creating genesis block. Previous hash set to configured genesis hash: {}", genesisBlockHash);
         }
 
-        // 4. Create and save new block
-        Block newBlock = new Block(transactionIds, merkleRoot, previousBlockHash);
-        newBlock = blockRepository.save(newBlock); // Save to DB to get its ID
+        // 4. Commit the balance changes made so far to the state tree; the marks are kept for the next block on failure.
+        // The root snapshots the live balances, so it may include transfers executed after the transactions were cut.
+        String stateRoot = null;
+        try {
+            stateRoot = stateTree.commit();
+        } catch (RuntimeException e) {
+            log.error("Failed to commit the wallet state tree for block {}: {}", currentTip.height() + 1, e.getMessage());
+        }
+
+        // 5. Create and save new block
+        Block newBlock = stateRoot == null
+                ? new Block(currentTip.height() + 1, transactionIds, merkleRoot, previousBlockHash)
+                : new Block(currentTip.height() + 1, transactionIds, merkleRoot, previousBlockHash, stateRoot);
+        newBlock.setMerkleFormat(merkleEngine.format().code());
+        newBlock.setBloomFilter(transactionLocator.filterFor(transactionIds, transactionHashes));
+        newBlock = blockStore.append(newBlock); // Persist to get its ID
 
-        // 5. Add to in-memory chain
-        this.chain.add(newBlock);
+        // 6. Add to in-memory chain and publish the new tip
+        this.chain.append(newBlock);
+        this.tip = ChainTip.of(newBlock);
+
+        // 7. Extend the Merkle Mountain Range; a failed update is retried with the next block
+        try {
+            chainMmr.sync();
+        } catch (RuntimeException e) {
+            log.error("Failed to append block {} to the Merkle Mountain Range: {}", newBlock.getHeight(), e.getMessage());
+        }
         log.info("New Block added to chain. ID: {}, Hash: {}, Tx Count: {}",
                 newBlock.getId(), newBlock.getCurrentBlockHash(), newBlock.getTransactionsIds().size());
 
@@ -115,59 +165,134 @@ public class BlockChain {
      * @return The latest Block, or null if the chain is empty.
      */
     public Block getLatestBlock() {
-        if (chain.isEmpty()) {
-            return null;
+        return tip.block();
+    }
+
+    /**
+     * Retrieves a consistent snapshot of the head of the chain without locking.
+     *
+     * @return The current tip, or {@link ChainTip#EMPTY} if the chain is empty.
+     */
+    public ChainTip getTip() {
+        return tip;
+    }
+
+    /**
+     * Retrieves the block at the given height.
+     *
+     * @param height The height of the block, 0 for the genesis block.
+     * @return The block, or empty if the height is outside the chain.
+     */
+    public Optional<Block> getBlockByHeight(long height) {
+        if (height < 0 || height >= chain.size()) {
+            return Optional.empty();
         }
-        return chain.get(chain.size() - 1);
+        return Optional.of(chain.getBlock(height));
     }
 
     /**
+     * Retrieves the block with the given hash using the in-memory hash index.
      *
+     * @param blockHash The hash of the block.
+     * @return The block, or empty if no block in the chain has this hash.
+     */
+    public Optional<Block> getBlockByHash(String blockHash) {
+        return chain.findHeight(blockHash).map(chain::getBlock);
+    }
+
+    /**
+     * Validates the whole chain in parallel.
+     * @return true if every block passes validation, false otherwise.
      */
     public boolean validateChain() {
-        if (chain.isEmpty()) {
-            log.warn("Attempted to validate empty chain. Returning true (trivially valid).");
-            return true;
+        return validate().valid();
+    }
+
+    /**
+     * Re-validates the whole chain from block 1, ignoring any checkpoint, and resets the checkpoint
+     * to the outcome. Intended as an explicit administrative operation.
+     * @return The validation report, including the first invalid height and per-segment timings.
+     */
+    public ChainValidationReport validate() {
+        log.info("Running full blockchain re-validation...");
+        return validateFrom(1, true);
+    }
+
+    /**
+     * Validates only the blocks appended after the persisted validation checkpoint.
+     * Falls back to a full validation when there is no checkpoint or it no longer matches the chain.
+     * Runs on start-up and on a fixed schedule.
+     * @return The validation report for the blocks that were checked.
+     */
+    @Scheduled(initialDelayString = "${blockchain.validation.interval-ms:300000}",
+            fixedDelayString = "${blockchain.validation.interval-ms:300000}")
+    public ChainValidationReport validateIncremental() {
+        long fromHeight = checkpointRepository.findLatest()
+                .filter(this::matchesChain)
+                .map(checkpoint -> checkpoint.getHeight() + 1)
+                .orElse(1L);
+        log.debug("Incremental validation starting at height {}", fromHeight);
+        return validateFrom(fromHeight, false);
+    }
+
+    private boolean matchesChain(ValidationCheckpoint checkpoint) {
+        long height = checkpoint.getHeight();
+        boolean matches = height < chain.size()
+                && chain.getHeader(height).currentBlockHash().equals(checkpoint.getBlockHash());
+        if (!matches) {
+            log.warn("Validation checkpoint at height {} does not match the loaded chain. Validating from block 1.", height);
         }
+        return matches;
+    }
 
-        log.info("Validating blockchain integrity...");
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
+    private ChainValidationReport validateFrom(long fromHeight, boolean resetCheckpoint) {
+        long size = chain.size(); // Blocks appended while validating are left for the next run
+        if (size == 0) {
+            log.warn("Attempted to validate empty chain. Returning true (trivially valid).");
+            return ChainValidationReport.empty();
+        }
 
-            // 1. Check if the current block's hash is correct
-            if (!currentBlock.getCurrentBlockHash().equals(currentBlock.calculateHash())) {
-                log.error("Block validation failed: Block {} has an invalid current hash. Expected: {}, Got: {}",
-                        currentBlock.getId(), currentBlock.calculateHash(), currentBlock.getCurrentBlockHash());
-                return false;
-            }
+        log.info("Validating blockchain integrity from height {} to {}...", fromHeight, size - 1);
+        ChainValidationReport report = chainValidator.validate(chain, fromHeight, size);
+        if (report.valid()) {
+            log.info("Blockchain validation successful");
+        } else {
+            log.error("Blockchain validation failed at height {}: {}", report.firstInvalidHeight(), report.failure());
+        }
 
-            // 2. Check if the current block's previous hash points to the actual previous block's hash
-            if (!currentBlock.getPreviousBlockHash().equals(previousBlock.getCurrentBlockHash())) {
-                log.error("Block validation failed: Block {} previous has mismatch. Points to: {}, Actual previous: {}",
-                        currentBlock.getId(), currentBlock.calculateHash(), previousBlock.getCurrentBlockHash());
-                return false;
-            }
+        long verifiedHeight = report.valid() ? size - 1 : report.firstInvalidHeight() - 1;
+        if (resetCheckpoint || verifiedHeight >= fromHeight) {
+            saveCheckpoint(chain.getHeader(verifiedHeight), verifiedHeight);
+        }
+        return report;
+    }
 
-            // 3. Verify Merkle Root Consistency
-            // Fetch transaction hashes from DB using transactionIds in currentBlock
-            List<String> currentBlockTxHashes = currentBlock.getTransactionsIds().stream()
-                    .map(id -> transactionRepository.findById(id)
-                            .orElseThrow(() -> new RuntimeException("Transaction with ID " + id + "not found during chain validation."))
-                            .getSignature())
-                    .collect(Collectors.toList());
-
-            merkleTreeBuilder.buildTree(currentBlockTxHashes);
-            String calculatedMerkleRoot = merkleTreeBuilder.getMerkleRoot();
-
-            if (!currentBlock.getMerkleRoot().equals(calculatedMerkleRoot)) {
-                log.error("Block validation failed: Block{} Merkle Root mismatch. Expected: {}, Got: {}",
-                        currentBlock.getId(), calculatedMerkleRoot, currentBlock.getMerkleRoot());
-                return false;
-            }
+    /**
+     * Takes over the checkpoint of a snapshot when it is ahead of the persisted one, so a freshly
+     * bootstrapped instance does not re-validate blocks the snapshot's source already verified.
+     * It is only adopted if the block store holds a block with its height and hash.
+     */
+    private void adoptCheckpoint(ValidationCheckpoint snapshotCheckpoint) {
+        boolean ahead = checkpointRepository.findLatest()
+                .map(current -> current.getHeight() < snapshotCheckpoint.getHeight())
+                .orElse(true);
+        if (!ahead) {
+            return;
         }
+        boolean stored = blockStore.findByHeight(snapshotCheckpoint.getHeight())
+                .map(block -> block.getCurrentBlockHash().equals(snapshotCheckpoint.getBlockHash()))
+                .orElse(false);
+        if (!stored) {
+            log.warn("Ignoring the validation checkpoint at height {} from the chain snapshot: no stored block has its hash",
+                    snapshotCheckpoint.getHeight());
+            return;
+        }
+        checkpointRepository.save(snapshotCheckpoint);
+        log.info("Adopted validation checkpoint at height {} from the chain snapshot", snapshotCheckpoint.getHeight());
+    }
 
-        log.info("Blockchain validation successful");
-        return true;
+    private void saveCheckpoint(BlockHeader header, long height) {
+        checkpointRepository.save(new ValidationCheckpoint(height, header.currentBlockHash(), Instant.now()));
+        log.info("Validation checkpoint moved to height {}", height);
     }
 }
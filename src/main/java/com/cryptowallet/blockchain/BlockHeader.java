@@ -0,0 +1,30 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.model.Block;
+
+import java.time.Instant;
+
+/**
+ * Compact, immutable summary of a block kept in memory for every height of the chain.
+ * Holds everything needed to walk and link the chain without the block's transaction list.
+ *
+ * @param id                MongoDB ID of the block, used to load its body on demand.
+ * @param height            Position of the block in the chain, starting at 0 for the genesis block.
+ * @param currentBlockHash  Hash of the block.
+ * @param previousBlockHash Hash of the block before it.
+ * @param merkleRoot        Merkle root of the block's transactions.
+ * @param timestamp         Creation time of the block.
+ */
+public record BlockHeader(
+        String id,
+        long height,
+        String currentBlockHash,
+        String previousBlockHash,
+        String merkleRoot,
+        Instant timestamp
+) {
+    public static BlockHeader of(Block block) {
+        return new BlockHeader(block.getId(), block.getHeight(), block.getCurrentBlockHash(), block.getPreviousBlockHash(),
+                block.getMerkleRoot(), block.getTimestamp());
+    }
+}
@@ -0,0 +1,20 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.model.Block;
+
+import java.util.List;
+
+/**
+ * Reads full blocks for a contiguous height range.
+ * Lets chain validation load block bodies one segment at a time instead of holding the whole chain.
+ */
+@FunctionalInterface
+public interface BlockRangeReader {
+
+    /**
+     * @param fromHeight First height to read (inclusive).
+     * @param toHeight   Last height to read (exclusive).
+     * @return The blocks in height order.
+     */
+    List<Block> read(long fromHeight, long toHeight);
+}
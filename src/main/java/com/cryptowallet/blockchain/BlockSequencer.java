@@ -0,0 +1,134 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.mempool.Mempool;
+import com.cryptowallet.model.Block;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single writer of the blockchain.
+ * Sealed batches of transaction IDs are handed over through a lock-free queue and a dedicated thread
+ * chains and persists them in submission order, so producers never wait on block persistence.
+ * After each block it records the block's height on its transactions in the reverse index, then
+ * commits them in the mempool so they are not replayed after a restart. A batch whose block cannot be
+ * written is tried again, with a growing delay, before any later batch, so the chain keeps its order and
+ * the batch is not left uncommitted until the next restart.
+ */
+@Component
+@Slf4j
+public class BlockSequencer {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final BlockChain blockChain;
+    private final TransactionBlockIndex transactionBlockIndex;
+    private final Mempool mempool;
+    private final Queue<List<String>> sealedBatches = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+    private volatile List<String> failedBatch; // Written again before any queued batch
+
+    public BlockSequencer(BlockChain blockChain, TransactionBlockIndex transactionBlockIndex, Mempool mempool) {
+        this.blockChain = blockChain;
+        this.transactionBlockIndex = transactionBlockIndex;
+        this.mempool = mempool;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "block-sequencer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Block sequencer started.");
+    }
+
+    /**
+     * Stops accepting work once every batch already submitted has been written, or at the first block that
+     * still cannot be written, whose transactions are then replayed on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread current = writer;
+        if (current != null) {
+            LockSupport.unpark(current);
+            current.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        log.info("Block sequencer stopped. {} batches left unwritten.", pendingBatches());
+    }
+
+    /**
+     * Hands a sealed batch over to the sequencer thread and returns immediately.
+     * @param transactionIds The transaction IDs of the batch, in the order they should appear in the block.
+     */
+    public void submit(List<String> transactionIds) {
+        sealedBatches.offer(List.copyOf(transactionIds));
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * @return The number of sealed batches waiting to be written as blocks.
+     */
+    public int pendingBatches() {
+        return sealedBatches.size() + (failedBatch == null ? 0 : 1);
+    }
+
+    private void run() {
+        long retryDelay = MIN_RETRY_NANOS;
+        long retryAt = 0;
+        while (running || !sealedBatches.isEmpty()) {
+            List<String> batch = failedBatch;
+            if (batch != null) {
+                if (!running) {
+                    // The transactions stay uncommitted in the mempool log and are replayed on the next start
+                    log.error("Stopping with a block that could not be written for transactions: {}.", batch);
+                    return;
+                }
+                long wait = retryAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+            } else {
+                batch = sealedBatches.poll();
+                if (batch == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+            }
+            Block block;
+            try {
+                block = blockChain.addBlock(batch);
+                log.info("Successfully created a new block with {} transactions.", batch.size());
+            } catch (Exception e) {
+                log.error("Failed to create a new block for transactions: {}. Retrying in {} ms. Error: {}", batch,
+                        TimeUnit.NANOSECONDS.toMillis(retryDelay), e.getMessage());
+                failedBatch = batch;
+                retryAt = System.nanoTime() + retryDelay;
+                retryDelay = Math.min(2 * retryDelay, MAX_RETRY_NANOS);
+                continue;
+            }
+            failedBatch = null;
+            retryDelay = MIN_RETRY_NANOS;
+            try {
+                transactionBlockIndex.record(block);
+            } catch (Exception e) {
+                // The lookup falls back to the block Bloom filters for these transactions
+                log.error("Failed to index the transactions of block {}: {}", block.getHeight(), e.getMessage());
+            }
+            mempool.commit(batch);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.model.ValidationCheckpoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the chain's header index and latest validation checkpoint.
+ * <pre>
+ * magic (4) | version (4) | header count (8)
+ * checkpoint flag (1) [| height (8) | verifiedAt seconds (8) | nanos (4) | block hash]
+ * headers: height (8) | timestamp seconds (8) | nanos (4) | id | hash | previous hash | Merkle root
+ * CRC32 of everything above (8)
+ * </pre>
+ * Strings are a 4-byte length (-1 for null) followed by UTF-8 bytes.
+ * Written in streaming fashion through one buffer, and read back with a single sequential mapping of the file.
+ *
+ * @param headers    The header index, ordered by height.
+ * @param checkpoint The latest validation checkpoint, or null if the chain was never validated.
+ */
+public record ChainSnapshot(List<BlockHeader> headers, ValidationCheckpoint checkpoint) {
+
+    private static final int MAGIC = 0x43534E50; // "CSNP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public long size() {
+        return headers.size();
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to the target and atomically moves it into place,
+     * so a crash never leaves a half-written snapshot behind.
+     * @param path The snapshot file to write.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putLong(headers.size());
+            if (checkpoint == null) {
+                writer.putByte((byte) 0);
+            } else {
+                writer.putByte((byte) 1);
+                writer.putLong(checkpoint.getHeight());
+                writer.putLong(checkpoint.getVerifiedAt().getEpochSecond());
+                writer.putInt(checkpoint.getVerifiedAt().getNano());
+                writer.putString(checkpoint.getBlockHash());
+            }
+            for (BlockHeader header : headers) {
+                writer.putLong(header.height());
+                writer.putLong(header.timestamp().getEpochSecond());
+                writer.putInt(header.timestamp().getNano());
+                writer.putString(header.id());
+                writer.putString(header.currentBlockHash());
+                writer.putString(header.previousBlockHash());
+                writer.putString(header.merkleRoot());
+            }
+            writer.finish();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file, verifying its checksum before decoding anything.
+     * @param path The snapshot file.
+     * @return The decoded snapshot.
+     * @throws IOException if the file cannot be read or is corrupted.
+     */
+    public static ChainSnapshot readFrom(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 25 || size > Integer.MAX_VALUE) {
+                throw new IOException("Chain snapshot " + path + " has an invalid size: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("Chain snapshot " + path + " failed its checksum.");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Chain snapshot " + path + " has an unknown format.");
+            }
+
+            long count = buffer.getLong();
+            ValidationCheckpoint checkpoint = null;
+            if (buffer.get() == 1) {
+                long height = buffer.getLong();
+                Instant verifiedAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+                checkpoint = new ValidationCheckpoint(height, getString(buffer), verifiedAt);
+            }
+            List<BlockHeader> headers = new ArrayList<>(Math.toIntExact(count));
+            for (long i = 0; i < count; i++) {
+                long height = buffer.getLong();
+                Instant timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+                String id = getString(buffer);
+                String hash = getString(buffer);
+                String previousHash = getString(buffer);
+                String merkleRoot = getString(buffer);
+                headers.add(new BlockHeader(id, height, hash, previousHash, merkleRoot, timestamp));
+            }
+            return new ChainSnapshot(headers, checkpoint);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams values to a channel through one reusable buffer, keeping a running checksum of everything written.
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Flushes the remaining data followed by the checksum trailer.
+         */
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
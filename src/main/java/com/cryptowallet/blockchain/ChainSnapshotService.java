@@ -0,0 +1,96 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.repository.ValidationCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Exports and imports chain snapshots at the configured path, so a restarted or new instance only
+ * needs to catch up on the blocks appended after the snapshot instead of scanning the whole block store.
+ */
+@Component
+@Slf4j
+public class ChainSnapshotService {
+
+    private final ChainStore chainStore;
+    private final ValidationCheckpointRepository checkpointRepository;
+    private final Path snapshotPath;
+    private final boolean exportOnShutdown;
+
+    public ChainSnapshotService(ChainStore chainStore,
+                                ValidationCheckpointRepository checkpointRepository,
+                                @Value("${blockchain.snapshot.path:}") String snapshotPath,
+                                @Value("${blockchain.snapshot.export-on-shutdown:true}") boolean exportOnShutdown) {
+        this.chainStore = chainStore;
+        this.checkpointRepository = checkpointRepository;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.exportOnShutdown = exportOnShutdown;
+    }
+
+    /**
+     * Reads the snapshot at the configured path.
+     * A missing, unreadable or corrupted snapshot is not an error: the chain is then loaded from the block store.
+     * @return The snapshot, or empty if snapshots are disabled or no valid snapshot exists.
+     */
+    public Optional<ChainSnapshot> load() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return Optional.empty();
+        }
+        try {
+            ChainSnapshot snapshot = ChainSnapshot.readFrom(snapshotPath);
+            log.info("Read chain snapshot of {} block headers from {}", snapshot.size(), snapshotPath);
+            return Optional.of(snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable chain snapshot {}: {}", snapshotPath, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Exports the current header index and validation checkpoint to the configured path.
+     * @return The exported snapshot.
+     * @throws IllegalStateException if no snapshot path is configured.
+     */
+    public ChainSnapshot export() {
+        if (snapshotPath == null) {
+            throw new IllegalStateException("No chain snapshot path configured (blockchain.snapshot.path).");
+        }
+        return export(snapshotPath);
+    }
+
+    /**
+     * Exports the current header index and validation checkpoint to the given file.
+     * @param path The snapshot file to write.
+     * @return The exported snapshot.
+     */
+    public ChainSnapshot export(Path path) {
+        ChainSnapshot snapshot = new ChainSnapshot(chainStore.headers(), checkpointRepository.findLatest().orElse(null));
+        try {
+            snapshot.writeTo(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write chain snapshot " + path, e);
+        }
+        log.info("Exported chain snapshot of {} block headers to {}", snapshot.size(), path);
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void exportOnShutdown() {
+        if (snapshotPath == null || !exportOnShutdown || chainStore.isEmpty()) {
+            return;
+        }
+        try {
+            export(snapshotPath);
+        } catch (RuntimeException e) {
+            log.warn("Failed to export chain snapshot on shutdown: {}", e.getMessage());
+        }
+    }
+}
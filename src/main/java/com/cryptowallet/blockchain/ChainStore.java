@@ -0,0 +1,265 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.model.Block;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory view of the chain with bounded heap use.
+ * Keeps a compact header for every block, a hash to height index, the newest full blocks in a
+ * fixed-size window, and an LRU cache of older block bodies that are loaded lazily from the BlockStore.
+ */
+@Component
+@Slf4j
+public class ChainStore implements BlockRangeReader {
+
+    private static final int SNAPSHOT_SAMPLES = 16; // Heights of a snapshot compared with the block store on load
+
+    private final BlockStore blockStore;
+    private final int windowSize;
+
+    private final List<BlockHeader> headers = new ArrayList<>(); // Index = height
+    private final Map<String, Long> hashToHeight = new HashMap<>();
+    private final Block[] window; // Ring buffer of the newest full blocks, slot = height % windowSize
+    private final Map<Long, Block> bodyCache; // LRU cache of older full blocks, keyed by height
+
+    public ChainStore(BlockStore blockStore,
+                      @Value("${blockchain.store.window-size:128}") int windowSize,
+                      @Value("${blockchain.store.cache-size:1024}") int cacheSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Chain window size must be at least 1.");
+        }
+        this.blockStore = blockStore;
+        this.windowSize = windowSize;
+        this.window = new Block[windowSize];
+        this.bodyCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Block> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Loads the header index from the block store and fills the window with the newest full blocks.
+     * Headers are streamed in height order without their transaction lists, and the previousBlockHash
+     * links are checked in the same pass, so no in-memory sort is needed.
+     */
+    public void load() {
+        load(null);
+    }
+
+    /**
+     * Loads the header index starting from a chain snapshot, so only the blocks appended after the
+     * snapshot are streamed from the block store. The snapshot is ignored if its headers do not link up or
+     * a sampled header is not the block stored at the same height, for example when it was taken from a
+     * different chain.
+     * @param snapshot The snapshot to start from, or null to load every header from the block store.
+     */
+    public synchronized void load(ChainSnapshot snapshot) {
+        headers.clear();
+        hashToHeight.clear();
+        Arrays.fill(window, null);
+        bodyCache.clear();
+
+        if (snapshot != null && matchesBlockStore(snapshot)) {
+            snapshot.headers().forEach(this::index);
+            log.info("Loaded {} block headers from snapshot. Catching up on newer blocks...", headers.size());
+        }
+
+        blockStore.forEachHeader(headers.size(), block -> {
+            if (block.getHeight() != headers.size()) {
+                throw new IllegalStateException("Block height gap: expected height " + headers.size()
+                        + " but found " + block.getHeight() + " for block " + block.getId());
+            }
+            if (!headers.isEmpty() && !block.getPreviousBlockHash().equals(headers.get(headers.size() - 1).currentBlockHash())) {
+                log.warn("Block at height {} does not link to the block before it. Validation will report it.", block.getHeight());
+            }
+            index(BlockHeader.of(block));
+        });
+
+        int windowStart = Math.max(0, headers.size() - windowSize);
+        List<Block> newest = blockStore.read(windowStart, headers.size());
+        for (int i = 0; i < newest.size(); i++) {
+            window[(windowStart + i) % windowSize] = newest.get(i);
+        }
+        log.info("Loaded {} block headers; {} newest blocks kept in memory.", headers.size(), newest.size());
+    }
+
+    /**
+     * Checks that the snapshot is a gap-free chain whose every header links to the one before it, and that the
+     * headers at evenly spaced sample heights, always including the first and the tip, are the blocks stored
+     * at those heights. Together, a snapshot of another chain or one with replaced headers is rejected without
+     * reading every header from the block store.
+     */
+    private boolean matchesBlockStore(ChainSnapshot snapshot) {
+        List<BlockHeader> snapshotHeaders = snapshot.headers();
+        if (snapshotHeaders.isEmpty()) {
+            return false;
+        }
+        for (int height = 0; height < snapshotHeaders.size(); height++) {
+            BlockHeader header = snapshotHeaders.get(height);
+            if (header.height() != height) {
+                log.warn("Chain snapshot has a height gap at {}. Loading every header from the block store.", height);
+                return false;
+            }
+            if (height > 0 && !Objects.equals(header.previousBlockHash(), snapshotHeaders.get(height - 1).currentBlockHash())) {
+                log.warn("Chain snapshot header at height {} does not link to the one before it. Loading every header from the block store.", height);
+                return false;
+            }
+        }
+        long tipHeight = snapshotHeaders.size() - 1;
+        Set<Long> samples = new TreeSet<>();
+        for (int i = 0; i < SNAPSHOT_SAMPLES; i++) {
+            samples.add(tipHeight * i / (SNAPSHOT_SAMPLES - 1));
+        }
+        for (long height : samples) {
+            BlockHeader header = snapshotHeaders.get((int) height);
+            boolean matches = blockStore.findByHeight(height)
+                    .map(block -> block.getCurrentBlockHash().equals(header.currentBlockHash())
+                            && Objects.equals(block.getPreviousBlockHash(), header.previousBlockHash()))
+                    .orElse(false);
+            if (!matches) {
+                log.warn("Chain snapshot header at height {} does not match the block store. Loading every header from the block store.", height);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a newly persisted block at the tip of the chain.
+     * @param block The persisted block, whose height must be the current chain size.
+     * @return The header of the appended block.
+     */
+    public synchronized BlockHeader append(Block block) {
+        if (block.getHeight() == null || block.getHeight() != headers.size()) {
+            throw new IllegalArgumentException("Block height " + block.getHeight() + " does not extend a chain of size " + headers.size());
+        }
+        BlockHeader header = BlockHeader.of(block);
+        window[(int) (header.height() % windowSize)] = block; // Overwrites the block leaving the window
+        index(header);
+        return header;
+    }
+
+    /**
+     * @param blockHash The hash of a block.
+     * @return The height of the block with the given hash, if it is part of the chain.
+     */
+    public synchronized Optional<Long> findHeight(String blockHash) {
+        return Optional.ofNullable(hashToHeight.get(blockHash));
+    }
+
+    /**
+     * @return A copy of the header index, ordered by height, for exporting a chain snapshot.
+     */
+    public synchronized List<BlockHeader> headers() {
+        return List.copyOf(headers);
+    }
+
+    public synchronized long size() {
+        return headers.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return headers.isEmpty();
+    }
+
+    /**
+     * @return The latest block, or null if the chain is empty.
+     */
+    public synchronized Block getLatestBlock() {
+        return headers.isEmpty() ? null : window[(headers.size() - 1) % windowSize];
+    }
+
+    /**
+     * @param height The height of the header.
+     * @return The header at the given height.
+     * @throws IndexOutOfBoundsException if the height is outside the chain.
+     */
+    public synchronized BlockHeader getHeader(long height) {
+        return headers.get(Math.toIntExact(height));
+    }
+
+    /**
+     * Returns the full block at the given height, loading and caching its body if it is outside the window.
+     * @param height The height of the block.
+     * @return The full block.
+     */
+    public Block getBlock(long height) {
+        synchronized (this) {
+            Objects.checkIndex(height, headers.size());
+            Block inMemory = findInMemory(height);
+            if (inMemory != null) {
+                return inMemory;
+            }
+        }
+        Block block = blockStore.findByHeight(height)
+                .orElseThrow(() -> new IllegalStateException("Block at height " + height + " is indexed but missing from the block store."));
+        synchronized (this) {
+            bodyCache.put(height, block);
+        }
+        return block;
+    }
+
+    /**
+     * Reads a range of full blocks with at most one block store read for the bodies outside the window.
+     * Bodies loaded here bypass the LRU cache, so bulk scans such as validation do not evict hot blocks.
+     */
+    @Override
+    public List<Block> read(long fromHeight, long toHeight) {
+        int from = Math.toIntExact(fromHeight);
+        int to = Math.toIntExact(toHeight);
+        Block[] result = new Block[to - from];
+        int loadFrom = to;
+        int loadTo = from;
+
+        synchronized (this) {
+            Objects.checkFromToIndex(from, to, headers.size());
+            for (int height = from; height < to; height++) {
+                Block inMemory = findInMemory(height);
+                if (inMemory != null) {
+                    result[height - from] = inMemory;
+                } else {
+                    loadFrom = Math.min(loadFrom, height);
+                    loadTo = height + 1;
+                }
+            }
+        }
+
+        if (loadFrom < loadTo) {
+            List<Block> loaded = blockStore.read(loadFrom, loadTo);
+            for (int i = 0; i < loaded.size(); i++) {
+                if (result[loadFrom - from + i] == null) {
+                    result[loadFrom - from + i] = loaded.get(i);
+                }
+            }
+        }
+        return List.of(result);
+    }
+
+    private Block findInMemory(long height) {
+        if (height >= headers.size() - windowSize) {
+            return window[(int) (height % windowSize)];
+        }
+        return bodyCache.get(height);
+    }
+
+    private void index(BlockHeader header) {
+        headers.add(header);
+        hashToHeight.put(header.currentBlockHash(), header.height());
+    }
+}
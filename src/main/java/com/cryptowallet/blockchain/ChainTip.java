@@ -0,0 +1,24 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.model.Block;
+
+/**
+ * Immutable snapshot of the head of the chain, published by the block sequencer through a volatile field.
+ * Readers get a consistent height, hash and block without taking any lock.
+ *
+ * @param height    Height of the latest block, or -1 if the chain is empty.
+ * @param blockHash Hash of the latest block, or null if the chain is empty.
+ * @param block     The latest block, or null if the chain is empty.
+ */
+public record ChainTip(long height, String blockHash, Block block) {
+
+    public static final ChainTip EMPTY = new ChainTip(-1, null, null);
+
+    public static ChainTip of(Block block) {
+        return block == null ? EMPTY : new ChainTip(block.getHeight(), block.getCurrentBlockHash(), block);
+    }
+
+    public boolean isEmpty() {
+        return block == null;
+    }
+}
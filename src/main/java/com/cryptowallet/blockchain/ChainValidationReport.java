@@ -0,0 +1,50 @@
+package com.cryptowallet.blockchain;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Structured result of a chain validation run.
+ * When the chain is invalid, the report points at the lowest failing height across all segments.
+ *
+ * @param valid               Whether every checked block passed validation.
+ * @param firstInvalidHeight  Height of the first invalid block, or null if the chain is valid.
+ * @param failure             The kind of failure at firstInvalidHeight, or null if the chain is valid.
+ * @param detail              Human-readable description of the failure, or null if the chain is valid.
+ * @param blocksChecked       Number of blocks that were checked.
+ * @param durationMillis      Total wall-clock time of the run.
+ * @param segments            Per-segment results, ordered by height.
+ */
+public record ChainValidationReport(
+        boolean valid,
+        Long firstInvalidHeight,
+        ValidationFailure failure,
+        String detail,
+        long blocksChecked,
+        long durationMillis,
+        List<SegmentReport> segments
+) {
+
+    public static ChainValidationReport empty() {
+        return new ChainValidationReport(true, null, null, null, 0, 0, List.of());
+    }
+
+    /**
+     * Combines segment results into a single report.
+     * @param segments       The per-segment results, in any order.
+     * @param blocksChecked  Number of blocks covered by the segments.
+     * @param durationMillis Total wall-clock time of the run.
+     * @return The combined report.
+     */
+    public static ChainValidationReport of(List<SegmentReport> segments, long blocksChecked, long durationMillis) {
+        List<SegmentReport> ordered = segments.stream()
+                .sorted(Comparator.comparingLong(SegmentReport::fromHeight))
+                .toList();
+        return ordered.stream()
+                .filter(segment -> !segment.isValid())
+                .findFirst()
+                .map(firstBad -> new ChainValidationReport(false, firstBad.failedHeight(), firstBad.failure(),
+                        firstBad.detail(), blocksChecked, durationMillis, ordered))
+                .orElseGet(() -> new ChainValidationReport(true, null, null, null, blocksChecked, durationMillis, ordered));
+    }
+}
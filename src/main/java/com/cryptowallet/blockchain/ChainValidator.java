@@ -0,0 +1,201 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.exception.MissingTransactionsException;
+import com.cryptowallet.merkle.MerkleAccumulator;
+import com.cryptowallet.merkle.MerkleEngine;
+import com.cryptowallet.merkle.MerkleEngines;
+import com.cryptowallet.merkle.MerkleFormat;
+import com.cryptowallet.model.Block;
+import com.cryptowallet.model.BlockHeaderEncoder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validates the chain in parallel by splitting it into height ranges on a dedicated ForkJoinPool.
+ * Each segment loads its own blocks, recomputes block hashes and Merkle roots, and checks the hash link
+ * to the block just before it, so links across segment boundaries are covered as well.
+ * Merkle Roots are recomputed in the format each block recorded, with stateless engines shared by all segments.
+ * Blocks with at least the streaming threshold of transactions stream their leaves into a MerkleAccumulator
+ * chunk by chunk instead of loading every signature and building the whole tree.
+ */
+@Component
+@Slf4j
+public class ChainValidator {
+
+    private final TransactionLeafLoader transactionLeafLoader;
+    private final MerkleEngines merkleEngines;
+    private final ForkJoinPool pool;
+    private final int segmentSize;
+    private final int streamingThreshold;
+
+    public ChainValidator(TransactionLeafLoader transactionLeafLoader,
+                          MerkleEngines merkleEngines,
+                          @Value("${blockchain.validation.parallelism:0}") int parallelism,
+                          @Value("${blockchain.validation.segment-size:256}") int segmentSize,
+                          @Value("${blockchain.validation.streaming-threshold:100000}") int streamingThreshold) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Validation segment size must be at least 1.");
+        }
+        this.transactionLeafLoader = transactionLeafLoader;
+        this.merkleEngines = merkleEngines;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.segmentSize = segmentSize;
+        this.streamingThreshold = streamingThreshold;
+    }
+
+    /**
+     * Validates every block of the given chain after the first one.
+     * @param chain The chain ordered by height; the index of a block is its height.
+     * @return A report with the first invalid height, if any, and the time spent per segment.
+     */
+    public ChainValidationReport validate(List<Block> chain) {
+        return validate((from, to) -> chain.subList((int) from, (int) to), 1, chain.size());
+    }
+
+    /**
+     * Validates the blocks in [fromHeight, toHeight), reading block bodies one segment at a time.
+     * The block at fromHeight - 1 is trusted and only used for the hash-link check.
+     * @param reader     Source of full blocks by height range.
+     * @param fromHeight The first height to validate, at least 1.
+     * @param toHeight   The height after the last block to validate.
+     * @return A report with the first invalid height, if any, and the time spent per segment.
+     */
+    public ChainValidationReport validate(BlockRangeReader reader, long fromHeight, long toHeight) {
+        long start = Math.max(fromHeight, 1);
+        if (toHeight <= start) {
+            return ChainValidationReport.empty();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        List<SegmentReport> segments = pool.invoke(new SegmentTask(reader, start, toHeight));
+        long duration = System.currentTimeMillis() - startedAt;
+
+        ChainValidationReport report = ChainValidationReport.of(segments, toHeight - start, duration);
+        log.info("Validated {} blocks in {} segments on {} threads in {} ms. Valid: {}",
+                report.blocksChecked(), segments.size(), pool.getParallelism(), duration, report.valid());
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Validates a single segment [from, to) of the chain, stopping at its first failing block.
+     */
+    SegmentReport validateSegment(BlockRangeReader reader, long from, long to) {
+        long startedAt = System.currentTimeMillis();
+        List<Block> blocks = reader.read(from - 1, to); // Includes the block before the segment for the link check
+
+        for (long height = from; height < to; height++) {
+            Block currentBlock = blocks.get((int) (height - from + 1));
+            Block previousBlock = blocks.get((int) (height - from));
+
+            String calculatedHash = currentBlock.calculateHash();
+            if (!currentBlock.getCurrentBlockHash().equals(calculatedHash)) {
+                return failed(from, to, height, ValidationFailure.INVALID_BLOCK_HASH,
+                        "Block " + currentBlock.getId() + " has an invalid current hash. Expected: " + calculatedHash
+                                + ", Got: " + currentBlock.getCurrentBlockHash(), startedAt);
+            }
+
+            if (!currentBlock.isLegacyHash()
+                    && !currentBlock.getTransactionsRoot().equals(BlockHeaderEncoder.transactionsRoot(currentBlock.getTransactionsIds()))) {
+                return failed(from, to, height, ValidationFailure.INVALID_BLOCK_HASH,
+                        "Block " + currentBlock.getId() + " transaction ID commitment does not match its transaction IDs.", startedAt);
+            }
+
+            if (!currentBlock.getPreviousBlockHash().equals(previousBlock.getCurrentBlockHash())) {
+                return failed(from, to, height, ValidationFailure.BROKEN_HASH_LINK,
+                        "Block " + currentBlock.getId() + " previous hash mismatch. Points to: "
+                                + currentBlock.getPreviousBlockHash() + ", Actual previous: " + previousBlock.getCurrentBlockHash(), startedAt);
+            }
+
+            String calculatedMerkleRoot;
+            try {
+                calculatedMerkleRoot = computeMerkleRoot(currentBlock);
+            } catch (MissingTransactionsException e) {
+                return failed(from, to, height, ValidationFailure.MISSING_TRANSACTIONS, e.getMessage(), startedAt);
+            }
+            if (!currentBlock.getMerkleRoot().equals(calculatedMerkleRoot)) {
+                return failed(from, to, height, ValidationFailure.MERKLE_ROOT_MISMATCH,
+                        "Block " + currentBlock.getId() + " Merkle Root mismatch. Expected: " + calculatedMerkleRoot
+                                + ", Got: " + currentBlock.getMerkleRoot(), startedAt);
+            }
+        }
+        return new SegmentReport(from, to - 1, null, null, null, System.currentTimeMillis() - startedAt);
+    }
+
+    private String computeMerkleRoot(Block block) {
+        MerkleEngine engine = merkleEngines.forFormat(MerkleFormat.of(block.getMerkleFormat()));
+        List<String> transactionIds = block.getTransactionsIds();
+        if (transactionIds.size() < streamingThreshold) {
+            return engine.computeRoot(transactionLeafLoader.loadSignatures(transactionIds));
+        }
+        MerkleAccumulator accumulator = engine.newAccumulator();
+        transactionLeafLoader.forEachSignature(transactionIds, accumulator::add);
+        return accumulator.root();
+    }
+
+    private static SegmentReport failed(long from, long to, long height, ValidationFailure failure, String detail, long startedAt) {
+        log.error("Block validation failed at height {}: {} - {}", height, failure, detail);
+        return new SegmentReport(from, to - 1, height, failure, detail, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Validates a segment like validateSegment, but reports an exception while reading or checking it as a
+     * failure at the segment's first height instead of letting it abort the run and drop the other segments.
+     */
+    private SegmentReport validateSegmentOrReportError(BlockRangeReader reader, long from, long to) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            return validateSegment(reader, from, to);
+        } catch (RuntimeException e) {
+            log.error("Validation of heights {} to {} threw an exception", from, to - 1, e);
+            return new SegmentReport(from, to - 1, from, ValidationFailure.SEGMENT_ERROR,
+                    "Could not validate heights " + from + " to " + (to - 1) + ": " + e, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    /**
+     * Recursively halves the height range until it fits in one segment, then validates it.
+     * Never serialized, so it declares no serialVersionUID.
+     */
+    @SuppressWarnings("serial")
+    private class SegmentTask extends RecursiveTask<List<SegmentReport>> {
+        private final BlockRangeReader reader;
+        private final long from;
+        private final long to;
+
+        SegmentTask(BlockRangeReader reader, long from, long to) {
+            this.reader = reader;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SegmentReport> compute() {
+            if (to - from <= segmentSize) {
+                List<SegmentReport> result = new ArrayList<>(1);
+                result.add(validateSegmentOrReportError(reader, from, to));
+                return result;
+            }
+            // Split on a segment boundary so segment ranges do not depend on the recursion shape
+            long segments = (to - from + segmentSize - 1) / segmentSize;
+            long middle = from + (segments / 2) * segmentSize;
+            SegmentTask left = new SegmentTask(reader, from, middle);
+            SegmentTask right = new SegmentTask(reader, middle, to);
+            left.fork();
+            List<SegmentReport> result = new ArrayList<>(right.compute());
+            result.addAll(left.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.dto.MerkleProofDTO;
+import com.cryptowallet.dto.MerkleProofVerificationDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.dto.VerifyMerkleProofRequestDTO;
+import com.cryptowallet.exception.BlockNotFoundException;
+import com.cryptowallet.exception.TransactionNotInBlockException;
+import com.cryptowallet.merkle.MerkleFormat;
+import com.cryptowallet.merkle.MerkleProof;
+import com.cryptowallet.merkle.MerkleTree;
+import com.cryptowallet.model.Block;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves Merkle inclusion proofs for the transactions of a block, so they can be checked offline
+ * against the block's Merkle Root.
+ * Trees of recently used blocks are kept in a size-bounded LRU cache of level arrays, so repeated
+ * proofs for the same block neither reload the transaction leaves nor rehash anything.
+ */
+@Service
+@Slf4j
+public class MerkleProofService {
+
+    private final BlockChain blockChain;
+    private final TransactionLeafLoader transactionLeafLoader;
+    private final TransactionBlockIndex transactionBlockIndex;
+    private final Map<String, MerkleTree> treeCache; // Keyed by block hash, since blocks are immutable
+
+    public MerkleProofService(BlockChain blockChain,
+                              TransactionLeafLoader transactionLeafLoader,
+                              TransactionBlockIndex transactionBlockIndex,
+                              @Value("${blockchain.proof.cache-size:256}") int cacheSize) {
+        this.blockChain = blockChain;
+        this.transactionLeafLoader = transactionLeafLoader;
+        this.transactionBlockIndex = transactionBlockIndex;
+        this.treeCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MerkleTree> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Builds the inclusion proof of a transaction in the block at the given height.
+     * @param height        The height of the block.
+     * @param transactionId The ID of the transaction to prove.
+     * @return The proof, with the block hash and Merkle Root it proves against.
+     * @throws BlockNotFoundException         if no block exists at the given height.
+     * @throws TransactionNotInBlockException if the transaction is not part of the block.
+     */
+    public MerkleProofDTO prove(long height, String transactionId) {
+        Block block = findBlock(height);
+        int leafIndex = block.getTransactionsIds().indexOf(transactionId);
+        if (leafIndex < 0) {
+            throw new TransactionNotInBlockException("Transaction " + transactionId + " is not part of the block at height " + height);
+        }
+        MerkleProof proof = treeOf(block).proof(leafIndex);
+        return new MerkleProofDTO(height, block.getCurrentBlockHash(), block.getMerkleRoot(), proof.format(), transactionId,
+                proof.leafHash(), proof.leafIndex(), proof.siblings());
+    }
+
+    /**
+     * Builds the inclusion proof of a transaction in the block it was sealed into, found through the
+     * transaction to block index rather than by searching the blocks.
+     * @param transactionId The ID of the transaction to prove.
+     * @return The proof, with the block hash and Merkle Root it proves against.
+     * @throws TransactionNotInBlockException if the transaction does not exist or is not sealed into a block yet.
+     */
+    public MerkleProofDTO prove(String transactionId) {
+        TransactionLocationDTO location = transactionBlockIndex.find(transactionId)
+                .orElseThrow(() -> new TransactionNotInBlockException("Transaction " + transactionId + " is not sealed into a block."));
+        Block block = findBlock(location.blockHeight());
+        List<String> transactionIds = block.getTransactionsIds();
+        if (location.position() >= transactionIds.size() || !transactionIds.get(location.position()).equals(transactionId)) {
+            throw new IllegalStateException("Transaction index points " + transactionId + " to the wrong position of block " + block.getHeight());
+        }
+        MerkleProof proof = treeOf(block).proof(location.position());
+        return new MerkleProofDTO(block.getHeight(), block.getCurrentBlockHash(), block.getMerkleRoot(), proof.format(), transactionId,
+                proof.leafHash(), proof.leafIndex(), proof.siblings());
+    }
+
+    /**
+     * Verifies a submitted inclusion proof against the Merkle Root stored in the block at the given height.
+     * The proof is only valid if the transaction sits at the proven position of the block, the proof has one
+     * sibling per level of the block's tree, and it hashes up to the block's root from the leaf of the
+     * transaction's stored signature. The leaf hash in the request is ignored, so an internal node hash with
+     * a shortened sibling list cannot pass as the transaction's leaf.
+     * @param height  The height of the block.
+     * @param request The proof to verify.
+     * @return The verification outcome, with the stored and the recomputed roots; the recomputed root is null
+     *         when the position or the number of siblings already rule the proof out.
+     * @throws BlockNotFoundException if no block exists at the given height.
+     */
+    public MerkleProofVerificationDTO verify(long height, VerifyMerkleProofRequestDTO request) {
+        Block block = findBlock(height);
+        List<String> transactionIds = block.getTransactionsIds();
+        List<String> siblings = request.siblings() == null ? List.of() : request.siblings();
+        boolean atProvenPosition = request.leafIndex() >= 0 && request.leafIndex() < transactionIds.size()
+                && transactionIds.get(request.leafIndex()).equals(request.transactionId());
+        if (!atProvenPosition || siblings.size() != MerkleTree.depth(transactionIds.size())) {
+            return new MerkleProofVerificationDTO(false, block.getMerkleRoot(), null);
+        }
+        // The cached tree was built from the stored signatures and checked against the block's root
+        MerkleProof proof = new MerkleProof(MerkleFormat.of(block.getMerkleFormat()), treeOf(block).getLeaf(request.leafIndex()),
+                request.leafIndex(), siblings);
+        return new MerkleProofVerificationDTO(proof.verify(block.getMerkleRoot()), block.getMerkleRoot(), proof.computeRoot());
+    }
+
+    private Block findBlock(long height) {
+        return blockChain.getBlockByHeight(height)
+                .orElseThrow(() -> new BlockNotFoundException("No block found at height " + height));
+    }
+
+    private MerkleTree treeOf(Block block) {
+        String key = block.getCurrentBlockHash();
+        synchronized (treeCache) {
+            MerkleTree cached = treeCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Built outside the lock; two concurrent misses for one block build identical trees
+        MerkleTree tree = MerkleTree.build(MerkleFormat.of(block.getMerkleFormat()),
+                transactionLeafLoader.loadSignatures(block.getTransactionsIds()));
+        if (!tree.getMerkleRoot().equals(block.getMerkleRoot())) {
+            throw new IllegalStateException("Transactions of block " + block.getId() + " no longer match its Merkle Root.");
+        }
+        synchronized (treeCache) {
+            treeCache.put(key, tree);
+        }
+        log.debug("Cached Merkle tree of block {} with {} leaves", block.getHeight(), tree.getLeafCount());
+        return tree;
+    }
+}
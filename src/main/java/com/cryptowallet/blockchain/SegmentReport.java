@@ -0,0 +1,24 @@
+package com.cryptowallet.blockchain;
+
+/**
+ * Outcome of validating one contiguous height range of the chain.
+ *
+ * @param fromHeight     First height checked by the segment (inclusive).
+ * @param toHeight       Last height checked by the segment (inclusive).
+ * @param failedHeight   Height of the first failing block in the segment, or null if the segment is valid.
+ * @param failure        The kind of failure found at failedHeight, or null if the segment is valid.
+ * @param detail         Human-readable description of the failure, or null if the segment is valid.
+ * @param durationMillis Wall-clock time spent validating the segment.
+ */
+public record SegmentReport(
+        long fromHeight,
+        long toHeight,
+        Long failedHeight,
+        ValidationFailure failure,
+        String detail,
+        long durationMillis
+) {
+    public boolean isValid() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.bloom.TransactionLocator;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.model.Block;
+import com.cryptowallet.model.TransactionDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reverse index from transactions to the block they were sealed into, stored on the transaction documents.
+ * The block sequencer records every new block with one bulk update, so looking a transaction up is a single
+ * read by ID. Transactions sealed before the index existed are found through the block Bloom filters.
+ */
+@Component
+@Slf4j
+public class TransactionBlockIndex {
+
+    private final MongoTemplate mongoTemplate;
+    private final ChainStore chain;
+    private final TransactionLocator transactionLocator;
+
+    public TransactionBlockIndex(MongoTemplate mongoTemplate, ChainStore chain, TransactionLocator transactionLocator) {
+        this.mongoTemplate = mongoTemplate;
+        this.chain = chain;
+        this.transactionLocator = transactionLocator;
+    }
+
+    /**
+     * Writes the height of a block and each transaction's position in it back onto its transactions,
+     * with one unordered bulk update for the whole block.
+     * @param block The persisted block.
+     */
+    public void record(Block block) {
+        List<String> transactionIds = block.getTransactionsIds();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class);
+        for (int position = 0; position < transactionIds.size(); position++) {
+            bulk.updateOne(new Query(Criteria.where("_id").is(transactionIds.get(position))),
+                    new Update().set("blockHeight", block.getHeight()).set("blockPosition", position));
+        }
+        bulk.execute();
+        log.debug("Indexed {} transactions of block {}", transactionIds.size(), block.getHeight());
+    }
+
+    /**
+     * @param transactionIds Transaction IDs to check.
+     * @return The IDs among the given ones whose transaction is recorded as part of a block.
+     */
+    public Set<String> sealedAmong(Collection<String> transactionIds) {
+        Query query = new Query(Criteria.where("_id").in(transactionIds).and("blockHeight").exists(true));
+        query.fields().include("_id");
+        Set<String> sealed = new HashSet<>();
+        mongoTemplate.find(query, TransactionDocument.class).forEach(transaction -> sealed.add(transaction.getId()));
+        return sealed;
+    }
+
+    /**
+     * Finds the block a transaction was sealed into.
+     * @param transactionId The ID of the transaction.
+     * @return The location of the transaction, or empty if it does not exist or is not sealed yet.
+     */
+    public Optional<TransactionLocationDTO> find(String transactionId) {
+        Query query = new Query(Criteria.where("_id").is(transactionId));
+        query.fields().include("blockHeight").include("blockPosition");
+        TransactionDocument transaction = mongoTemplate.findOne(query, TransactionDocument.class);
+        if (transaction == null) {
+            return Optional.empty();
+        }
+        if (transaction.getBlockHeight() == null || transaction.getBlockHeight() >= chain.size()) {
+            return transactionLocator.locate(transactionId);
+        }
+        long height = transaction.getBlockHeight();
+        return Optional.of(new TransactionLocationDTO(transactionId, height,
+                chain.getHeader(height).currentBlockHash(), transaction.getBlockPosition()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.exception.MissingTransactionsException;
+import com.cryptowallet.model.TransactionDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Loads the Merkle leaves (transaction signatures) for a block in a single projected query.
+ * Replaces the per-transaction findById round-trips previously done while building and validating blocks.
+ */
+@Component
+@Slf4j
+public class TransactionLeafLoader {
+
+    /** Transactions fetched per query when streaming the leaves of a large block. */
+    public static final int STREAM_CHUNK_SIZE = 8192;
+
+    private final MongoTemplate mongoTemplate;
+
+    public TransactionLeafLoader(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Fetches the signatures of the given transactions with one query, projected to the signature field only.
+     * The returned list follows the order of the given IDs, which is the order the Merkle tree is built in.
+     * @param transactionIds The IDs of the transactions in block order.
+     * @return The signatures of the transactions, in the same order as the IDs.
+     * @throws MissingTransactionsException if any of the transactions cannot be found, listing all missing IDs.
+     */
+    public List<String> loadSignatures(List<String> transactionIds) {
+        if (transactionIds == null || transactionIds.isEmpty()) {
+            return List.of();
+        }
+
+        Query query = new Query(Criteria.where("_id").in(new LinkedHashSet<>(transactionIds)));
+        query.fields().include("signature");
+
+        Map<String, String> signaturesById = new HashMap<>();
+        for (TransactionDocument transaction : mongoTemplate.find(query, TransactionDocument.class)) {
+            signaturesById.put(transaction.getId(), transaction.getSignature());
+        }
+
+        List<String> signatures = new ArrayList<>(transactionIds.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String id : transactionIds) {
+            String signature = signaturesById.get(id);
+            if (signature == null) {
+                missingIds.add(id);
+            } else {
+                signatures.add(signature);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            log.warn("{} of {} transactions could not be loaded: {}", missingIds.size(), transactionIds.size(), missingIds);
+            throw new MissingTransactionsException("Transactions referenced by block were not found.", missingIds);
+        }
+        return signatures;
+    }
+
+    /**
+     * Streams the signatures of the given transactions in block order, fetching them in chunks of
+     * STREAM_CHUNK_SIZE with one projected query each, so only one chunk of signatures is held in memory.
+     * @param transactionIds The IDs of the transactions in block order.
+     * @param consumer       Receives each signature in the order of the IDs.
+     * @throws MissingTransactionsException if any transaction of a chunk cannot be found, listing the chunk's missing IDs.
+     */
+    public void forEachSignature(List<String> transactionIds, Consumer<String> consumer) {
+        forEachSignature(transactionIds, STREAM_CHUNK_SIZE, consumer);
+    }
+
+    void forEachSignature(List<String> transactionIds, int chunkSize, Consumer<String> consumer) {
+        for (int from = 0; from < transactionIds.size(); from += chunkSize) {
+            List<String> chunk = transactionIds.subList(from, Math.min(transactionIds.size(), from + chunkSize));
+            loadSignatures(chunk).forEach(consumer);
+        }
+    }
+}
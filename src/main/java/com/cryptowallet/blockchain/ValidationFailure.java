@@ -0,0 +1,17 @@
+package com.cryptowallet.blockchain;
+
+/**
+ * The kinds of integrity failures that chain validation can detect for a block.
+ */
+public enum ValidationFailure {
+    /** The stored block hash does not match the hash recomputed from the block contents. */
+    INVALID_BLOCK_HASH,
+    /** The block's previous hash does not point to the hash of the block before it. */
+    BROKEN_HASH_LINK,
+    /** The stored Merkle root does not match the root rebuilt from the block's transactions. */
+    MERKLE_ROOT_MISMATCH,
+    /** One or more transactions referenced by the block no longer exist. */
+    MISSING_TRANSACTIONS,
+    /** The segment's blocks could not be read or checked, so none of them from the reported height on is verified. */
+    SEGMENT_ERROR
+}
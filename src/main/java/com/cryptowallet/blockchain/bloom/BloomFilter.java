@@ -0,0 +1,105 @@
+package com.cryptowallet.blockchain.bloom;
+
+import com.cryptowallet.crypto.Sha256;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Fixed-size Bloom filter over strings, used to answer "might this block contain transaction X".
+ * Bit positions come from double hashing the two leading 64-bit words of the SHA-256 of the value:
+ * position i = (h1 + i * h2) mod bitCount. False positives are possible, false negatives are not.
+ * <p>
+ * Encoded form (Base64): one byte holding the hash count, followed by the bit array as big-endian longs.
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASH_COUNT = 16;
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+    private final int hashCount;
+
+    private BloomFilter(long[] bits, int hashCount) {
+        this.bits = bits;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Creates an empty filter sized for the given number of entries.
+     * @param expectedEntries   The number of values that will be added.
+     * @param falsePositiveRate The target false-positive rate, used to size the filter when sizeBytes is 0.
+     * @param sizeBytes         A fixed filter size in bytes, or 0 to derive it from the entries and the rate.
+     */
+    public static BloomFilter create(int expectedEntries, double falsePositiveRate, int sizeBytes) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1, got " + falsePositiveRate);
+        }
+        int entries = Math.max(1, expectedEntries);
+        long bitCount = sizeBytes > 0
+                ? 8L * sizeBytes
+                : (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.max(1, (bitCount + Long.SIZE - 1) / Long.SIZE);
+        int hashCount = (int) Math.round((double) words * Long.SIZE / entries * LN2);
+        return new BloomFilter(new long[words], Math.max(1, Math.min(MAX_HASH_COUNT, hashCount)));
+    }
+
+    /**
+     * Decodes a filter written by {@link #encode()}.
+     */
+    public static BloomFilter decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        int hashCount = buffer.get();
+        long[] bits = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(bits);
+        return new BloomFilter(bits, hashCount);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + bits.length * Long.BYTES);
+        buffer.put((byte) hashCount);
+        buffer.asLongBuffer().put(bits);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    public void add(String value) {
+        ByteBuffer hash = ByteBuffer.wrap(Sha256.hash(value.getBytes(StandardCharsets.UTF_8)));
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        long bitCount = bitCount();
+        for (int i = 0; i < hashCount; i++) {
+            long position = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (position >>> 6)] |= 1L << position;
+        }
+    }
+
+    /**
+     * @return false if the value was certainly never added, true if it probably was.
+     */
+    public boolean mightContain(String value) {
+        ByteBuffer hash = ByteBuffer.wrap(Sha256.hash(value.getBytes(StandardCharsets.UTF_8)));
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        long bitCount = bitCount();
+        for (int i = 0; i < hashCount; i++) {
+            long position = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (position >>> 6)] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return (long) bits.length * Long.SIZE;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    public int sizeInBytes() {
+        return bits.length * Long.BYTES;
+    }
+}
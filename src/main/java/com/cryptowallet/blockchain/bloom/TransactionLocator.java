@@ -0,0 +1,189 @@
+package com.cryptowallet.blockchain.bloom;
+
+import com.cryptowallet.blockchain.ChainStore;
+import com.cryptowallet.blockchain.TransactionLeafLoader;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.dto.BloomFilterMetricsDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.exception.MissingTransactionsException;
+import com.cryptowallet.model.Block;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the block holding a transaction, by ID or signature, with the help of per-block Bloom filters.
+ * Only blocks whose filter might contain the value, or that predate filters, have their transactions read.
+ * Decoded filters of the newest blocks are kept in memory; older filters are read with a header scan of the
+ * block store, which never loads transaction lists.
+ */
+@Service
+@Slf4j
+public class TransactionLocator {
+
+    private final ChainStore chain;
+    private final BlockStore blockStore;
+    private final TransactionLeafLoader transactionLeafLoader;
+    private final double falsePositiveRate;
+    private final int sizeBytes;
+    private final int windowSize;
+    private final Map<Long, BloomFilter> windowFilters; // Decoded filters of the newest blocks, keyed by height
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder filterChecks = new LongAdder();
+    private final LongAdder candidateBlocks = new LongAdder();
+    private final LongAdder truePositives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TransactionLocator(ChainStore chain,
+                              BlockStore blockStore,
+                              TransactionLeafLoader transactionLeafLoader,
+                              @Value("${blockchain.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                              @Value("${blockchain.bloom.size-bytes:0}") int sizeBytes,
+                              @Value("${blockchain.store.window-size:128}") int windowSize) {
+        BloomFilter.create(1, falsePositiveRate, sizeBytes); // Fails fast on an invalid configuration
+        this.chain = chain;
+        this.blockStore = blockStore;
+        this.transactionLeafLoader = transactionLeafLoader;
+        this.falsePositiveRate = falsePositiveRate;
+        this.sizeBytes = sizeBytes;
+        this.windowSize = windowSize;
+        this.windowFilters = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BloomFilter> eldest) {
+                return size() > windowSize;
+            }
+        };
+    }
+
+    private record Candidate(long height, boolean filtered) {}
+
+    /**
+     * Builds the filter of a new block over both its transaction IDs and signatures.
+     * @return The encoded filter to store with the block.
+     */
+    public String filterFor(List<String> transactionIds, List<String> signatures) {
+        BloomFilter filter = BloomFilter.create(transactionIds.size() + signatures.size(), falsePositiveRate, sizeBytes);
+        transactionIds.forEach(filter::add);
+        signatures.forEach(filter::add);
+        return filter.encode();
+    }
+
+    /**
+     * Finds the newest block containing a transaction with the given ID or signature.
+     * The newest blocks are checked first, from their in-memory filters, before older filters are scanned.
+     * @param value A transaction ID or signature.
+     * @return The location of the transaction, or empty if no block contains it.
+     */
+    public Optional<TransactionLocationDTO> locate(String value) {
+        lookups.increment();
+        long size = chain.size();
+        long windowStart = Math.max(0, size - windowSize);
+        for (long height = size - 1; height >= windowStart; height--) {
+            Optional<Candidate> candidate = probe(height, windowFilter(height), value);
+            if (candidate.isPresent()) {
+                Optional<TransactionLocationDTO> location = confirm(candidate.get(), value);
+                if (location.isPresent()) {
+                    return location;
+                }
+            }
+        }
+        if (windowStart == 0) {
+            return Optional.empty();
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        blockStore.forEachHeader(0, header -> {
+            if (header.getHeight() < windowStart) {
+                BloomFilter filter = header.getBloomFilter() == null ? null : BloomFilter.decode(header.getBloomFilter());
+                probe(header.getHeight(), filter, value).ifPresent(candidates::add);
+            }
+        });
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            Optional<TransactionLocationDTO> location = confirm(candidates.get(i), value);
+            if (location.isPresent()) {
+                return location;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public BloomFilterMetricsDTO metrics() {
+        long checks = filterChecks.sum();
+        long negatives = checks - truePositives.sum();
+        long falseMatches = falsePositives.sum();
+        int filtersInMemory;
+        long bytesInMemory = 0;
+        synchronized (windowFilters) {
+            filtersInMemory = windowFilters.size();
+            for (BloomFilter filter : windowFilters.values()) {
+                bytesInMemory += filter == null ? 0 : filter.sizeInBytes();
+            }
+        }
+        return new BloomFilterMetricsDTO(falsePositiveRate, sizeBytes, lookups.sum(), checks, candidateBlocks.sum(),
+                falseMatches, negatives > 0 ? (double) falseMatches / negatives : 0, filtersInMemory, bytesInMemory);
+    }
+
+    /**
+     * @param filter The block's filter, or null for a block stored before filters existed, which is always a candidate.
+     */
+    private Optional<Candidate> probe(long height, BloomFilter filter, String value) {
+        if (filter != null) {
+            filterChecks.increment();
+            if (!filter.mightContain(value)) {
+                return Optional.empty();
+            }
+        }
+        candidateBlocks.increment();
+        return Optional.of(new Candidate(height, filter != null));
+    }
+
+    /**
+     * Reads the candidate block's transactions to rule out a false positive. Signatures are only loaded when
+     * the value is not one of the block's transaction IDs.
+     */
+    private Optional<TransactionLocationDTO> confirm(Candidate candidate, String value) {
+        Block block = chain.getBlock(candidate.height());
+        List<String> transactionIds = block.getTransactionsIds();
+        int position = transactionIds.indexOf(value);
+        if (position < 0) {
+            try {
+                position = transactionLeafLoader.loadSignatures(transactionIds).indexOf(value);
+            } catch (MissingTransactionsException e) {
+                log.warn("Cannot check signatures of block {}: {}", candidate.height(), e.getMessage());
+            }
+        }
+        if (position < 0) {
+            if (candidate.filtered()) {
+                falsePositives.increment();
+            }
+            return Optional.empty();
+        }
+        if (candidate.filtered()) {
+            truePositives.increment();
+        }
+        return Optional.of(new TransactionLocationDTO(transactionIds.get(position), candidate.height(),
+                block.getCurrentBlockHash(), position));
+    }
+
+    private BloomFilter windowFilter(long height) {
+        synchronized (windowFilters) {
+            if (windowFilters.containsKey(height)) {
+                return windowFilters.get(height);
+            }
+        }
+        String encoded = chain.getBlock(height).getBloomFilter(); // In the chain's window, so already in memory
+        BloomFilter filter = encoded == null ? null : BloomFilter.decode(encoded);
+        synchronized (windowFilters) {
+            windowFilters.put(height, filter);
+        }
+        return filter;
+    }
+}
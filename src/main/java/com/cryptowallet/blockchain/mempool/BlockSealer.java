@@ -0,0 +1,177 @@
+package com.cryptowallet.blockchain.mempool;
+
+import com.cryptowallet.blockchain.BlockSequencer;
+import com.cryptowallet.dto.BlockSealingMetricsDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when the pending transactions of the mempool are cut into a block.
+ * A block is sealed when the pool reaches the target block size, when the pooled IDs reach the maximum
+ * block body size, or when the oldest pooled transaction has waited for the maximum age, whichever comes
+ * first. The target size follows the observed arrival rate: it is the number of transactions expected
+ * within one target block interval, bounded by the minimum and maximum count. Low traffic therefore gets
+ * small blocks without waiting longer than the maximum age, and high traffic gets fewer, larger blocks
+ * instead of a Merkle build and a block write every few transactions.
+ */
+@Component
+@Slf4j
+public class BlockSealer {
+
+    private static final double RATE_SMOOTHING = 0.2; // Weight of the newest sample in the arrival rate
+
+    private final Mempool mempool;
+    private final BlockSequencer blockSequencer;
+    private final int minCount;
+    private final int maxCount;
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final long targetIntervalMs;
+
+    private final LongAdder arrivals = new LongAdder(); // Added since the last rate update
+    private long lastTickNanos;
+    private volatile double arrivalRate; // Transactions per second
+    private volatile int targetCount;
+
+    private final Map<SealReason, LongAdder> blocksByReason = new EnumMap<>(SealReason.class);
+    private final LongAdder transactionsSealed = new LongAdder();
+    private volatile SealReason lastSealReason;
+    private volatile int lastBlockSize;
+
+    public BlockSealer(Mempool mempool, BlockSequencer blockSequencer,
+                       @Value("${blockchain.sealing.min-count:8}") int minCount,
+                       @Value("${blockchain.sealing.max-count:1024}") int maxCount,
+                       @Value("${blockchain.sealing.max-bytes:262144}") long maxBytes,
+                       @Value("${blockchain.sealing.max-age-ms:2000}") long maxAgeMs,
+                       @Value("${blockchain.sealing.target-interval-ms:1000}") long targetIntervalMs) {
+        if (minCount < 1 || maxCount < minCount) {
+            throw new IllegalArgumentException("Block sealing needs 1 <= min-count <= max-count.");
+        }
+        if (maxBytes < 1 || maxAgeMs < 0 || targetIntervalMs < 1) {
+            throw new IllegalArgumentException("Block sealing max-bytes and target-interval-ms must be positive and max-age-ms not negative.");
+        }
+        this.mempool = mempool;
+        this.blockSequencer = blockSequencer;
+        this.minCount = minCount;
+        this.maxCount = maxCount;
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        this.targetIntervalMs = targetIntervalMs;
+        this.targetCount = minCount;
+        this.lastTickNanos = System.nanoTime();
+        for (SealReason reason : SealReason.values()) {
+            blocksByReason.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Seals the transactions the mempool replayed on startup, in blocks of at most the maximum count.
+     */
+    @PostConstruct
+    public void sealRecoveredTransactions() {
+        while (seal(SealReason.RECOVERY, 1, maxCount)) {
+            // Until the pool is empty
+        }
+    }
+
+    /**
+     * Adds an executed transaction to the mempool and seals a block if the pool reached the target size
+     * or the maximum block body size.
+     * @param transactionId The ID of the executed transaction.
+     */
+    public void add(String transactionId) {
+        int pendingCount = mempool.add(transactionId); // Durable once this returns
+        arrivals.increment();
+        log.debug("Added transaction {} to the mempool. Current size: {}", transactionId, pendingCount);
+
+        int target = targetCount;
+        if (pendingCount >= target) {
+            // Only one of the threads that see a full pool gets the batch; the others seal nothing
+            seal(SealReason.COUNT, target, target);
+        } else if (mempool.pendingBytes() >= maxBytes) {
+            seal(SealReason.BYTES, 1, maxCount);
+        }
+    }
+
+    /**
+     * Updates the arrival rate and the target block size, then seals a block if the oldest pending
+     * transaction reached the maximum age.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.sealing.check-interval-ms:100}")
+    public void tick() {
+        tick(System.nanoTime());
+    }
+
+    synchronized void tick(long nowNanos) {
+        long elapsedNanos = nowNanos - lastTickNanos;
+        if (elapsedNanos > 0) {
+            double sample = arrivals.sumThenReset() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+            arrivalRate = arrivalRate == 0 ? sample : RATE_SMOOTHING * sample + (1 - RATE_SMOOTHING) * arrivalRate;
+            lastTickNanos = nowNanos;
+            long expected = (long) Math.ceil(arrivalRate * targetIntervalMs / 1000);
+            targetCount = (int) Math.max(minCount, Math.min(maxCount, expected));
+        }
+
+        if (mempool.size() > 0 && mempool.oldestAgeNanos() >= maxAgeNanos) {
+            seal(SealReason.AGE, 1, maxCount);
+        }
+    }
+
+    private boolean seal(SealReason reason, int minTransactions, int maxTransactions) {
+        List<String> batch = mempool.seal(minTransactions, maxTransactions, maxBytes);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        log.info("Sealing a block of {} transactions ({}, target size {}).", batch.size(), reason, targetCount);
+        blocksByReason.get(reason).increment();
+        transactionsSealed.add(batch.size());
+        lastSealReason = reason;
+        lastBlockSize = batch.size();
+        // Persisting the block happens on the sequencer thread
+        blockSequencer.submit(batch);
+        return true;
+    }
+
+    /**
+     * @return The current target block size.
+     */
+    public int targetCount() {
+        return targetCount;
+    }
+
+    public BlockSealingMetricsDTO metrics() {
+        Map<SealReason, Long> byReason = new EnumMap<>(SealReason.class);
+        blocksByReason.forEach((reason, count) -> byReason.put(reason, count.sum()));
+        long blocks = byReason.values().stream().mapToLong(Long::longValue).sum();
+        long transactions = transactionsSealed.sum();
+        return new BlockSealingMetricsDTO(
+                targetCount,
+                minCount,
+                maxCount,
+                maxBytes,
+                TimeUnit.NANOSECONDS.toMillis(maxAgeNanos),
+                arrivalRate,
+                mempool.size(),
+                mempool.pendingBytes(),
+                TimeUnit.NANOSECONDS.toMillis(mempool.oldestAgeNanos()),
+                blocks,
+                transactions,
+                blocks == 0 ? 0 : (double) transactions / blocks,
+                byReason,
+                lastSealReason,
+                lastBlockSize,
+                mempool.isLogFailed(),
+                mempool.logFailures(),
+                mempool.logRecoveries()
+        );
+    }
+}
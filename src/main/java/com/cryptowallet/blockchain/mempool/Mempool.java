@@ -0,0 +1,287 @@
+package com.cryptowallet.blockchain.mempool;
+
+import com.cryptowallet.blockchain.TransactionBlockIndex;
+import com.cryptowallet.blockchain.store.BlockStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable pool of executed transactions waiting to be sealed into a block.
+ * Every added transaction is recorded in a local write-ahead log before it is pooled, with concurrent adds
+ * sharing one fsync, and the block sequencer records the transactions of every persisted block. On startup,
+ * transactions that were added but never made it into a block are replayed into the pool, so a restart no
+ * longer loses them. Sealing only takes IDs from memory; the log is compacted once it grows past a threshold.
+ * If a write fails, the log is rewritten from the transactions still waiting for a block on a later append,
+ * at most once per second, and the failure is reported in the sealing metrics until then.
+ */
+@Component
+@Slf4j
+public class Mempool {
+
+    private static final long RECOVERY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1); // Between rewrites of a failed log
+
+    private final TransactionBlockIndex transactionBlockIndex;
+    private final BlockStore blockStore;
+    private final Path logPath;
+    private final long compactBytes;
+    private final int reconcileBlocks;
+
+    private MempoolLog writeAheadLog; // null when the log is disabled
+    private final Deque<PendingTransaction> pending = new ArrayDeque<>(); // Waiting to be sealed, oldest first
+    private long pendingBytes; // Estimated size of the pending IDs in a block body
+    private final Set<String> uncommitted = new LinkedHashSet<>(); // Pending or sealed, but not yet in a persisted block
+    private long nextRecoveryNanos = System.nanoTime(); // Earliest time a failed log is rewritten again
+    private final LongAdder logFailures = new LongAdder();
+    private final LongAdder logRecoveries = new LongAdder();
+
+    private record PendingTransaction(String id, long addedAtNanos) {}
+
+    public Mempool(TransactionBlockIndex transactionBlockIndex,
+                   BlockStore blockStore,
+                   @Value("${blockchain.mempool.wal-path:}") String logPath,
+                   @Value("${blockchain.mempool.compact-bytes:4194304}") long compactBytes,
+                   @Value("${blockchain.mempool.reconcile-blocks:16}") int reconcileBlocks) {
+        this.transactionBlockIndex = transactionBlockIndex;
+        this.blockStore = blockStore;
+        this.logPath = logPath.isBlank() ? null : Path.of(logPath);
+        this.compactBytes = compactBytes;
+        this.reconcileBlocks = reconcileBlocks;
+    }
+
+    /**
+     * Opens the write-ahead log and replays the transactions that were not committed to a block.
+     * Transactions listed by one of the newest stored blocks, or placed in a block by the block index, are
+     * dropped. A crash after a block is persisted but before it is indexed and recorded in the log leaves
+     * only the block itself listing its transactions, so they are not sealed a second time.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        if (logPath == null) {
+            log.warn("Mempool write-ahead log is disabled. Pending transactions are lost on restart.");
+            return;
+        }
+        try {
+            List<MempoolLog.Entry> entries = new ArrayList<>();
+            MempoolLog opened = MempoolLog.open(logPath, entries);
+            for (MempoolLog.Entry entry : entries) {
+                if (entry.type() == MempoolLog.ADDED) {
+                    uncommitted.add(entry.transactionId());
+                } else {
+                    uncommitted.remove(entry.transactionId());
+                }
+            }
+            if (!uncommitted.isEmpty()) {
+                uncommitted.removeAll(sealedInNewestBlocks());
+            }
+            if (!uncommitted.isEmpty()) {
+                uncommitted.removeAll(transactionBlockIndex.sealedAmong(uncommitted));
+            }
+            opened.rewrite(uncommitted); // Starts from a compact log
+            this.writeAheadLog = opened;
+            uncommitted.forEach(this::pool);
+            log.info("Mempool replayed {} log records; {} transactions are waiting for a block.", entries.size(), pending.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the mempool write-ahead log at " + logPath, e);
+        }
+    }
+
+    /**
+     * @return The transaction IDs listed by the newest stored blocks, up to the configured number of blocks.
+     */
+    private Set<String> sealedInNewestBlocks() {
+        long size = blockStore.size();
+        Set<String> sealed = new HashSet<>();
+        blockStore.read(Math.max(0, size - reconcileBlocks), size)
+                .forEach(block -> sealed.addAll(block.getTransactionsIds()));
+        return sealed;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    /**
+     * Durably records an executed transaction and pools it for the next block.
+     * Returns once the transaction is on disk; if the log cannot be written, the transaction is still pooled
+     * in memory so blocks keep being sealed.
+     * @return The number of transactions waiting to be sealed, including this one.
+     */
+    public int add(String transactionId) {
+        MempoolLog currentLog;
+        synchronized (this) {
+            uncommitted.add(transactionId); // Before logging, so a concurrent compaction or recovery keeps it
+            currentLog = appendableLog();
+        }
+        if (currentLog != null) {
+            try {
+                currentLog.append(MempoolLog.ADDED, List.of(transactionId));
+            } catch (IOException e) {
+                logFailures.increment();
+                log.error("Failed to log transaction {} in the mempool; it is only kept in memory: {}", transactionId, e.getMessage());
+            }
+        }
+        synchronized (this) {
+            pool(transactionId);
+            return pending.size();
+        }
+    }
+
+    private void pool(String transactionId) {
+        pending.addLast(new PendingTransaction(transactionId, System.nanoTime()));
+        pendingBytes += sizeInBlock(transactionId);
+    }
+
+    /**
+     * Takes the oldest pending transactions for a new block. They stay in the log until {@link #commit} is called.
+     * @param minCount The minimum number of pending transactions to seal; fewer are left pooled.
+     * @param maxCount The maximum number of transactions to take.
+     * @return The sealed transaction IDs in pool order, or an empty list.
+     */
+    public List<String> seal(int minCount, int maxCount) {
+        return seal(minCount, maxCount, Long.MAX_VALUE);
+    }
+
+    /**
+     * Takes the oldest pending transactions for a new block, stopping before the block would exceed maxBytes.
+     * The first transaction is always taken, even if it alone exceeds the limit.
+     * @param minCount The minimum number of pending transactions to seal; fewer are left pooled.
+     * @param maxCount The maximum number of transactions to take.
+     * @param maxBytes The maximum estimated size of the sealed IDs in the block body.
+     * @return The sealed transaction IDs in pool order, or an empty list.
+     */
+    public synchronized List<String> seal(int minCount, int maxCount, long maxBytes) {
+        if (pending.isEmpty() || pending.size() < minCount) {
+            return List.of();
+        }
+        List<String> sealed = new ArrayList<>(Math.min(maxCount, pending.size()));
+        long sealedBytes = 0;
+        while (sealed.size() < maxCount && !pending.isEmpty()) {
+            long size = sizeInBlock(pending.peekFirst().id());
+            if (!sealed.isEmpty() && sealedBytes + size > maxBytes) {
+                break;
+            }
+            sealed.add(pending.pollFirst().id());
+            sealedBytes += size;
+        }
+        pendingBytes -= sealedBytes;
+        return sealed;
+    }
+
+    /**
+     * Records that the given transactions are part of a persisted block, so they are not replayed.
+     * Called by the block sequencer, which also compacts the log when it has grown past the threshold.
+     */
+    public void commit(Collection<String> transactionIds) {
+        MempoolLog currentLog;
+        synchronized (this) {
+            transactionIds.forEach(uncommitted::remove); // Their block is persisted even if the log misses the record
+            currentLog = appendableLog();
+        }
+        try {
+            if (currentLog != null) {
+                currentLog.append(MempoolLog.COMMITTED, transactionIds);
+            }
+            synchronized (this) {
+                if (currentLog != null && currentLog.size() > compactBytes) {
+                    currentLog.rewrite(uncommitted);
+                    log.debug("Compacted the mempool log to {} transactions.", uncommitted.size());
+                }
+            }
+        } catch (IOException e) {
+            logFailures.increment();
+            log.error("Failed to record {} committed transactions in the mempool log: {}", transactionIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the log to append to. A log whose earlier write failed is first rewritten from the transactions
+     * still waiting for a block, which drops the torn record, unless a rewrite was already tried within the
+     * recovery interval; appends to a log that is still failing fail and are only kept in memory.
+     * @return The log, or null if it is disabled.
+     */
+    private synchronized MempoolLog appendableLog() {
+        if (writeAheadLog != null && writeAheadLog.failed() && System.nanoTime() - nextRecoveryNanos >= 0) {
+            nextRecoveryNanos = System.nanoTime() + RECOVERY_INTERVAL_NANOS;
+            try {
+                writeAheadLog.rewrite(uncommitted);
+                logRecoveries.increment();
+                log.warn("Recovered the mempool log after a failed write; it was rewritten with {} waiting transactions.", uncommitted.size());
+            } catch (IOException e) {
+                logFailures.increment();
+                log.error("Failed to recover the mempool log; retrying on an append after {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(RECOVERY_INTERVAL_NANOS), e.getMessage());
+            }
+        }
+        return writeAheadLog;
+    }
+
+    /**
+     * @return Whether the write-ahead log failed a write and was not rewritten since, so new transactions are only
+     * kept in memory.
+     */
+    public synchronized boolean isLogFailed() {
+        return writeAheadLog != null && writeAheadLog.failed();
+    }
+
+    /**
+     * @return The number of failed writes to the write-ahead log, including failed recoveries.
+     */
+    public long logFailures() {
+        return logFailures.sum();
+    }
+
+    /**
+     * @return The number of times a failed write-ahead log was recovered by rewriting it.
+     */
+    public long logRecoveries() {
+        return logRecoveries.sum();
+    }
+
+    /**
+     * @return The number of transactions waiting to be sealed.
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * @return The estimated size of the pending transaction IDs in a block body.
+     */
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * @return How long the oldest pending transaction has been waiting, in nanoseconds, or 0 if none is.
+     */
+    public synchronized long oldestAgeNanos() {
+        return pending.isEmpty() ? 0 : System.nanoTime() - pending.peekFirst().addedAtNanos();
+    }
+
+    /**
+     * @return The size of a transaction ID in the block log: a 4-byte length followed by its UTF-8 bytes.
+     */
+    static long sizeInBlock(String transactionId) {
+        return 4 + transactionId.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
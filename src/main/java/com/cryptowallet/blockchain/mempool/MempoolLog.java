@@ -0,0 +1,243 @@
+package com.cryptowallet.blockchain.mempool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the mempool, with group commit.
+ * <pre>
+ * record: type (1) | ID length (4) | UTF-8 transaction ID | CRC32 of the preceding bytes (4)
+ * </pre>
+ * Appending threads add their records to a shared buffer and wait until they are on disk. The first waiter
+ * becomes the leader: it writes everything buffered so far with one write and one fsync, while records
+ * appended in the meantime collect for the next leader. Under load, many transactions share one fsync.
+ */
+final class MempoolLog implements Closeable {
+
+    static final byte ADDED = 'A'; // The transaction is waiting for a block
+    static final byte COMMITTED = 'C'; // The transaction is part of a persisted block
+
+    private static final int RECORD_OVERHEAD = 1 + 4 + 4;
+
+    record Entry(byte type, String transactionId) {}
+
+    private final Path path;
+    private FileChannel channel;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(); // Records not yet written
+    private long appendedSequence; // Number of append calls that added to the buffer
+    private long durableSequence; // Appends up to this one are on disk
+    private boolean flushing; // A leader is writing outside the monitor
+    private IOException failure; // Set when a batch could not be written; the log accepts no more records until rewritten
+    private long size;
+
+    private MempoolLog(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Reads every complete record of the log, then truncates a torn or corrupt tail left by a crash so new
+     * records are appended after the last valid one.
+     * @return The log opened for appending, together with its records in write order.
+     */
+    static MempoolLog open(Path path, List<Entry> entries) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+        while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+            // Read the whole file
+        }
+        content.flip();
+
+        int validEnd = 0;
+        while (content.remaining() >= RECORD_OVERHEAD) {
+            int start = content.position();
+            byte type = content.get();
+            int length = content.getInt();
+            if (length < 0 || length + 4 > content.remaining()) {
+                break;
+            }
+            byte[] id = new byte[length];
+            content.get(id);
+            CRC32 crc = new CRC32();
+            crc.update(content.array(), start, 1 + 4 + length);
+            if ((int) crc.getValue() != content.getInt()) {
+                break;
+            }
+            entries.add(new Entry(type, new String(id, StandardCharsets.UTF_8)));
+            validEnd = content.position();
+        }
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        return new MempoolLog(path, channel);
+    }
+
+    /**
+     * Appends one record per transaction ID and returns once they are durable.
+     */
+    void append(byte type, Collection<String> transactionIds) throws IOException {
+        long sequence;
+        synchronized (this) {
+            for (String transactionId : transactionIds) {
+                buffer.writeBytes(encode(type, transactionId));
+            }
+            sequence = ++appendedSequence;
+        }
+        awaitDurable(sequence);
+    }
+
+    private void awaitDurable(long sequence) throws IOException {
+        while (true) {
+            ByteBuffer batch;
+            long batchSequence;
+            synchronized (this) {
+                while (flushing && durableSequence < sequence) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the mempool log.");
+                    }
+                }
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new IOException("Mempool log failed to write an earlier batch.", failure);
+                }
+                // Become the leader for everything buffered so far
+                flushing = true;
+                batch = ByteBuffer.wrap(buffer.toByteArray());
+                buffer.reset();
+                batchSequence = appendedSequence;
+            }
+
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e; // A partly written batch leaves a torn record, so nothing may follow it
+                    flushing = false;
+                    notifyAll();
+                }
+                throw e;
+            }
+            synchronized (this) {
+                flushing = false;
+                durableSequence = batchSequence;
+                size += batch.limit();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with one ADDED record per given transaction ID, atomically, so it only holds what is still
+     * waiting for a block. The given IDs must include every transaction with an ADDED record buffered so far;
+     * records appended while the log is rewritten are kept and written after it.
+     */
+    void rewrite(Collection<String> liveTransactionIds) throws IOException {
+        long sequence;
+        int buffered;
+        synchronized (this) {
+            while (flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the mempool log.");
+                }
+            }
+            flushing = true;
+            sequence = appendedSequence;
+            buffered = buffer.size();
+        }
+
+        boolean written = false;
+        try {
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            liveTransactionIds.forEach(transactionId -> content.writeBytes(encode(ADDED, transactionId)));
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.wrap(content.toByteArray());
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                out.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            written = true;
+            synchronized (this) {
+                size = content.size();
+            }
+        } finally {
+            synchronized (this) {
+                flushing = false;
+                if (written) {
+                    // Records buffered before the rewrite are covered by the rewritten log
+                    byte[] appendedSince = Arrays.copyOfRange(buffer.toByteArray(), buffered, buffer.size());
+                    buffer.reset();
+                    buffer.writeBytes(appendedSince);
+                    durableSequence = sequence;
+                    failure = null; // The rewritten log has no torn record
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return Whether a batch could not be written. Appends fail until the log is rewritten.
+     */
+    synchronized boolean failed() {
+        return failure != null;
+    }
+
+    /**
+     * @return The size of the log on disk in bytes.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] encode(byte type, String transactionId) {
+        byte[] id = transactionId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + id.length);
+        record.put(type).putInt(id.length).put(id);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+}
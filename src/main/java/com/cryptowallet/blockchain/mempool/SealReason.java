@@ -0,0 +1,11 @@
+package com.cryptowallet.blockchain.mempool;
+
+/**
+ * Why the block sealer cut a block from the mempool.
+ */
+public enum SealReason {
+    COUNT, // The pool reached the adaptive target block size
+    BYTES, // The pooled transaction IDs reached the maximum block body size
+    AGE, // The oldest pooled transaction waited for the maximum age
+    RECOVERY // The transactions were replayed from the mempool log on startup
+}
@@ -0,0 +1,269 @@
+package com.cryptowallet.blockchain.mmr;
+
+import com.cryptowallet.blockchain.ChainStore;
+import com.cryptowallet.crypto.Sha256;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only Merkle Mountain Range over the hashes of all blocks, in height order.
+ * Leaf i is the SHA-256 of the tagged hash value of the block at height i (see Sha256.toTaggedHashBytes), so
+ * a marker and the Base64 of its hash make different leaves, and every internal node is the SHA-256 of its
+ * two children.
+ * The range is a list of perfect binary trees ("mountains"), one per set bit of the leaf count; its root
+ * bags the mountain peaks from right to left. Appending a block writes only the O(log n) new nodes, and
+ * only the peaks are kept in memory. Nodes are numbered in post-order and persisted in an MmrNodeStore.
+ */
+@Component
+@Slf4j
+public class ChainMmr {
+
+    private static final int SYNC_BATCH_SIZE = 1024; // Leaves appended per store write while catching up
+
+    private final MmrNodeStore nodeStore;
+    private final ChainStore chain;
+
+    private final List<byte[]> peaks = new ArrayList<>(); // Left to right
+    private final List<Integer> peakHeights = new ArrayList<>();
+    private long leafCount;
+    private long size; // Number of nodes
+
+    public ChainMmr(MmrNodeStore nodeStore, ChainStore chain) {
+        this.nodeStore = nodeStore;
+        this.chain = chain;
+    }
+
+    /**
+     * Loads the peaks of the persisted range and catches up on the blocks appended since it was last updated.
+     * The range is rebuilt from the chain if it is not a valid range or its last leaf is not the chain's block
+     * at the same height, for example after the chain was replaced. Must be called after the chain is loaded.
+     */
+    public synchronized void load() {
+        long storedSize = nodeStore.size();
+        long storedLeafCount = leafCountOf(storedSize);
+        boolean valid = storedLeafCount >= 0 && storedLeafCount <= chain.size() && loadPeaks(storedLeafCount);
+        if (valid && storedLeafCount > 0) {
+            long lastLeaf = leafPosition(storedLeafCount - 1);
+            byte[] stored = nodeStore.findAll(List.of(lastLeaf)).get(lastLeaf);
+            valid = stored != null
+                    && Arrays.equals(stored, leafHash(chain.getHeader(storedLeafCount - 1).currentBlockHash()));
+        }
+        if (!valid) {
+            log.warn("Merkle Mountain Range of {} nodes does not match the chain. Rebuilding it from {} blocks.", storedSize, chain.size());
+            reset();
+        }
+        sync();
+        log.info("Merkle Mountain Range loaded with {} leaves and {} peaks.", leafCount, peaks.size());
+    }
+
+    /**
+     * Appends the hashes of the blocks the chain has and the range does not yet cover.
+     * Called by the single block writer after every appended block, which makes it a single O(log n) append.
+     */
+    public synchronized void sync() {
+        long chainSize = chain.size();
+        while (leafCount < chainSize) {
+            int batch = (int) Math.min(SYNC_BATCH_SIZE, chainSize - leafCount);
+            List<String> blockHashes = new ArrayList<>(batch);
+            for (long height = leafCount; height < leafCount + batch; height++) {
+                blockHashes.add(chain.getHeader(height).currentBlockHash());
+            }
+            appendAll(blockHashes);
+        }
+    }
+
+    /**
+     * @return The root of the range as a Base64 encoded hash, or null if the range is empty.
+     */
+    public synchronized String root() {
+        return peaks.isEmpty() ? null : Base64.getEncoder().encodeToString(bagPeaks(peaks));
+    }
+
+    /**
+     * @return The root together with the leaf count it was computed for.
+     */
+    public synchronized MmrRoot currentRoot() {
+        return new MmrRoot(leafCount, root());
+    }
+
+    public synchronized long leafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Builds the proof that the block at the given height is part of the chain, against the current root.
+     * Reads the O(log n) sibling nodes from the store with one query.
+     * @param height The height of the block.
+     * @return The proof, including the peaks of the current range.
+     * @throws IndexOutOfBoundsException if the range does not cover the given height.
+     */
+    public MmrProof prove(long height) {
+        long currentLeafCount;
+        List<byte[]> currentPeaks;
+        synchronized (this) {
+            currentLeafCount = leafCount;
+            currentPeaks = List.copyOf(peaks); // Peak arrays are never modified, only replaced
+        }
+        if (height < 0 || height >= currentLeafCount) {
+            throw new IndexOutOfBoundsException("Height " + height + " is outside the Merkle Mountain Range of " + currentLeafCount + " blocks.");
+        }
+
+        // Walk from the leaf up to its mountain's peak; bits of the leaf's index inside the mountain give each side
+        long localIndex = height;
+        int mountainHeight = 63 - Long.numberOfLeadingZeros(currentLeafCount);
+        for (; mountainHeight >= 0; mountainHeight--) {
+            long mountainLeaves = 1L << mountainHeight;
+            if ((currentLeafCount & mountainLeaves) != 0) {
+                if (localIndex < mountainLeaves) {
+                    break;
+                }
+                localIndex -= mountainLeaves;
+            }
+        }
+        long position = leafPosition(height);
+        List<Long> siblingPositions = new ArrayList<>(mountainHeight);
+        for (int level = 0; level < mountainHeight; level++) {
+            long subtreeSize = (1L << (level + 1)) - 1;
+            if (((localIndex >> level) & 1) == 0) {
+                siblingPositions.add(position + subtreeSize);
+                position += subtreeSize + 1;
+            } else {
+                siblingPositions.add(position - subtreeSize);
+                position += 1;
+            }
+        }
+
+        Map<Long, byte[]> siblingHashes = nodeStore.findAll(siblingPositions);
+        List<String> siblings = new ArrayList<>(siblingPositions.size());
+        for (Long siblingPosition : siblingPositions) {
+            byte[] hash = siblingHashes.get(siblingPosition);
+            if (hash == null) {
+                throw new IllegalStateException("Merkle Mountain Range node " + siblingPosition + " is missing from the store.");
+            }
+            siblings.add(Base64.getEncoder().encodeToString(hash));
+        }
+        return new MmrProof(height, chain.getHeader(height).currentBlockHash(), currentLeafCount, siblings,
+                currentPeaks.stream().map(Base64.getEncoder()::encodeToString).toList());
+    }
+
+    /**
+     * Appends leaves, writing all of their new nodes to the store before updating the in-memory peaks,
+     * so a failed write leaves the range as it was.
+     */
+    private void appendAll(List<String> blockHashes) {
+        List<byte[]> newPeaks = new ArrayList<>(peaks);
+        List<Integer> newPeakHeights = new ArrayList<>(peakHeights);
+        List<byte[]> newNodes = new ArrayList<>(2 * blockHashes.size());
+        for (String blockHash : blockHashes) {
+            byte[] node = leafHash(blockHash);
+            newNodes.add(node);
+            int height = 0;
+            // Merge with the peak on the left while it is a mountain of the same height
+            while (!newPeaks.isEmpty() && newPeakHeights.get(newPeaks.size() - 1) == height) {
+                node = hashPair(newPeaks.remove(newPeaks.size() - 1), node);
+                newPeakHeights.remove(newPeakHeights.size() - 1);
+                newNodes.add(node);
+                height++;
+            }
+            newPeaks.add(node);
+            newPeakHeights.add(height);
+        }
+
+        nodeStore.append(size, newNodes);
+
+        peaks.clear();
+        peaks.addAll(newPeaks);
+        peakHeights.clear();
+        peakHeights.addAll(newPeakHeights);
+        size += newNodes.size();
+        leafCount += blockHashes.size();
+    }
+
+    /**
+     * Reads the peaks of a stored range with the given leaf count.
+     * @return false if a peak is missing from the store.
+     */
+    private boolean loadPeaks(long storedLeafCount) {
+        List<Long> peakPositions = new ArrayList<>();
+        List<Integer> heights = new ArrayList<>();
+        long offset = 0;
+        for (int height = 63; height >= 0; height--) {
+            if ((storedLeafCount & (1L << height)) != 0) {
+                offset += (1L << (height + 1)) - 1; // Nodes of a perfect tree of this height
+                peakPositions.add(offset - 1);
+                heights.add(height);
+            }
+        }
+        Map<Long, byte[]> stored = nodeStore.findAll(peakPositions);
+        if (stored.size() != peakPositions.size()) {
+            return false;
+        }
+        peaks.clear();
+        peakHeights.clear();
+        peakPositions.forEach(position -> peaks.add(stored.get(position)));
+        peakHeights.addAll(heights);
+        leafCount = storedLeafCount;
+        size = offset;
+        return true;
+    }
+
+    private void reset() {
+        nodeStore.clear();
+        peaks.clear();
+        peakHeights.clear();
+        leafCount = 0;
+        size = 0;
+    }
+
+    /**
+     * @return The leaf node of a block hash: the SHA-256 of its tagged hash value, 32 bytes like every other node.
+     */
+    static byte[] leafHash(String blockHash) {
+        return Sha256.hash(Sha256.toTaggedHashBytes(blockHash));
+    }
+
+    /**
+     * @return The post-order position of the leaf with the given index.
+     */
+    static long leafPosition(long leafIndex) {
+        return 2 * leafIndex - Long.bitCount(leafIndex);
+    }
+
+    /**
+     * @return The number of leaves of a range with the given number of nodes, or -1 if no range has that size.
+     */
+    static long leafCountOf(long nodeCount) {
+        // A range of n leaves has 2n - bitCount(n) nodes, and bitCount(n) is at most 64
+        for (long leaves = nodeCount / 2; leaves <= nodeCount / 2 + Long.SIZE; leaves++) {
+            if (2 * leaves - Long.bitCount(leaves) == nodeCount) {
+                return leaves;
+            }
+        }
+        return -1;
+    }
+
+    static byte[] hashPair(byte[] left, byte[] right) {
+        MessageDigest digest = Sha256.digest();
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    /**
+     * Bags the peaks from right to left into a single root: root = H(peak0 | H(peak1 | ... peakN)).
+     */
+    static byte[] bagPeaks(List<byte[]> peaks) {
+        byte[] root = peaks.get(peaks.size() - 1);
+        for (int i = peaks.size() - 2; i >= 0; i--) {
+            root = hashPair(peaks.get(i), root);
+        }
+        return root;
+    }
+}
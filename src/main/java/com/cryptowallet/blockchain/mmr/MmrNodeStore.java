@@ -0,0 +1,36 @@
+package com.cryptowallet.blockchain.mmr;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent storage for the nodes of a Merkle Mountain Range, addressed by position.
+ */
+public interface MmrNodeStore {
+
+    /**
+     * @return The number of stored nodes.
+     */
+    long size();
+
+    /**
+     * Persists nodes at consecutive positions after the stored ones. Nodes already stored at those positions,
+     * left by an earlier append that failed partway, are replaced, so the append can be retried.
+     * @param firstPosition The position of the first node, which must be the size the range had before any
+     *                      failed append.
+     * @param hashes        The raw 32-byte node hashes in position order.
+     */
+    void append(long firstPosition, List<byte[]> hashes);
+
+    /**
+     * @param positions The positions to read.
+     * @return The raw node hashes by position; positions that are not stored are absent.
+     */
+    Map<Long, byte[]> findAll(Collection<Long> positions);
+
+    /**
+     * Removes every node, so the range can be rebuilt from the chain.
+     */
+    void clear();
+}
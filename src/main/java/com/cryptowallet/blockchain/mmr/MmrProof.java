@@ -0,0 +1,76 @@
+package com.cryptowallet.blockchain.mmr;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Proof that a block hash is a leaf of the chain's Merkle Mountain Range, verifiable without the chain.
+ * The leaf count fixes the shape of the range: one mountain per set bit of the count, highest first,
+ * so the verifier knows which mountain holds the leaf and on which side each sibling is.
+ *
+ * @param blockHeight The height of the proven block, which is its leaf index.
+ * @param blockHash   The hash of the proven block.
+ * @param leafCount   The number of leaves of the range the proof was made for.
+ * @param siblings    The sibling hashes from the leaf up to its mountain's peak, Base64 encoded.
+ * @param peaks       The peaks of all mountains from left to right, Base64 encoded.
+ */
+public record MmrProof(long blockHeight, String blockHash, long leafCount, List<String> siblings, List<String> peaks) {
+
+    public MmrProof {
+        siblings = List.copyOf(siblings);
+        peaks = List.copyOf(peaks);
+    }
+
+    /**
+     * Recomputes the root of the range from the proof.
+     * @return The Base64 encoded root implied by this proof, or null if the proof does not fit the range's shape.
+     */
+    public String computeRoot() {
+        if (blockHeight < 0 || blockHeight >= leafCount || peaks.size() != Long.bitCount(leafCount)) {
+            return null;
+        }
+        // Find the mountain holding the leaf, and the leaf's index inside it
+        long firstLeaf = 0;
+        int peakIndex = 0;
+        int mountainHeight = 63 - Long.numberOfLeadingZeros(leafCount);
+        for (; mountainHeight >= 0; mountainHeight--) {
+            if ((leafCount & (1L << mountainHeight)) == 0) {
+                continue;
+            }
+            if (blockHeight < firstLeaf + (1L << mountainHeight)) {
+                break;
+            }
+            firstLeaf += 1L << mountainHeight;
+            peakIndex++;
+        }
+        if (siblings.size() != mountainHeight) {
+            return null;
+        }
+
+        byte[] node = ChainMmr.leafHash(blockHash);
+        long localIndex = blockHeight - firstLeaf;
+        for (int level = 0; level < mountainHeight; level++) {
+            byte[] sibling = Base64.getDecoder().decode(siblings.get(level));
+            node = ((localIndex >> level) & 1) == 0
+                    ? ChainMmr.hashPair(node, sibling)
+                    : ChainMmr.hashPair(sibling, node);
+        }
+
+        List<byte[]> peakHashes = new ArrayList<>(peaks.size());
+        for (String peak : peaks) {
+            peakHashes.add(Base64.getDecoder().decode(peak));
+        }
+        peakHashes.set(peakIndex, node);
+        return Base64.getEncoder().encodeToString(ChainMmr.bagPeaks(peakHashes));
+    }
+
+    /**
+     * @param root The expected root of the range, as published by the chain.
+     * @return true if the proof leads to the expected root.
+     */
+    public boolean verify(String root) {
+        String computedRoot = computeRoot();
+        return computedRoot != null && computedRoot.equals(root);
+    }
+}
@@ -0,0 +1,10 @@
+package com.cryptowallet.blockchain.mmr;
+
+/**
+ * The root of the chain's Merkle Mountain Range together with the number of blocks it covers.
+ *
+ * @param leafCount The number of blocks covered, which fixes the shape of the range.
+ * @param root      The Base64 encoded root, or null if the range is empty.
+ */
+public record MmrRoot(long leafCount, String root) {
+}
@@ -0,0 +1,67 @@
+package com.cryptowallet.blockchain.mmr;
+
+import com.cryptowallet.model.MmrNode;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MmrNodeStore backed by the MongoDB "mmr_nodes" collection, keyed by node position.
+ */
+@Component
+public class MongoMmrNodeStore implements MmrNodeStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoMmrNodeStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public long size() {
+        return mongoTemplate.count(new Query(), MmrNode.class);
+    }
+
+    /**
+     * Writes all nodes with one unordered bulk of upserts, so nodes left by an earlier append that failed
+     * partway are overwritten instead of failing every later append on their duplicate positions.
+     */
+    @Override
+    public void append(long firstPosition, List<byte[]> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MmrNode.class);
+        for (int i = 0; i < hashes.size(); i++) {
+            bulk.upsert(new Query(Criteria.where("_id").is(firstPosition + i)),
+                    new Update().set("hash", Base64.getEncoder().encodeToString(hashes.get(i))));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public Map<Long, byte[]> findAll(Collection<Long> positions) {
+        Map<Long, byte[]> hashes = new HashMap<>();
+        if (positions.isEmpty()) {
+            return hashes;
+        }
+        for (MmrNode node : mongoTemplate.find(new Query(Criteria.where("_id").in(positions)), MmrNode.class)) {
+            hashes.put(node.getPosition(), Base64.getDecoder().decode(node.getHash()));
+        }
+        return hashes;
+    }
+
+    @Override
+    public void clear() {
+        mongoTemplate.remove(new Query(), MmrNode.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.cryptowallet.blockchain.state;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Proof that a wallet held a balance in the wallet state tree, verifiable against a block's state root
+ * without the wallets. The path ends at the depth where the key's subtree holds the balance's leaf, nothing,
+ * or a single other leaf sharing the path, which proves the balance absent. Siblings that are empty subtrees
+ * are left out; the bitmap marks the depths of the siblings that are included.
+ *
+ * @param address           The wallet address.
+ * @param currency          The currency of the balance.
+ * @param balance           The committed balance, or null to prove that the wallet never held the currency.
+ * @param depth             The depth the path ends at, between 0 and StateTree.DEPTH.
+ * @param siblingBitmap     Base64 encoded 256-bit map; bit d - 1, from the most significant bit, is set when the
+ *                          sibling at depth d is included.
+ * @param siblings          The included sibling hashes from the end of the path up to the root, Base64 encoded.
+ * @param neighborKey       When proving absence, the hex key of the other leaf the path ends at, or null if it ends
+ *                          at an empty subtree.
+ * @param neighborValueHash The Base64 encoded value hash of that other leaf, or null.
+ * @param stateRoot         The root of the tree the proof was built against.
+ */
+public record BalanceProof(String address, String currency, BigDecimal balance, int depth, String siblingBitmap,
+                           List<String> siblings, String neighborKey, String neighborValueHash, String stateRoot) {
+
+    public BalanceProof {
+        siblings = List.copyOf(siblings);
+    }
+
+    /**
+     * Recomputes the root of the tree from the proof.
+     * @return The Base64 encoded root implied by this proof, or null if the proof is malformed.
+     */
+    public String computeRoot() {
+        try {
+            byte[] bitmap = Base64.getDecoder().decode(siblingBitmap);
+            if (bitmap.length != StateTree.DEPTH / 8 || depth < 0 || depth > StateTree.DEPTH) {
+                return null;
+            }
+            for (int unused = depth; unused < StateTree.DEPTH; unused++) {
+                if (StateTree.bit(bitmap, unused) == 1) {
+                    return null;
+                }
+            }
+            byte[] key = StateTree.keyOf(address, currency);
+            byte[] node = terminal(key);
+            if (node == null) {
+                return null;
+            }
+            int next = 0;
+            for (int level = depth; level >= 1; level--) {
+                byte[] sibling;
+                if (StateTree.bit(bitmap, level - 1) == 1) {
+                    if (next == siblings.size()) {
+                        return null;
+                    }
+                    sibling = Base64.getDecoder().decode(siblings.get(next++));
+                } else {
+                    sibling = StateTree.emptyHash();
+                }
+                node = StateTree.bit(key, level - 1) == 0
+                        ? StateTree.hashNode(node, sibling)
+                        : StateTree.hashNode(sibling, node);
+            }
+            return next == siblings.size() ? Base64.getEncoder().encodeToString(node) : null;
+        } catch (IllegalArgumentException e) {
+            return null; // Not Base64 or hex
+        }
+    }
+
+    /**
+     * @param root The expected state root, as recorded by a block.
+     * @return true if the proof leads to the expected root.
+     */
+    public boolean verify(String root) {
+        String computedRoot = computeRoot();
+        return computedRoot != null && computedRoot.equals(root);
+    }
+
+    // The hash the path ends at, or null if the claimed neighbor cannot sit on the key's path
+    private byte[] terminal(byte[] key) {
+        if (balance != null) {
+            return neighborKey == null ? StateTree.leafHash(key, StateTree.valueHash(balance)) : null;
+        }
+        if (neighborKey == null) {
+            return neighborValueHash == null ? StateTree.emptyHash() : null;
+        }
+        if (neighborValueHash == null) {
+            return null;
+        }
+        byte[] neighbor = HexFormat.of().parseHex(neighborKey);
+        byte[] valueHash = Base64.getDecoder().decode(neighborValueHash);
+        if (neighbor.length != key.length || valueHash.length != key.length || Arrays.equals(neighbor, key)) {
+            return null;
+        }
+        for (int index = 0; index < depth; index++) {
+            if (StateTree.bit(neighbor, index) != StateTree.bit(key, index)) {
+                return null;
+            }
+        }
+        return StateTree.leafHash(neighbor, valueHash);
+    }
+}
@@ -0,0 +1,86 @@
+package com.cryptowallet.blockchain.state;
+
+import com.cryptowallet.model.StateNode;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StateNodeStore backed by the MongoDB "state_nodes" collection, keyed by node ID.
+ */
+@Component
+public class MongoStateNodeStore implements StateNodeStore {
+
+    static final int FIND_CHUNK_SIZE = 4096; // IDs per $in query; a tree level can have one per applied leaf
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoStateNodeStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Reads the nodes with one query per chunk of IDs, keeping each query far below the document size limit.
+     */
+    @Override
+    public Map<String, StateNode> findAll(Collection<String> ids) {
+        Map<String, StateNode> nodes = new HashMap<>();
+        List<String> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += FIND_CHUNK_SIZE) {
+            List<String> chunk = all.subList(from, Math.min(from + FIND_CHUNK_SIZE, all.size()));
+            for (StateNode node : mongoTemplate.find(new Query(Criteria.where("_id").in(chunk)), StateNode.class)) {
+                nodes.put(node.getId(), node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Writes all nodes with one unordered bulk of upserts; every node has its own ID, so order does not matter.
+     * Upserts rather than inserts, because a commit may write a node again that is already stored with the same hash.
+     */
+    @Override
+    public void saveAll(Collection<StateNode> nodes) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StateNode.class);
+        for (StateNode node : nodes) {
+            bulk.upsert(new Query(Criteria.where("_id").is(node.getId())),
+                    new Update().set("hash", node.getHash()).set("left", node.getLeft()).set("right", node.getRight())
+                            .set("key", node.getKey()).set("balance", node.getBalance()));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void delete(String id) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), StateNode.class);
+    }
+
+    /**
+     * Deletes the nodes with one query per chunk of IDs.
+     */
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        List<String> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += FIND_CHUNK_SIZE) {
+            List<String> chunk = all.subList(from, Math.min(from + FIND_CHUNK_SIZE, all.size()));
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(chunk)), StateNode.class);
+        }
+    }
+
+    @Override
+    public void clear() {
+        mongoTemplate.remove(new Query(), StateNode.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com.cryptowallet.blockchain.state;
+
+import com.cryptowallet.model.StateNode;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Persistent storage of the non-empty nodes of the wallet state tree, keyed by node hash, and of its markers.
+ */
+public interface StateNodeStore {
+
+    /**
+     * @return The stored nodes among the given IDs, keyed by ID. Missing IDs are left out.
+     */
+    Map<String, StateNode> findAll(Collection<String> ids);
+
+    /**
+     * Inserts or replaces the given nodes.
+     */
+    void saveAll(Collection<StateNode> nodes);
+
+    /**
+     * Removes the node with the given ID, if stored.
+     */
+    void delete(String id);
+
+    /**
+     * Removes the nodes with the given IDs, if stored.
+     */
+    void deleteAll(Collection<String> ids);
+
+    /**
+     * Removes every node.
+     */
+    void clear();
+}
@@ -0,0 +1,582 @@
+package com.cryptowallet.blockchain.state;
+
+import com.cryptowallet.crypto.Sha256;
+import com.cryptowallet.dto.TransactionDTO;
+import com.cryptowallet.event.TransactionCreatedEvent;
+import com.cryptowallet.event.WalletCreatedEvent;
+import com.cryptowallet.model.StateNode;
+import com.cryptowallet.model.WalletDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Sparse Merkle tree over every wallet balance, keyed by the SHA-256 of the wallet address and currency.
+ * Keys are 256-bit paths from the root, but a subtree holding a single balance is stored as one leaf node where
+ * its path becomes unique and hashes as that leaf, and an empty subtree hashes to zero. Each balance therefore
+ * costs about log2(n) nodes for n balances, not one per key bit. A leaf commits to its key and to the hash of the
+ * balance in plain notation, so a proof can show another leaf without revealing its balance.
+ * <p>
+ * Nodes never change once stored and are keyed by their own hash. Balance changes are only marked while
+ * transactions execute; {@link #commit()} applies every marked balance at once when a block is sealed, writes
+ * the changed paths as new nodes, moves the root and only then deletes the nodes it replaced. The resulting root
+ * is recorded in the block. Proofs walk down from the root of the last commit without waiting for a commit in
+ * progress. Recently used nodes are cached by hash.
+ * <p>
+ * The root is a snapshot of the wallet balances at the moment the block is sealed, not the state resulting from
+ * the block's transactions: transfers executed after the block's transactions were cut, and not yet in any block,
+ * are already included. It attests the balances the service held at that time and cannot be recomputed by
+ * replaying the chain.
+ */
+@Component
+@Slf4j
+public class StateTree {
+
+    /** Number of bits in a key, and so the deepest level a leaf could sit at. */
+    public static final int DEPTH = 256;
+
+    private static final int APPLY_BATCH_SIZE = 4096; // Leaves applied per store write, bounding the nodes held in memory
+    private static final int PROVE_ATTEMPTS = 3; // A commit can delete the nodes of the root a proof started from
+    private static final String ROOT_ID = "root"; // Marker holding the hash of the committed root
+    private static final String PENDING_ID = "pending"; // Marker stored while balances may be ahead of the tree
+    private static final byte LEAF_PREFIX = 0; // Keeps leaf and internal node hashes apart
+    private static final byte NODE_PREFIX = 1;
+    private static final byte[] EMPTY_HASH = new byte[Sha256.HASH_LENGTH];
+    private static final Comparator<Leaf> KEY_ORDER = (a, b) -> Arrays.compareUnsigned(a.key(), b.key());
+
+    private final StateNodeStore nodeStore;
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, StateNode> nodeCache; // LRU cache of nodes by hash, shared by commits and proofs
+    private final Set<BalanceKey> dirty = ConcurrentHashMap.newKeySet(); // Balances changed since the last commit
+    private final Object pendingLock = new Object();
+    private int changesInFlight; // Balance writes begun and not yet ended, guarded by pendingLock
+    private boolean pendingStored; // Whether the pending marker is persisted, guarded by pendingLock
+
+    private volatile byte[] root = EMPTY_HASH; // Published once every node below it is stored
+
+    public StateTree(StateNodeStore nodeStore,
+                     MongoTemplate mongoTemplate,
+                     @Value("${blockchain.state.cache-size:65536}") int cacheSize) {
+        this.nodeStore = nodeStore;
+        this.mongoTemplate = mongoTemplate;
+        this.nodeCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StateNode> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    private record BalanceKey(String address, String currency) {}
+
+    private record Leaf(byte[] key, BigDecimal balance, byte[] hash) {}
+
+    // Leaves [from, to) below the stored node with the given hash, at the given depth
+    private record PathRange(String hash, int depth, int from, int to) {}
+
+    /**
+     * Loads the persisted root and rebuilds the tree from the wallets when there is none, when it is not the root
+     * recorded by the latest block, or when the pending marker shows balances changed without being committed,
+     * for example after a crash between a balance change and a commit.
+     * @param expectedRoot The state root of the latest block, or null if it does not record one.
+     */
+    public synchronized void load(String expectedRoot) {
+        nodeCache.clear();
+        Map<String, StateNode> stored = nodeStore.findAll(List.of(ROOT_ID, PENDING_ID));
+        StateNode storedRoot = stored.get(ROOT_ID);
+        root = storedRoot == null ? EMPTY_HASH : Base64.getDecoder().decode(storedRoot.getHash());
+        if (stored.containsKey(PENDING_ID)) {
+            log.warn("Wallet balances changed without being committed to the state tree. Rebuilding it from the wallets.");
+            rebuild();
+        } else if (storedRoot == null || (expectedRoot != null && !expectedRoot.equals(root()))) {
+            log.warn("Wallet state tree does not match the latest block. Rebuilding it from the wallets.");
+            rebuild();
+        }
+        log.info("Wallet state tree loaded with root {}", root());
+    }
+
+    /**
+     * Marks the sender and receiver balances of an executed transaction for the next commit.
+     * The event is published after both balances were updated.
+     */
+    @EventListener
+    public void onTransactionCreated(TransactionCreatedEvent event) {
+        TransactionDTO transaction = event.getTransactionDTO();
+        markDirty(transaction.fromAddress(), transaction.currency());
+        markDirty(transaction.toAddress(), transaction.currency());
+    }
+
+    /**
+     * Marks the opening balances of a new wallet for the next commit.
+     */
+    @EventListener
+    public void onWalletCreated(WalletCreatedEvent event) {
+        event.getWalletDTO().balances().keySet()
+                .forEach(currency -> markDirty(event.getWalletDTO().address(), currency));
+    }
+
+    /**
+     * Records that balances are about to be written, before the write. The first change since the tree last caught
+     * up persists the pending marker, so a crash before the change is committed makes {@link #load} rebuild the
+     * tree instead of trusting it. Every call must be paired with {@link #endBalanceChange()}, after the changed
+     * balances are marked dirty or the change is abandoned.
+     */
+    public void beginBalanceChange() {
+        synchronized (pendingLock) {
+            if (!pendingStored) {
+                nodeStore.saveAll(List.of(StateNode.marker(PENDING_ID, "")));
+                pendingStored = true;
+            }
+            changesInFlight++;
+        }
+    }
+
+    /**
+     * Ends a change begun with {@link #beginBalanceChange()}.
+     */
+    public void endBalanceChange() {
+        synchronized (pendingLock) {
+            changesInFlight--;
+        }
+    }
+
+    /**
+     * Marks a balance as changed. The balance itself is read when the tree is next committed, so marks
+     * arriving out of order from concurrent transactions still commit the latest balance.
+     */
+    public void markDirty(String address, String currency) {
+        dirty.add(new BalanceKey(address, currency));
+    }
+
+    /**
+     * Applies every balance marked since the last commit, reading the current wallet balances, and persists the
+     * changed nodes. Leaves are applied in key order in batches, which bounds the nodes read and written at once.
+     * The new root is published after every batch is stored, and the nodes it replaced are deleted after that.
+     * Marks are kept for the next commit if the update fails. The pending marker is removed once no change is in
+     * flight and nothing is left to commit.
+     * @return The new root as a Base64 encoded hash.
+     */
+    public synchronized String commit() {
+        if (dirty.isEmpty()) {
+            clearPendingIfCaughtUp();
+            return root();
+        }
+        List<BalanceKey> keys = new ArrayList<>(dirty);
+        keys.forEach(dirty::remove);
+        byte[] newRoot = root;
+        Set<String> replaced = new HashSet<>();
+        try {
+            List<Leaf> leaves = readLeaves(keys);
+            leaves.sort(KEY_ORDER); // Batches then split the tree by subtree
+            for (int from = 0; from < leaves.size(); from += APPLY_BATCH_SIZE) {
+                newRoot = apply(newRoot, leaves.subList(from, Math.min(from + APPLY_BATCH_SIZE, leaves.size())), replaced);
+            }
+            saveRoot(newRoot);
+        } catch (RuntimeException e) {
+            dirty.addAll(keys); // Nodes written so far are unreachable from the stored root and dropped by the next rebuild
+            throw e;
+        }
+        root = newRoot;
+        prune(replaced);
+        log.debug("Committed {} balances to the wallet state tree. Root: {}", keys.size(), root());
+        clearPendingIfCaughtUp();
+        return root();
+    }
+
+    /**
+     * Removes the pending marker if every begun change has ended and been committed. Changes mark their balances
+     * dirty before they end, so nothing written since the marker was stored can be missed.
+     */
+    private void clearPendingIfCaughtUp() {
+        synchronized (pendingLock) {
+            if (pendingStored && changesInFlight == 0 && dirty.isEmpty()) {
+                nodeStore.delete(PENDING_ID);
+                pendingStored = false;
+            }
+        }
+    }
+
+    /**
+     * @return The root as of the last commit, as a Base64 encoded hash.
+     */
+    public String root() {
+        return Base64.getEncoder().encodeToString(root);
+    }
+
+    /**
+     * Builds the proof of a committed balance against the root of the last commit, or of its absence if the wallet
+     * has never held the currency. Walks down from that root reading the nodes on the key's path, one store query
+     * per level for nodes that are not cached, without waiting for a commit in progress. Only siblings that are not
+     * empty subtrees are included, about log2(n) hashes for n balances; a bitmap marks the depths they belong to.
+     */
+    public BalanceProof prove(String address, String currency) {
+        byte[] key = keyOf(address, currency);
+        for (int attempt = 1; ; attempt++) {
+            BalanceProof proof = prove(address, currency, key, root);
+            if (proof != null) {
+                return proof;
+            }
+            if (attempt == PROVE_ATTEMPTS) {
+                throw new IllegalStateException("The wallet state tree kept changing while building a balance proof.");
+            }
+            log.debug("A commit replaced the state tree nodes a balance proof was reading. Retrying from the new root.");
+        }
+    }
+
+    // Returns null if a node on the path was deleted by a commit since provenRoot was published
+    private BalanceProof prove(String address, String currency, byte[] key, byte[] provenRoot) {
+        byte[] bitmap = new byte[DEPTH / 8];
+        List<String> siblings = new ArrayList<>();
+        String current = isEmpty(provenRoot) ? null : Base64.getEncoder().encodeToString(provenRoot);
+        StateNode terminal = null;
+        int depth = 0;
+        while (current != null) {
+            StateNode node = fetch(List.of(current)).get(current);
+            if (node == null) {
+                return null;
+            }
+            if (node.isLeaf()) {
+                terminal = node;
+                break;
+            }
+            boolean right = bit(key, depth) == 1;
+            String sibling = right ? node.getLeft() : node.getRight();
+            depth++;
+            if (sibling != null) {
+                bitmap[(depth - 1) >> 3] |= (byte) (0x80 >>> ((depth - 1) & 7));
+                siblings.add(sibling);
+            }
+            current = right ? node.getRight() : node.getLeft();
+        }
+        Collections.reverse(siblings); // From the leaf up to the root
+
+        BigDecimal balance = null;
+        String neighborKey = null;
+        String neighborValueHash = null;
+        if (terminal != null && terminal.getKey().equals(HexFormat.of().formatHex(key))) {
+            balance = new BigDecimal(terminal.getBalance());
+        } else if (terminal != null) {
+            neighborKey = terminal.getKey();
+            neighborValueHash = Base64.getEncoder().encodeToString(valueHash(new BigDecimal(terminal.getBalance())));
+        }
+        return new BalanceProof(address, currency, balance, depth, Base64.getEncoder().encodeToString(bitmap), siblings,
+                neighborKey, neighborValueHash, Base64.getEncoder().encodeToString(provenRoot));
+    }
+
+    private List<Leaf> readLeaves(List<BalanceKey> keys) {
+        Set<String> addresses = new HashSet<>();
+        keys.forEach(key -> addresses.add(key.address()));
+        Query query = new Query(Criteria.where("address").in(addresses));
+        query.fields().include("address").include("balances");
+        Map<String, Map<String, BigDecimal>> balancesByAddress = new HashMap<>();
+        for (WalletDocument wallet : mongoTemplate.find(query, WalletDocument.class)) {
+            balancesByAddress.put(wallet.getAddress(), wallet.getBalances());
+        }
+
+        List<Leaf> leaves = new ArrayList<>(keys.size());
+        for (BalanceKey key : keys) {
+            BigDecimal balance = balancesByAddress.getOrDefault(key.address(), Map.of()).get(key.currency());
+            if (balance != null) { // Balances are never removed, so a missing one was never committed either
+                leaves.add(leaf(key.address(), key.currency(), balance));
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * Recomputes the tree from every wallet balance in batches, starting from an empty store.
+     * Nodes replaced by a later batch are deleted right away, as no proof can be reading the tree being rebuilt.
+     */
+    private void rebuild() {
+        nodeStore.clear(); // Also removes the pending marker, as the rebuilt tree reads every balance
+        nodeCache.clear();
+        root = EMPTY_HASH;
+        byte[] rebuilt = EMPTY_HASH;
+        Query query = new Query();
+        query.fields().include("address").include("balances");
+        List<Leaf> batch = new ArrayList<>(APPLY_BATCH_SIZE);
+        long count = 0;
+        try (Stream<WalletDocument> wallets = mongoTemplate.stream(query, WalletDocument.class)) {
+            for (WalletDocument wallet : (Iterable<WalletDocument>) wallets::iterator) {
+                for (Map.Entry<String, BigDecimal> balance : wallet.getBalances().entrySet()) {
+                    batch.add(leaf(wallet.getAddress(), balance.getKey(), balance.getValue()));
+                    if (batch.size() == APPLY_BATCH_SIZE) {
+                        rebuilt = applyAndPrune(rebuilt, batch);
+                        count += batch.size();
+                        batch = new ArrayList<>(APPLY_BATCH_SIZE);
+                    }
+                }
+            }
+        }
+        rebuilt = applyAndPrune(rebuilt, batch);
+        count += batch.size();
+        saveRoot(rebuilt);
+        root = rebuilt;
+        log.info("Rebuilt the wallet state tree from {} balances.", count);
+    }
+
+    private byte[] applyAndPrune(byte[] fromRoot, List<Leaf> leaves) {
+        Set<String> replaced = new HashSet<>();
+        byte[] newRoot = apply(fromRoot, leaves, replaced);
+        prune(replaced);
+        return newRoot;
+    }
+
+    /**
+     * Writes the given leaves into the tree below fromRoot and returns the new root. The leaves are sorted by key,
+     * so the leaves below any node form a contiguous range and every changed node is hashed and written exactly once.
+     * @param replaced Collects the stored nodes that are no longer part of the tree; nodes written again are removed.
+     */
+    private byte[] apply(byte[] fromRoot, List<Leaf> leaves, Set<String> replaced) {
+        if (leaves.isEmpty()) {
+            return fromRoot;
+        }
+        List<Leaf> sorted = new ArrayList<>(leaves);
+        sorted.sort(KEY_ORDER);
+
+        Map<String, StateNode> paths = readPaths(fromRoot, sorted);
+        Map<String, StateNode> written = new LinkedHashMap<>();
+        String from = isEmpty(fromRoot) ? null : Base64.getEncoder().encodeToString(fromRoot);
+        byte[] newRoot = update(0, from, sorted, 0, sorted.size(), paths, written);
+        nodeStore.saveAll(written.values());
+
+        written.values().forEach(node -> nodeCache.put(node.getId(), node));
+        replaced.addAll(paths.keySet());
+        replaced.removeAll(written.keySet());
+        return newRoot;
+    }
+
+    /**
+     * Reads the nodes on the paths of the given sorted leaves, level by level with one store query per level for
+     * the nodes that are not cached. Only descends into children with leaves below them; the hashes of the other
+     * children are kept in their parents.
+     */
+    private Map<String, StateNode> readPaths(byte[] fromRoot, List<Leaf> leaves) {
+        Map<String, StateNode> paths = new HashMap<>();
+        if (isEmpty(fromRoot)) {
+            return paths;
+        }
+        List<PathRange> level = List.of(new PathRange(Base64.getEncoder().encodeToString(fromRoot), 0, 0, leaves.size()));
+        while (!level.isEmpty()) {
+            Map<String, StateNode> found = fetch(level.stream().map(PathRange::hash).toList());
+            List<PathRange> next = new ArrayList<>();
+            for (PathRange range : level) {
+                StateNode node = found.get(range.hash());
+                if (node == null) {
+                    throw new IllegalStateException("Wallet state tree node " + range.hash() + " is missing from the store.");
+                }
+                paths.put(range.hash(), node);
+                if (node.isLeaf()) {
+                    continue;
+                }
+                int split = split(leaves, range.from(), range.to(), range.depth());
+                if (split > range.from() && node.getLeft() != null) {
+                    next.add(new PathRange(node.getLeft(), range.depth() + 1, range.from(), split));
+                }
+                if (split < range.to() && node.getRight() != null) {
+                    next.add(new PathRange(node.getRight(), range.depth() + 1, split, range.to()));
+                }
+            }
+            level = next;
+        }
+        return paths;
+    }
+
+    /**
+     * Computes the hash of the subtree at the given depth after writing leaves [from, to), which share its path.
+     * @param existing The hash of the stored subtree at this position, or null if it is empty.
+     */
+    private byte[] update(int depth, String existing, List<Leaf> leaves, int from, int to,
+                          Map<String, StateNode> paths, Map<String, StateNode> written) {
+        if (existing == null) {
+            return build(depth, leaves.subList(from, to), written);
+        }
+        StateNode node = paths.get(existing);
+        if (node.isLeaf()) {
+            // The stored leaf moves down next to the new ones, unless one of them replaces its balance
+            List<Leaf> merged = new ArrayList<>(leaves.subList(from, to));
+            byte[] storedKey = HexFormat.of().parseHex(node.getKey());
+            if (merged.stream().noneMatch(leaf -> Arrays.equals(leaf.key(), storedKey))) {
+                BigDecimal storedBalance = new BigDecimal(node.getBalance());
+                merged.add(new Leaf(storedKey, storedBalance, leafHash(storedKey, valueHash(storedBalance))));
+                merged.sort(KEY_ORDER);
+            }
+            return build(depth, merged, written);
+        }
+        int split = split(leaves, from, to, depth);
+        byte[] left = split > from
+                ? update(depth + 1, node.getLeft(), leaves, from, split, paths, written)
+                : decodeOrEmpty(node.getLeft());
+        byte[] right = split < to
+                ? update(depth + 1, node.getRight(), leaves, split, to, paths, written)
+                : decodeOrEmpty(node.getRight());
+        return writeInternal(left, right, written);
+    }
+
+    /**
+     * Computes the hash of a new subtree at the given depth holding exactly the given sorted leaves.
+     */
+    private byte[] build(int depth, List<Leaf> leaves, Map<String, StateNode> written) {
+        if (leaves.size() == 1) {
+            Leaf leaf = leaves.get(0);
+            String hash = Base64.getEncoder().encodeToString(leaf.hash());
+            written.put(hash, StateNode.leaf(hash, HexFormat.of().formatHex(leaf.key()), leaf.balance().toPlainString()));
+            return leaf.hash();
+        }
+        int split = split(leaves, 0, leaves.size(), depth);
+        byte[] left = split > 0 ? build(depth + 1, leaves.subList(0, split), written) : EMPTY_HASH;
+        byte[] right = split < leaves.size() ? build(depth + 1, leaves.subList(split, leaves.size()), written) : EMPTY_HASH;
+        return writeInternal(left, right, written);
+    }
+
+    private static byte[] writeInternal(byte[] left, byte[] right, Map<String, StateNode> written) {
+        byte[] hash = hashNode(left, right);
+        String id = Base64.getEncoder().encodeToString(hash);
+        written.put(id, StateNode.internal(id,
+                isEmpty(left) ? null : Base64.getEncoder().encodeToString(left),
+                isEmpty(right) ? null : Base64.getEncoder().encodeToString(right)));
+        return hash;
+    }
+
+    /**
+     * @return The index of the first of the sorted leaves [from, to) whose key has bit depth set.
+     */
+    private static int split(List<Leaf> leaves, int from, int to, int depth) {
+        int split = from;
+        while (split < to && bit(leaves.get(split).key(), depth) == 0) {
+            split++;
+        }
+        return split;
+    }
+
+    private void saveRoot(byte[] newRoot) {
+        nodeStore.saveAll(List.of(StateNode.marker(ROOT_ID, Base64.getEncoder().encodeToString(newRoot))));
+    }
+
+    /**
+     * Deletes replaced nodes once the root no longer reaches them. A failure only leaves unreachable nodes
+     * behind, which the next rebuild drops, so it does not fail the commit.
+     */
+    private void prune(Set<String> replaced) {
+        if (replaced.isEmpty()) {
+            return;
+        }
+        replaced.forEach(nodeCache::remove);
+        try {
+            nodeStore.deleteAll(replaced);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete {} replaced wallet state tree nodes: {}", replaced.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves nodes by hash from the cache, reading the misses from the store in one call.
+     * Nodes are immutable, so cached entries never go stale. Hashes not found are left out.
+     */
+    private Map<String, StateNode> fetch(Collection<String> hashes) {
+        Map<String, StateNode> nodes = new HashMap<>(hashes.size() * 2);
+        List<String> misses = new ArrayList<>();
+        for (String hash : hashes) {
+            StateNode cached = nodeCache.get(hash);
+            if (cached != null) {
+                nodes.put(hash, cached);
+            } else {
+                misses.add(hash);
+            }
+        }
+        if (!misses.isEmpty()) {
+            nodeStore.findAll(misses).forEach((hash, node) -> {
+                nodes.put(hash, node);
+                nodeCache.put(hash, node);
+            });
+        }
+        return nodes;
+    }
+
+    private static Leaf leaf(String address, String currency, BigDecimal balance) {
+        byte[] key = keyOf(address, currency);
+        return new Leaf(key, balance, leafHash(key, valueHash(balance)));
+    }
+
+    private static boolean isEmpty(byte[] hash) {
+        return Arrays.equals(hash, EMPTY_HASH);
+    }
+
+    private static byte[] decodeOrEmpty(String hash) {
+        return hash == null ? EMPTY_HASH : Base64.getDecoder().decode(hash);
+    }
+
+    /**
+     * @return The 256-bit key of a balance: SHA-256 of the UTF-8 address, a zero byte and the UTF-8 currency.
+     */
+    static byte[] keyOf(String address, String currency) {
+        MessageDigest digest = Sha256.digest();
+        digest.update(address.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(currency.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * @return SHA-256 of the balance in plain notation without trailing zeros, so 10 and 10.00 commit alike.
+     */
+    static byte[] valueHash(BigDecimal balance) {
+        return Sha256.hash(balance.stripTrailingZeros().toPlainString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return H(0x00 | key | value hash), the hash of a leaf and of any subtree holding only that leaf.
+     */
+    static byte[] leafHash(byte[] key, byte[] valueHash) {
+        MessageDigest digest = Sha256.digest();
+        digest.update(LEAF_PREFIX);
+        digest.update(key);
+        digest.update(valueHash);
+        return digest.digest();
+    }
+
+    static byte[] hashNode(byte[] left, byte[] right) {
+        MessageDigest digest = Sha256.digest();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    /**
+     * @return The hash of an empty subtree at any depth: all zeros.
+     */
+    static byte[] emptyHash() {
+        return EMPTY_HASH.clone();
+    }
+
+    /**
+     * @return Bit i of the key, counting from the most significant bit; it picks the child at depth i.
+     */
+    static int bit(byte[] key, int index) {
+        return (key[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+}
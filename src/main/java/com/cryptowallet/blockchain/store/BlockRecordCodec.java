@@ -0,0 +1,185 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.model.Block;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary record format of the block log: a fixed-size header followed by a length-prefixed body.
+ * <pre>
+ * offset  size  field
+ *      0     4  magic
+ *      4     4  body length
+ *      8     4  CRC32 of bytes [12, 40 + body length)
+ *     12     8  height
+ *     20     8  timestamp epoch seconds
+ *     28     4  timestamp nanoseconds
+ *     32     4  hash version (0 if unset)
+ *     36     4  transaction count
+ *     40     -  body: header string count, header strings, then transaction IDs
+ * </pre>
+ * Strings are written as a 4-byte length (-1 for null) followed by UTF-8 bytes. Header strings come
+ * before the transaction IDs, so a header scan can stop early and skip the rest of the body.
+ * New header fields are appended to the header strings, and readers ignore strings they do not know.
+ */
+final class BlockRecordCodec {
+
+    static final int MAGIC = 0x424C4B31; // "BLK1"
+    static final int HEADER_SIZE = 40;
+
+    private static final int CRC_FROM = 12;
+
+    private BlockRecordCodec() {}
+
+    /**
+     * @return The total size in bytes of the encoded record.
+     */
+    static int encodedSize(Block block) {
+        int size = HEADER_SIZE + 4;
+        for (String value : headerStrings(block)) {
+            size += stringSize(value);
+        }
+        for (String id : block.getTransactionsIds()) {
+            size += stringSize(id);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the record of a block at the buffer's position and advances the position past it.
+     */
+    static void encode(Block block, ByteBuffer target) {
+        int start = target.position();
+        List<String> headerStrings = headerStrings(block);
+
+        target.position(start + HEADER_SIZE);
+        target.putInt(headerStrings.size());
+        for (String value : headerStrings) {
+            putString(target, value);
+        }
+        for (String id : block.getTransactionsIds()) {
+            putString(target, id);
+        }
+        int end = target.position();
+
+        target.putInt(start, MAGIC);
+        target.putInt(start + 4, end - start - HEADER_SIZE);
+        target.putLong(start + 12, block.getHeight());
+        target.putLong(start + 20, block.getTimestamp().getEpochSecond());
+        target.putInt(start + 28, block.getTimestamp().getNano());
+        target.putInt(start + 32, block.getHashVersion() == null ? 0 : block.getHashVersion());
+        target.putInt(start + 36, block.getTransactionsIds().size());
+        target.putInt(start + 8, crc(target, start, end));
+    }
+
+    /**
+     * Checks whether a complete, uncorrupted record starts at the given offset.
+     * @return The total size of the record, or -1 if there is no valid record at the offset.
+     */
+    static int validRecordSize(ByteBuffer source, int offset) {
+        if (offset + HEADER_SIZE > source.limit() || source.getInt(offset) != MAGIC) {
+            return -1;
+        }
+        int bodyLength = source.getInt(offset + 4);
+        if (bodyLength < 4 || (long) offset + HEADER_SIZE + bodyLength > source.limit()) {
+            return -1;
+        }
+        int end = offset + HEADER_SIZE + bodyLength;
+        return crc(source, offset, end) == source.getInt(offset + 8) ? HEADER_SIZE + bodyLength : -1;
+    }
+
+    static long height(ByteBuffer source, int offset) {
+        return source.getLong(offset + 12);
+    }
+
+    /**
+     * Decodes the record at the given offset.
+     * @param withTransactions Whether to decode the transaction ID list, or leave it null for a header scan.
+     */
+    static Block decode(ByteBuffer source, int offset, boolean withTransactions) {
+        ByteBuffer record = source.duplicate();
+        record.position(offset + HEADER_SIZE);
+
+        Block block = new Block();
+        block.setHeight(source.getLong(offset + 12));
+        block.setTimestamp(Instant.ofEpochSecond(source.getLong(offset + 20), source.getInt(offset + 28)));
+        int hashVersion = source.getInt(offset + 32);
+        block.setHashVersion(hashVersion == 0 ? null : hashVersion);
+
+        int headerStringCount = record.getInt();
+        String[] headerStrings = new String[Math.max(headerStringCount, 8)];
+        for (int i = 0; i < headerStringCount; i++) {
+            headerStrings[i] = getString(record);
+        }
+        block.setId(headerStrings[0]);
+        block.setPreviousBlockHash(headerStrings[1]);
+        block.setMerkleRoot(headerStrings[2]);
+        block.setCurrentBlockHash(headerStrings[3]);
+        block.setTransactionsRoot(headerStrings[4]);
+        block.setMerkleFormat(headerStrings[5] == null ? null : Integer.valueOf(headerStrings[5]));
+        block.setStateRoot(headerStrings[6]);
+        block.setBloomFilter(headerStrings[7]);
+
+        if (withTransactions) {
+            int transactionCount = source.getInt(offset + 36);
+            List<String> transactionIds = new ArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; i++) {
+                transactionIds.add(getString(record));
+            }
+            block.setTransactionsIds(transactionIds);
+        } else {
+            block.setTransactionsIds(null);
+        }
+        return block;
+    }
+
+    private static List<String> headerStrings(Block block) {
+        List<String> values = new ArrayList<>(8);
+        values.add(block.getId());
+        values.add(block.getPreviousBlockHash());
+        values.add(block.getMerkleRoot());
+        values.add(block.getCurrentBlockHash());
+        values.add(block.getTransactionsRoot());
+        values.add(block.getMerkleFormat() == null ? null : block.getMerkleFormat().toString());
+        values.add(block.getStateRoot());
+        values.add(block.getBloomFilter());
+        return values;
+    }
+
+    private static int crc(ByteBuffer source, int start, int end) {
+        CRC32 crc = new CRC32();
+        ByteBuffer region = source.duplicate();
+        region.limit(end).position(start + CRC_FROM);
+        crc.update(region);
+        return (int) crc.getValue();
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+        if (value == null) {
+            target.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        target.putInt(bytes.length);
+        target.put(bytes);
+    }
+
+    private static String getString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.model.Block;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Persistent storage for the blocks of the chain, addressed by height.
+ * Blocks are only ever appended at the tip, by the single block writer.
+ */
+public interface BlockStore {
+
+    /**
+     * Persists a block at the tip of the chain.
+     * @param block The block to store; its height must be the current number of stored blocks.
+     * @return The stored block, with any store-assigned ID set.
+     */
+    Block append(Block block);
+
+    /**
+     * @param height The height of the block.
+     * @return The full block at the given height, or empty if no such block is stored.
+     */
+    Optional<Block> findByHeight(long height);
+
+    /**
+     * @return The number of stored blocks, which is the height the next block is appended at.
+     */
+    long size();
+
+    /**
+     * Reads the full blocks of a contiguous height range.
+     * @param fromHeight First height to read (inclusive).
+     * @param toHeight   Last height to read (exclusive).
+     * @return The blocks in height order.
+     * @throws IllegalStateException if a block of the range is missing.
+     */
+    List<Block> read(long fromHeight, long toHeight);
+
+    /**
+     * Scans every stored block in height order, without loading transaction ID lists.
+     * The blocks passed to the consumer have a null transactionsIds list.
+     * @param consumer Receives each block header in height order.
+     */
+    default void forEachHeader(Consumer<Block> consumer) {
+        forEachHeader(0, consumer);
+    }
+
+    /**
+     * Scans the stored blocks from the given height up to the tip, in height order, without loading
+     * transaction ID lists. Used to catch up on the blocks appended after a chain snapshot.
+     * @param fromHeight First height to scan (inclusive).
+     * @param consumer   Receives each block header in height order.
+     */
+    void forEachHeader(long fromHeight, Consumer<Block> consumer);
+}
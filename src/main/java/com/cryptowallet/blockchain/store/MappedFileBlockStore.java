@@ -0,0 +1,262 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.model.Block;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * BlockStore backed by an append-only log of memory-mapped segment files, for running the chain without a database.
+ * <p>
+ * Blocks are written with {@link BlockRecordCodec} into fixed-size segment files ({@code blocks-00000.log}, ...).
+ * An index file ({@code blocks.idx}) holds one fixed-size entry per height with the segment number and offset
+ * of the block's record. A record is forced to disk before its index entry is written, so on start-up the tail
+ * past the last index entry is scanned: complete records (checked by magic, CRC and height) are re-indexed,
+ * and a torn record left by a crash is wiped.
+ */
+@Slf4j
+public class MappedFileBlockStore implements BlockStore, Closeable {
+
+    private static final int INDEX_ENTRY_SIZE = 12; // int segment + long offset
+    private static final int INDEX_SCAN_ENTRIES = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel indexChannel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private volatile long blockCount;
+    private int writeSegment;
+    private int writePosition;
+
+    public MappedFileBlockStore(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < BlockRecordCodec.HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        this.indexChannel = FileChannel.open(directory.resolve("blocks.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    @Override
+    public synchronized Block append(Block block) {
+        if (block.getHeight() == null || block.getHeight() != blockCount) {
+            throw new IllegalArgumentException("Block height " + block.getHeight() + " does not extend a log of " + blockCount + " blocks");
+        }
+        if (block.getId() == null) {
+            block.setId(String.valueOf(block.getHeight()));
+        }
+        int size = BlockRecordCodec.encodedSize(block);
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Block of " + size + " bytes does not fit in a segment of " + segmentSize + " bytes");
+        }
+
+        try {
+            if (writePosition + size > segmentSize) {
+                writeSegment++;
+                writePosition = 0;
+                segments.add(mapSegment(writeSegment));
+            }
+            MappedByteBuffer segment = segments.get(writeSegment);
+            ByteBuffer target = segment.duplicate();
+            target.position(writePosition);
+            BlockRecordCodec.encode(block, target);
+            segment.force(writePosition, size); // The record is durable before it is indexed
+
+            writeIndexEntry(blockCount, writeSegment, writePosition);
+            indexChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append block at height " + block.getHeight(), e);
+        }
+
+        writePosition += size;
+        blockCount++;
+        return block;
+    }
+
+    @Override
+    public Optional<Block> findByHeight(long height) {
+        if (height < 0 || height >= blockCount) {
+            return Optional.empty();
+        }
+        ByteBuffer entry = readIndexEntries(height, 1);
+        return Optional.of(decodeAt(entry.getInt(0), entry.getLong(4), true));
+    }
+
+    @Override
+    public List<Block> read(long fromHeight, long toHeight) {
+        if (fromHeight < 0 || toHeight > blockCount) {
+            throw new IllegalStateException("Heights [" + fromHeight + ", " + toHeight + ") are outside a log of " + blockCount + " blocks");
+        }
+        List<Block> blocks = new ArrayList<>((int) (toHeight - fromHeight));
+        scan(fromHeight, toHeight, true, blocks::add);
+        return blocks;
+    }
+
+    @Override
+    public void forEachHeader(long fromHeight, Consumer<Block> consumer) {
+        scan(fromHeight, blockCount, false, consumer);
+    }
+
+    @Override
+    public long size() {
+        return blockCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        indexChannel.force(true);
+        indexChannel.close();
+    }
+
+    /**
+     * Decodes blocks in height order, reading index entries in large sequential chunks.
+     */
+    private void scan(long fromHeight, long toHeight, boolean withTransactions, Consumer<Block> consumer) {
+        for (long height = fromHeight; height < toHeight; height += INDEX_SCAN_ENTRIES) {
+            int count = (int) Math.min(INDEX_SCAN_ENTRIES, toHeight - height);
+            ByteBuffer entries = readIndexEntries(height, count);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(decodeAt(entries.getInt(i * INDEX_ENTRY_SIZE), entries.getLong(i * INDEX_ENTRY_SIZE + 4), withTransactions));
+            }
+        }
+    }
+
+    private Block decodeAt(int segment, long offset, boolean withTransactions) {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = segments.get(segment);
+        }
+        return BlockRecordCodec.decode(buffer, (int) offset, withTransactions);
+    }
+
+    private ByteBuffer readIndexEntries(long height, int count) {
+        ByteBuffer entries = ByteBuffer.allocate(count * INDEX_ENTRY_SIZE);
+        try {
+            long position = height * INDEX_ENTRY_SIZE;
+            while (entries.hasRemaining()) {
+                if (indexChannel.read(entries, position + entries.position()) < 0) {
+                    throw new IllegalStateException("Block index ends before height " + (height + count - 1));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read block index", e);
+        }
+        return entries.flip();
+    }
+
+    private void writeIndexEntry(long height, int segment, long offset) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE).putInt(segment).putLong(offset).flip();
+        long position = height * INDEX_ENTRY_SIZE;
+        while (entry.hasRemaining()) {
+            position += indexChannel.write(entry, position);
+        }
+    }
+
+    private MappedByteBuffer mapSegment(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize); // The mapping outlives the channel
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("blocks-%05d.log", segment));
+    }
+
+    /**
+     * Restores the write position from the index and re-indexes or wipes whatever was written after it.
+     */
+    private void recover() throws IOException {
+        long indexSize = indexChannel.size();
+        long entries = indexSize / INDEX_ENTRY_SIZE;
+        if (indexSize % INDEX_ENTRY_SIZE != 0) {
+            log.warn("Block index ends with a partial entry. Truncating it.");
+            indexChannel.truncate(entries * INDEX_ENTRY_SIZE);
+        }
+
+        for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+            segments.add(mapSegment(segment));
+        }
+        if (segments.isEmpty()) {
+            segments.add(mapSegment(0));
+        }
+
+        // Position after the last indexed record that is intact
+        blockCount = entries;
+        writeSegment = 0;
+        writePosition = 0;
+        while (blockCount > 0) {
+            ByteBuffer last = readIndexEntries(blockCount - 1, 1);
+            int segment = last.getInt(0);
+            int offset = (int) last.getLong(4);
+            int size = segment < segments.size() ? BlockRecordCodec.validRecordSize(segments.get(segment), offset) : -1;
+            if (size > 0) {
+                writeSegment = segment;
+                writePosition = offset + size;
+                break;
+            }
+            log.warn("Indexed block at height {} is not intact. Dropping it from the index.", blockCount - 1);
+            blockCount--;
+        }
+        indexChannel.truncate(blockCount * INDEX_ENTRY_SIZE);
+
+        // Re-index complete records written after the last index entry
+        long recovered = 0;
+        while (true) {
+            int size = BlockRecordCodec.validRecordSize(segments.get(writeSegment), writePosition);
+            if (size > 0 && BlockRecordCodec.height(segments.get(writeSegment), writePosition) == blockCount) {
+                writeIndexEntry(blockCount++, writeSegment, writePosition);
+                writePosition += size;
+                recovered++;
+            } else if (writeSegment + 1 < segments.size()
+                    && BlockRecordCodec.validRecordSize(segments.get(writeSegment + 1), 0) > 0
+                    && BlockRecordCodec.height(segments.get(writeSegment + 1), 0) == blockCount) {
+                writeSegment++;
+                writePosition = 0;
+            } else {
+                break;
+            }
+        }
+
+        wipeTail();
+        indexChannel.force(false);
+        log.info("Opened block log at {} with {} blocks ({} recovered from the tail).", directory, blockCount, recovered);
+    }
+
+    /**
+     * Clears any torn record after the write position and drops segments past the current one.
+     */
+    private void wipeTail() throws IOException {
+        MappedByteBuffer segment = segments.get(writeSegment);
+        if (writePosition + 4 <= segmentSize && segment.getInt(writePosition) != 0) {
+            log.warn("Found a torn record at segment {} offset {}. Wiping the tail.", writeSegment, writePosition);
+            for (int i = writePosition; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        while (segments.size() > writeSegment + 1) {
+            segments.remove(segments.size() - 1);
+            Files.deleteIfExists(segmentPath(segments.size()));
+        }
+    }
+}
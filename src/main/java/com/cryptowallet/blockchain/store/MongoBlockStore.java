@@ -0,0 +1,158 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.model.Block;
+import com.cryptowallet.repository.BlockRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * BlockStore backed by the MongoDB "blocks" collection.
+ */
+@Slf4j
+public class MongoBlockStore implements BlockStore {
+
+    private final BlockRepository blockRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoBlockStore(BlockRepository blockRepository, MongoTemplate mongoTemplate) {
+        this.blockRepository = blockRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Creates the unique, sparse height index that height lookups, the height order of the chain and
+     * {@link #assignMissingHeights()} rely on. Index auto-creation is off, so the mapping annotation alone does
+     * not create it. Fails start-up if it cannot be created, for example when two blocks share a height.
+     */
+    @PostConstruct
+    public void ensureHeightIndex() {
+        try {
+            mongoTemplate.indexOps(Block.class).ensureIndex(new Index().on("height", Sort.Direction.ASC).unique().sparse());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not ensure the unique block height index.", e);
+        }
+    }
+
+    @Override
+    public Block append(Block block) {
+        return blockRepository.save(block); // Save to DB to get its ID
+    }
+
+    @Override
+    public Optional<Block> findByHeight(long height) {
+        return blockRepository.findByHeight(height);
+    }
+
+    @Override
+    public long size() {
+        Query query = new Query(Criteria.where("height").exists(true)).with(Sort.by(Sort.Direction.DESC, "height")).limit(1);
+        query.fields().include("height");
+        Block tip = mongoTemplate.findOne(query, Block.class);
+        return tip == null ? 0 : tip.getHeight() + 1;
+    }
+
+    @Override
+    public List<Block> read(long fromHeight, long toHeight) {
+        Query query = new Query(Criteria.where("height").gte(fromHeight).lt(toHeight))
+                .with(Sort.by(Sort.Direction.ASC, "height"));
+        List<Block> blocks = mongoTemplate.find(query, Block.class);
+        if (blocks.size() != toHeight - fromHeight) {
+            throw new IllegalStateException("Expected " + (toHeight - fromHeight) + " blocks in heights ["
+                    + fromHeight + ", " + toHeight + ") but found " + blocks.size());
+        }
+        return blocks;
+    }
+
+    /**
+     * Streams headers from a cursor sorted by height, after assigning heights to any legacy blocks.
+     */
+    @Override
+    public void forEachHeader(long fromHeight, Consumer<Block> consumer) {
+        assignMissingHeights();
+
+        Query headerQuery = new Query(Criteria.where("height").exists(true).gte(fromHeight)).with(Sort.by(Sort.Direction.ASC, "height"));
+        headerQuery.fields().exclude("transactionsIds");
+        try (Stream<Block> blocks = mongoTemplate.stream(headerQuery, Block.class)) {
+            blocks.forEach(consumer);
+        }
+    }
+
+    /**
+     * Assigns heights to blocks stored before the height field existed.
+     * The blocks without a height are reassembled by following previousBlockHash links from the one whose
+     * predecessor is not among them, which must follow the highest numbered block if there is one, and are
+     * numbered on from that block's height in one ordered bulk update. Blocks that already have a height keep it.
+     * Refuses to number anything if the blocks without a height fork, have more than one start, or do not
+     * all link into one chain, since any choice would be a guess the unique height index then makes permanent.
+     */
+    private void assignMissingHeights() {
+        Query missingQuery = new Query(Criteria.where("height").exists(false));
+        if (!mongoTemplate.exists(missingQuery, Block.class)) {
+            return;
+        }
+        log.info("Found blocks without a height. Reassembling chain by hash links to assign heights...");
+
+        Query tipQuery = new Query(Criteria.where("height").exists(true)).with(Sort.by(Sort.Direction.DESC, "height")).limit(1);
+        tipQuery.fields().include("height", "currentBlockHash");
+        Block tip = mongoTemplate.findOne(tipQuery, Block.class);
+
+        missingQuery.fields().include("previousBlockHash", "currentBlockHash");
+        Map<String, Block> byPreviousHash = new HashMap<>();
+        Set<String> knownHashes = new HashSet<>();
+        try (Stream<Block> blocks = mongoTemplate.stream(missingQuery, Block.class)) {
+            blocks.forEach(block -> {
+                Block sibling = byPreviousHash.put(block.getPreviousBlockHash(), block);
+                if (sibling != null) {
+                    throw new IllegalStateException("Blocks " + sibling.getId() + " and " + block.getId() + " both follow "
+                            + block.getPreviousBlockHash() + "; cannot assign heights to a forked chain.");
+                }
+                knownHashes.add(block.getCurrentBlockHash());
+            });
+        }
+
+        List<Block> roots = byPreviousHash.values().stream()
+                .filter(block -> !knownHashes.contains(block.getPreviousBlockHash()))
+                .toList();
+        if (roots.size() != 1) {
+            throw new IllegalStateException("Expected one block without a height to start from but found " + roots.size()
+                    + "; cannot assign heights.");
+        }
+        Block current = roots.get(0);
+        if (tip != null && !tip.getCurrentBlockHash().equals(current.getPreviousBlockHash())) {
+            throw new IllegalStateException("Block " + current.getId() + " does not follow the block at height "
+                    + tip.getHeight() + "; cannot assign heights.");
+        }
+
+        // Ordered, and only matching blocks still without a height, so a failed run can simply be retried
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Block.class);
+        long firstHeight = tip == null ? 0 : tip.getHeight() + 1;
+        long height = firstHeight;
+        while (current != null) {
+            bulk.updateOne(new Query(Criteria.where("_id").is(current.getId()).and("height").exists(false)),
+                    new Update().set("height", height++));
+            current = byPreviousHash.get(current.getCurrentBlockHash());
+        }
+        if (height - firstHeight != knownHashes.size()) {
+            throw new IllegalStateException("Only " + (height - firstHeight) + " of " + knownHashes.size()
+                    + " blocks without a height link into one chain; cannot assign heights.");
+        }
+        bulk.execute();
+        log.info("Assigned heights {} to {}.", firstHeight, height - 1);
+    }
+}
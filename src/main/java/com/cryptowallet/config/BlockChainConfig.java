@@ -1,22 +1,77 @@
 package com.cryptowallet.config;
 
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.blockchain.store.MappedFileBlockStore;
+import com.cryptowallet.blockchain.store.MongoBlockStore;
+import com.cryptowallet.merkle.ByteArrayMerkleEngine;
+import com.cryptowallet.merkle.CompositeMerkleEngine;
+import com.cryptowallet.merkle.MerkleEngine;
+import com.cryptowallet.merkle.MerkleEngines;
+import com.cryptowallet.merkle.MerkleFormat;
 import com.cryptowallet.merkle.MerkleTreeBuilder;
+import com.cryptowallet.repository.BlockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Spring Configuration class for blockchain-related components.
- * This class explicitly defines beans for components like MerkleTreeBuilder.
+ * This class explicitly defines beans for components like the Merkle engines and the BlockStore.
  */
 @Configuration
 public class BlockChainConfig {
 
     /**
-     * Defines a MerkleTreeBuilder bean.
-     * @return A new instance of MerkleTreeBuilder.
+     * Defines the pool hashing the subtrees of large Merkle trees in parallel.
+     * @return A ForkJoinPool sized to the configured parallelism, or to the number of cores if it is 0.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool merkleHashingPool(@Value("${blockchain.merkle.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Defines the Merkle engines for every supported root format.
+     * New blocks use the configured format; existing blocks are always checked in the format they recorded.
+     * Blocks with at least the parallel threshold of transactions are hashed on the Merkle hashing pool.
+     * @return The Merkle engines, with COMPOSITE (MerkleNode tree) and BINARY (flat byte array) implementations.
+     */
+    @Bean
+    public MerkleEngines merkleEngines(@Value("${blockchain.merkle.format:binary}") String newBlocksFormat,
+                                       @Value("${blockchain.merkle.parallel-threshold:16384}") int parallelThreshold,
+                                       ForkJoinPool merkleHashingPool) {
+        List<MerkleEngine> engines = List.of(
+                new CompositeMerkleEngine(new MerkleTreeBuilder(merkleHashingPool, parallelThreshold)),
+                new ByteArrayMerkleEngine(merkleHashingPool, parallelThreshold));
+        return new MerkleEngines(engines, MerkleFormat.valueOf(newBlocksFormat.toUpperCase()));
+    }
+
+    /**
+     * Defines the default BlockStore, backed by the MongoDB "blocks" collection.
+     * @return A BlockStore using the BlockRepository.
      */
     @Bean
-    public MerkleTreeBuilder merkleTreeBuilder() {
-        return new MerkleTreeBuilder();
+    @ConditionalOnProperty(name = "blockchain.store.type", havingValue = "mongo", matchIfMissing = true)
+    public BlockStore mongoBlockStore(BlockRepository blockRepository, MongoTemplate mongoTemplate) {
+        return new MongoBlockStore(blockRepository, mongoTemplate);
+    }
+
+    /**
+     * Defines a BlockStore backed by a memory-mapped, append-only segment log on local disk.
+     * Selected with blockchain.store.type=file.
+     * @return A BlockStore writing to the configured directory.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "blockchain.store.type", havingValue = "file")
+    public BlockStore fileBlockStore(@Value("${blockchain.store.file.directory:./data/blocks}") String directory,
+                                     @Value("${blockchain.store.file.segment-size:67108864}") int segmentSize) throws IOException {
+        return new MappedFileBlockStore(Path.of(directory), segmentSize);
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,24 @@
 package com.cryptowallet.controller;
 
+import com.cryptowallet.blockchain.BlockChain;
+import com.cryptowallet.blockchain.ChainSnapshot;
+import com.cryptowallet.blockchain.ChainSnapshotService;
+import com.cryptowallet.blockchain.ChainValidationReport;
+import com.cryptowallet.blockchain.bloom.TransactionLocator;
+import com.cryptowallet.blockchain.mempool.BlockSealer;
+import com.cryptowallet.dto.BlockSealingMetricsDTO;
+import com.cryptowallet.dto.BalanceBatchMetricsDTO;
+import com.cryptowallet.dto.BloomFilterMetricsDTO;
+import com.cryptowallet.dto.ExecutionLaneMetricsDTO;
 import com.cryptowallet.dto.UserDTO;
+import com.cryptowallet.service.BalanceUpdateBatcher;
+import com.cryptowallet.service.TransactionLaneExecutor;
 import com.cryptowallet.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,9 +27,23 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminController {
 
     private final UserService userService;
+    private final BlockChain blockChain;
+    private final ChainSnapshotService snapshotService;
+    private final TransactionLocator transactionLocator;
+    private final BlockSealer blockSealer;
+    private final TransactionLaneExecutor laneExecutor;
+    private final BalanceUpdateBatcher balanceUpdateBatcher;
 
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService, BlockChain blockChain, ChainSnapshotService snapshotService,
+                           TransactionLocator transactionLocator, BlockSealer blockSealer,
+                           TransactionLaneExecutor laneExecutor, BalanceUpdateBatcher balanceUpdateBatcher) {
         this.userService = userService;
+        this.blockChain = blockChain;
+        this.snapshotService = snapshotService;
+        this.transactionLocator = transactionLocator;
+        this.blockSealer = blockSealer;
+        this.laneExecutor = laneExecutor;
+        this.balanceUpdateBatcher = balanceUpdateBatcher;
     }
 
     @GetMapping("/hello")
@@ -30,4 +57,41 @@ public class AdminController {
     public ResponseEntity<UserDTO> getUserById(@PathVariable String id) {
         return ResponseEntity.ok(userService.findUserById(id));
     }
+
+    @PostMapping("/blockchain/revalidate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ChainValidationReport> revalidateChain() {
+        return ResponseEntity.ok(blockChain.validate());
+    }
+
+    @PostMapping("/blockchain/snapshot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> exportChainSnapshot() {
+        ChainSnapshot snapshot = snapshotService.export();
+        return ResponseEntity.ok("Exported chain snapshot of " + snapshot.size() + " block headers.");
+    }
+
+    @GetMapping("/blockchain/bloom-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BloomFilterMetricsDTO> getBloomFilterMetrics() {
+        return ResponseEntity.ok(transactionLocator.metrics());
+    }
+
+    @GetMapping("/blockchain/sealing-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BlockSealingMetricsDTO> getBlockSealingMetrics() {
+        return ResponseEntity.ok(blockSealer.metrics());
+    }
+
+    @GetMapping("/transactions/lane-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExecutionLaneMetricsDTO> getExecutionLaneMetrics() {
+        return ResponseEntity.ok(laneExecutor.metrics());
+    }
+
+    @GetMapping("/transactions/balance-batch-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BalanceBatchMetricsDTO> getBalanceBatchMetrics() {
+        return ResponseEntity.ok(balanceUpdateBatcher.metrics());
+    }
 }
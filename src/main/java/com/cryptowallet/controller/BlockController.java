@@ -0,0 +1,105 @@
+package com.cryptowallet.controller;
+
+import com.cryptowallet.blockchain.MerkleProofService;
+import com.cryptowallet.blockchain.bloom.TransactionLocator;
+import com.cryptowallet.blockchain.mmr.ChainMmr;
+import com.cryptowallet.blockchain.mmr.MmrProof;
+import com.cryptowallet.blockchain.mmr.MmrRoot;
+import com.cryptowallet.blockchain.state.BalanceProof;
+import com.cryptowallet.blockchain.state.StateTree;
+import com.cryptowallet.dto.MerkleProofDTO;
+import com.cryptowallet.dto.MerkleProofVerificationDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.dto.VerifyMerkleProofRequestDTO;
+import com.cryptowallet.exception.BlockNotFoundException;
+import com.cryptowallet.exception.TransactionNotInBlockException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/blocks")
+@Tag(name = "Block", description = "Block and Merkle proof APIs")
+public class BlockController {
+    private final MerkleProofService merkleProofService;
+    private final ChainMmr chainMmr;
+    private final StateTree stateTree;
+    private final TransactionLocator transactionLocator;
+
+    public BlockController(MerkleProofService merkleProofService, ChainMmr chainMmr, StateTree stateTree,
+                           TransactionLocator transactionLocator) {
+        this.merkleProofService = merkleProofService;
+        this.chainMmr = chainMmr;
+        this.stateTree = stateTree;
+        this.transactionLocator = transactionLocator;
+    }
+
+    @GetMapping("/lookup")
+    @Operation(summary = "Find the block containing a transaction, by transaction ID or signature")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Block found"),
+            @ApiResponse(responseCode = "404", description = "No block contains the transaction")
+    })
+    public ResponseEntity<TransactionLocationDTO> lookupTransaction(@RequestParam("tx") String transaction) {
+        return ResponseEntity.ok(transactionLocator.locate(transaction)
+                .orElseThrow(() -> new TransactionNotInBlockException("No block contains transaction " + transaction)));
+    }
+
+    @GetMapping("/{height}/proof/{txId}")
+    @Operation(summary = "Get the Merkle inclusion proof of a transaction in a block")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Proof returned"),
+            @ApiResponse(responseCode = "404", description = "Block not found or transaction not in block")
+    })
+    public ResponseEntity<MerkleProofDTO> getProof(@PathVariable long height, @PathVariable String txId) {
+        return ResponseEntity.ok(merkleProofService.prove(height, txId));
+    }
+
+    @PostMapping("/{height}/proof/verify")
+    @Operation(summary = "Verify a Merkle inclusion proof against a block")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Verification outcome returned"),
+            @ApiResponse(responseCode = "404", description = "Block not found")
+    })
+    public ResponseEntity<MerkleProofVerificationDTO> verifyProof(@PathVariable long height,
+                                                                  @RequestBody VerifyMerkleProofRequestDTO request) {
+        return ResponseEntity.ok(merkleProofService.verify(height, request));
+    }
+
+    @GetMapping("/mmr")
+    @Operation(summary = "Get the root of the Merkle Mountain Range over all block hashes")
+    public ResponseEntity<MmrRoot> getMmrRoot() {
+        return ResponseEntity.ok(chainMmr.currentRoot());
+    }
+
+    @GetMapping("/{height}/mmr-proof")
+    @Operation(summary = "Get the proof that a block is part of the canonical chain")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Proof returned"),
+            @ApiResponse(responseCode = "404", description = "Block not covered by the Merkle Mountain Range")
+    })
+    public ResponseEntity<MmrProof> getMmrProof(@PathVariable long height) {
+        if (height < 0 || height >= chainMmr.leafCount()) {
+            throw new BlockNotFoundException("No block found at height " + height);
+        }
+        return ResponseEntity.ok(chainMmr.prove(height));
+    }
+
+    @GetMapping("/state/proof")
+    @Operation(summary = "Get the proof of a wallet balance against the latest state root")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Proof returned; a null balance proves the wallet never held the currency")
+    })
+    public ResponseEntity<BalanceProof> getBalanceProof(@RequestParam String address, @RequestParam String currency) {
+        return ResponseEntity.ok(stateTree.prove(address, currency));
+    }
+}
@@ -1,7 +1,14 @@
 package com.cryptowallet.controller;
 
+import com.cryptowallet.blockchain.MerkleProofService;
+import com.cryptowallet.blockchain.TransactionBlockIndex;
+import com.cryptowallet.dto.BatchTransactionResponseDTO;
+import com.cryptowallet.dto.MerkleProofDTO;
 import com.cryptowallet.dto.SendTransactionRequestDTO;
 import com.cryptowallet.dto.TransactionDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.exception.TransactionNotInBlockException;
+import com.cryptowallet.service.BatchTransactionService;
 import com.cryptowallet.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,19 +16,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/transactions")
 @Tag(name = "Transaction", description = "Transaction management APIs")
 public class TransactionController {
     private final TransactionService txService;
+    private final TransactionBlockIndex transactionBlockIndex;
+    private final MerkleProofService merkleProofService;
+    private final BatchTransactionService batchTxService;
 
-    public TransactionController(TransactionService txService) {
+    public TransactionController(TransactionService txService, TransactionBlockIndex transactionBlockIndex,
+                                 MerkleProofService merkleProofService, BatchTransactionService batchTxService) {
         this.txService = txService;
+        this.batchTxService = batchTxService;
+        this.transactionBlockIndex = transactionBlockIndex;
+        this.merkleProofService = merkleProofService;
     }
 
     @PostMapping("/send")
@@ -35,4 +53,36 @@ public class TransactionController {
         TransactionDTO response = txService.processTransaction(dto);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Send many transactions in one request, with a result per transaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see the outcome of each transaction"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+            @ApiResponse(responseCode = "500", description = "Server error")
+    })
+    public ResponseEntity<BatchTransactionResponseDTO> sendTransactions(@RequestBody List<SendTransactionRequestDTO> dtos) {
+        return ResponseEntity.ok(batchTxService.processBatch(dtos));
+    }
+
+    @GetMapping("/{id}/block")
+    @Operation(summary = "Get the block a transaction was sealed into")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Block found"),
+            @ApiResponse(responseCode = "404", description = "Transaction not found or not sealed into a block yet")
+    })
+    public ResponseEntity<TransactionLocationDTO> getTransactionBlock(@PathVariable String id) {
+        return ResponseEntity.ok(transactionBlockIndex.find(id)
+                .orElseThrow(() -> new TransactionNotInBlockException("Transaction " + id + " is not sealed into a block.")));
+    }
+
+    @GetMapping("/{id}/proof")
+    @Operation(summary = "Get the Merkle inclusion proof of a transaction in the block it was sealed into")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Proof returned"),
+            @ApiResponse(responseCode = "404", description = "Transaction not found or not sealed into a block yet")
+    })
+    public ResponseEntity<MerkleProofDTO> getTransactionProof(@PathVariable String id) {
+        return ResponseEntity.ok(merkleProofService.prove(id));
+    }
 }
@@ -0,0 +1,147 @@
+package com.cryptowallet.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A utility class for SHA-256 hashing on raw byte arrays with one reusable MessageDigest per thread.
+ * Avoids the MessageDigest.getInstance lookup on hot hashing paths. This class cannot be instantiated.
+ */
+public final class Sha256 {
+
+    public static final int HASH_LENGTH = 32;
+
+    // Value of each Base64 character, or -1
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not found.", e);
+        }
+    });
+
+    // Private constructor to prevent instantiation.
+    private Sha256() {}
+
+    /**
+     * Returns this thread's digest, already reset. Callers must not hand it to other threads.
+     * @return A reset SHA-256 MessageDigest owned by the current thread.
+     */
+    public static MessageDigest digest() {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * @param data The bytes to hash.
+     * @return The raw 32-byte SHA-256 hash.
+     */
+    public static byte[] hash(byte[] data) {
+        return digest().digest(data);
+    }
+
+    /**
+     * Hashes the concatenation of two 32-byte values from one buffer into another, without allocating.
+     * @param src       Buffer holding the two input hashes back to back at srcOffset.
+     * @param srcOffset Offset of the left input hash.
+     * @param dst       Buffer receiving the result.
+     * @param dstOffset Offset the 32-byte result is written at.
+     */
+    public static void hashPair(byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+        MessageDigest digest = digest();
+        digest.update(src, srcOffset, 2 * HASH_LENGTH);
+        try {
+            digest.digest(dst, dstOffset, HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Cannot write SHA-256 result.", e);
+        }
+    }
+
+    /** Tag of a tagged hash value holding a decoded Base64 hash. */
+    public static final byte TAG_DECODED = 0;
+    /** Tag of a tagged hash value holding the SHA-256 of a string's UTF-8 bytes. */
+    public static final byte TAG_HASHED = 1;
+    public static final int TAGGED_HASH_LENGTH = 1 + HASH_LENGTH;
+
+    /**
+     * Converts a stored hash string to a tag byte followed by a 32-byte value, so that no two strings collide.
+     * @param value The stored hash or marker string.
+     * @return TAGGED_HASH_LENGTH bytes representing the input, as written by putTaggedHash.
+     */
+    public static byte[] toTaggedHashBytes(String value) {
+        byte[] tagged = new byte[TAGGED_HASH_LENGTH];
+        putTaggedHash(ByteBuffer.wrap(tagged), value);
+        return tagged;
+    }
+
+    /**
+     * Writes a stored hash string as a tag byte followed by a 32-byte value, so that no two strings collide.
+     * Canonical Base64 strings of 32-byte values are decoded straight into the buffer and tagged TAG_DECODED;
+     * any other string, including a non-canonical spelling of a hash, is hashed and tagged TAG_HASHED.
+     * @param buffer The buffer to write to, with at least TAGGED_HASH_LENGTH bytes remaining.
+     * @param value  The stored hash or marker string.
+     */
+    public static void putTaggedHash(ByteBuffer buffer, String value) {
+        int start = buffer.position();
+        buffer.put(TAG_DECODED);
+        if (!putCanonicalHash(buffer, value)) {
+            buffer.position(start);
+            buffer.put(TAG_HASHED);
+            buffer.put(hash(value.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Writes the 32 bytes a canonical Base64 hash string encodes, decoding straight into the buffer.
+     * @param buffer The buffer to write to, with at least HASH_LENGTH bytes remaining.
+     * @param value  A Base64 encoded 32-byte hash.
+     * @throws IllegalArgumentException if the value is not the canonical Base64 encoding of 32 bytes.
+     */
+    public static void putHash(ByteBuffer buffer, String value) {
+        int start = buffer.position();
+        if (!putCanonicalHash(buffer, value)) {
+            buffer.position(start);
+            throw new IllegalArgumentException("Not a Base64 encoded SHA-256 hash: " + value);
+        }
+    }
+
+    // Decodes the canonical Base64 encoding of 32 bytes into the buffer. Returns false for anything else,
+    // possibly after writing part of the bytes.
+    private static boolean putCanonicalHash(ByteBuffer buffer, String value) {
+        if (value.length() != 44 || value.charAt(43) != '=') {
+            return false;
+        }
+        int bits = 0;
+        int pending = 0;
+        for (int i = 0; i < 43; i++) {
+            char c = value.charAt(i);
+            int sextet = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (sextet < 0) {
+                return false;
+            }
+            bits = bits << 6 | sextet;
+            pending += 6;
+            if (pending >= 8) {
+                pending -= 8;
+                buffer.put((byte) (bits >> pending));
+            }
+        }
+        // 43 characters carry 258 bits; the decoder ignores the 2 left over, so other spellings would decode the same
+        return (bits & 0b11) == 0;
+    }
+}
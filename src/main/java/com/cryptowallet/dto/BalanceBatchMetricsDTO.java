@@ -0,0 +1,17 @@
+package com.cryptowallet.dto;
+
+public record BalanceBatchMetricsDTO(
+        boolean enabled, // False when balances are updated per transaction
+        boolean netting, // One write per wallet instead of a debit and a credit per transfer
+        int maxItems,
+        long windowMs,
+        long batches,
+        long transfers,
+        double averageBatchSize,
+        long roundTrips, // Balance reads and bulk writes
+        double roundTripsPerTransfer, // 2 when every transfer is applied on its own
+        long writeOperations, // Wallet updates sent in bulk writes
+        long retriedTransfers, // Checked again after a conditional debit failed earlier in their bulk write
+        long nettingFallbacks, // Netted writes reverted and written again transfer by transfer
+        int unsettledCredits // Wallet updates of applied or reverted transfers that failed and wait to be written again
+) {}
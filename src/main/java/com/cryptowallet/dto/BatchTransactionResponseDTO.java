@@ -0,0 +1,10 @@
+package com.cryptowallet.dto;
+
+import java.util.List;
+
+public record BatchTransactionResponseDTO(
+        int accepted,
+        int duplicates,
+        int rejected,
+        List<BatchTransactionResultDTO> results // One per transfer, in request order
+) {}
@@ -0,0 +1,26 @@
+package com.cryptowallet.dto;
+
+public record BatchTransactionResultDTO(
+        int index, // Position of the transfer in the request
+        Outcome outcome,
+        TransactionDTO transaction, // The stored transaction; null when rejected or when a duplicate of it was not stored
+        String error // Null when accepted
+) {
+    public enum Outcome {
+        ACCEPTED, // Stored as PENDING and queued for execution
+        DUPLICATE, // A transaction with the same signature already exists
+        REJECTED // Invalid, or could not be stored
+    }
+
+    public static BatchTransactionResultDTO accepted(int index, TransactionDTO transaction) {
+        return new BatchTransactionResultDTO(index, Outcome.ACCEPTED, transaction, null);
+    }
+
+    public static BatchTransactionResultDTO duplicate(int index, TransactionDTO existing, String error) {
+        return new BatchTransactionResultDTO(index, Outcome.DUPLICATE, existing, error);
+    }
+
+    public static BatchTransactionResultDTO rejected(int index, String error) {
+        return new BatchTransactionResultDTO(index, Outcome.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,26 @@
+package com.cryptowallet.dto;
+
+import com.cryptowallet.blockchain.mempool.SealReason;
+
+import java.util.Map;
+
+public record BlockSealingMetricsDTO(
+        int targetCount, // Current adaptive target block size
+        int minCount,
+        int maxCount,
+        long maxBytes,
+        long maxAgeMs,
+        double arrivalRatePerSecond, // Smoothed rate of transactions entering the mempool
+        int pendingTransactions,
+        long pendingBytes,
+        long oldestPendingAgeMs,
+        long blocksSealed,
+        long transactionsSealed,
+        double averageBlockSize,
+        Map<SealReason, Long> blocksByReason,
+        SealReason lastSealReason, // Null until the first block is sealed
+        int lastBlockSize,
+        boolean mempoolLogFailed, // New transactions are only kept in memory until the log is rewritten
+        long mempoolLogFailures,
+        long mempoolLogRecoveries
+) {}
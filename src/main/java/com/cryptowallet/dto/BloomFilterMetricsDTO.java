@@ -0,0 +1,13 @@
+package com.cryptowallet.dto;
+
+public record BloomFilterMetricsDTO(
+        double falsePositiveRate, // Configured target rate
+        int sizeBytes, // Configured fixed filter size; 0 when filters are sized per block
+        long lookups,
+        long filterChecks, // Block filters probed
+        long candidateBlocks, // Blocks whose transactions were read, with or without a filter
+        long falsePositives, // Filter matches that turned out not to contain the transaction
+        double observedFalsePositiveRate, // falsePositives over the probes of blocks that did not contain the transaction
+        int filtersInMemory,
+        long filterBytesInMemory
+) {}
@@ -0,0 +1,24 @@
+package com.cryptowallet.dto;
+
+import java.util.List;
+
+public record ExecutionLaneMetricsDTO(
+        int laneCount,
+        int queueCapacity, // Per lane; submitting to a full lane blocks
+        long submitted,
+        long executed,
+        long failed, // Tasks that threw; the lane kept running
+        int maxDepth, // Deepest lane queue right now
+        double averageWaitMs, // Time from submission until a task started, over all executed tasks
+        double maxWaitMs,
+        List<Lane> lanes
+) {
+    public record Lane(
+            int index,
+            int depth, // Tasks queued on this lane right now
+            long executed,
+            long failed,
+            double averageWaitMs,
+            double maxWaitMs
+    ) {}
+}
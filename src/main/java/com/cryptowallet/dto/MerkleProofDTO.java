@@ -0,0 +1,16 @@
+package com.cryptowallet.dto;
+
+import com.cryptowallet.merkle.MerkleFormat;
+
+import java.util.List;
+
+public record MerkleProofDTO(
+        long blockHeight,
+        String blockHash,
+        String merkleRoot,
+        MerkleFormat merkleFormat, // How leaf and parent node hashes are computed
+        String transactionId,
+        String leafHash, // Leaf node hash of the transaction signature
+        int leafIndex,
+        List<String> siblings // Sibling hashes from the leaf level up to the root
+) {}
@@ -0,0 +1,7 @@
+package com.cryptowallet.dto;
+
+public record MerkleProofVerificationDTO(
+        boolean valid,
+        String merkleRoot, // The root stored in the block header
+        String computedRoot // The root implied by the submitted proof
+) {}
@@ -0,0 +1,8 @@
+package com.cryptowallet.dto;
+
+public record TransactionLocationDTO(
+        String transactionId,
+        long blockHeight,
+        String blockHash,
+        int position // Index of the transaction in the block's transaction list
+) {}
@@ -0,0 +1,10 @@
+package com.cryptowallet.dto;
+
+import java.util.List;
+
+public record VerifyMerkleProofRequestDTO(
+        String transactionId,
+        String leafHash,
+        int leafIndex,
+        List<String> siblings
+) {}
@@ -0,0 +1,15 @@
+package com.cryptowallet.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to indicate that no block exists at a given height or with a given hash.
+ * Maps to HTTP 404 Not Found.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class BlockNotFoundException extends RuntimeException {
+    public BlockNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.cryptowallet.exception;
+
+import java.util.List;
+
+/**
+ * Custom exception to indicate that one or more transactions referenced by a block
+ * could not be found in the transaction store.
+ * Carries every missing ID so callers can report them together.
+ */
+public class MissingTransactionsException extends RuntimeException {
+    private final List<String> missingTransactionIds;
+
+    public MissingTransactionsException(String message, List<String> missingTransactionIds) {
+        super(message + " Missing transaction IDs: " + missingTransactionIds);
+        this.missingTransactionIds = List.copyOf(missingTransactionIds);
+    }
+
+    public List<String> getMissingTransactionIds() {
+        return missingTransactionIds;
+    }
+}
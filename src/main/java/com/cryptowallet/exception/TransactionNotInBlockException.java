@@ -0,0 +1,15 @@
+package com.cryptowallet.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to indicate that a transaction is not part of the requested block.
+ * Maps to HTTP 404 Not Found.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TransactionNotInBlockException extends RuntimeException {
+    public TransactionNotInBlockException(String message) {
+        super(message);
+    }
+}
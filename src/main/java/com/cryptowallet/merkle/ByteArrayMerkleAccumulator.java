@@ -0,0 +1,78 @@
+package com.cryptowallet.merkle;
+
+import com.cryptowallet.crypto.Sha256;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Streaming accumulator for the {@link MerkleFormat#BINARY} format, holding one pending 32-byte hash per level
+ * in a flat array. Pairs are hashed in a fixed 64-byte work buffer, so adding a leaf allocates nothing
+ * beyond the leaf's UTF-8 bytes.
+ */
+class ByteArrayMerkleAccumulator implements MerkleAccumulator {
+    private static final int HASH_LENGTH = Sha256.HASH_LENGTH;
+
+    private final byte[] pending = new byte[Long.SIZE * HASH_LENGTH]; // Slot per level for a node waiting for its sibling
+    private final byte[] pair = new byte[2 * HASH_LENGTH]; // Left node, then the node being carried up
+    private long occupied; // Bit i set when level i holds a pending node
+    private long count;
+
+    @Override
+    public void add(String transactionHash) {
+        MessageDigest digest = Sha256.digest();
+        digest.update(transactionHash.getBytes(StandardCharsets.UTF_8));
+        try {
+            digest.digest(pair, HASH_LENGTH, HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Cannot write SHA-256 result.", e);
+        }
+        int level = 0;
+        while ((occupied & (1L << level)) != 0) {
+            System.arraycopy(pending, level * HASH_LENGTH, pair, 0, HASH_LENGTH);
+            Sha256.hashPair(pair, 0, pair, HASH_LENGTH);
+            occupied &= ~(1L << level++);
+        }
+        System.arraycopy(pair, HASH_LENGTH, pending, level * HASH_LENGTH, HASH_LENGTH);
+        occupied |= 1L << level;
+        count++;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public String root() {
+        if (count == 0) {
+            throw new IllegalStateException("Cannot compute the Merkle Root of an empty tree.");
+        }
+        // Below the root every level ending in a lone node duplicates it; the carry is the partial node built from the tail
+        int height = 64 - Long.numberOfLeadingZeros(count - 1); // ceil(log2(count))
+        byte[] pair = new byte[2 * HASH_LENGTH]; // Separate from the add() buffer, so root() leaves the state unchanged
+        boolean carrying = false;
+        for (int level = 0; level < height; level++) {
+            boolean hasLeft = (occupied & (1L << level)) != 0;
+            if (hasLeft) {
+                System.arraycopy(pending, level * HASH_LENGTH, pair, 0, HASH_LENGTH);
+                if (!carrying) {
+                    System.arraycopy(pair, 0, pair, HASH_LENGTH, HASH_LENGTH);
+                }
+            } else if (carrying) {
+                System.arraycopy(pair, HASH_LENGTH, pair, 0, HASH_LENGTH);
+            } else {
+                continue;
+            }
+            Sha256.hashPair(pair, 0, pair, HASH_LENGTH);
+            carrying = true;
+        }
+        byte[] root = carrying
+                ? Arrays.copyOfRange(pair, HASH_LENGTH, 2 * HASH_LENGTH)
+                : Arrays.copyOfRange(pending, height * HASH_LENGTH, (height + 1) * HASH_LENGTH);
+        return Base64.getEncoder().encodeToString(root);
+    }
+}
@@ -0,0 +1,147 @@
+package com.cryptowallet.merkle;
+
+import com.cryptowallet.crypto.Sha256;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Computes roots in the {@link MerkleFormat#BINARY} format on raw 32-byte hashes.
+ * All nodes live in one flat byte array that is hashed level by level in place with this thread's
+ * MessageDigest, so no Strings or node objects are created and only the final root is Base64 encoded.
+ * Trees with at least the parallel threshold of leaves have their lower levels hashed in chunks on a
+ * ForkJoinPool, each chunk in its own region of the array (see {@link MerkleChunking}).
+ */
+public class ByteArrayMerkleEngine implements MerkleEngine {
+
+    private static final int HASH_LENGTH = Sha256.HASH_LENGTH;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * Creates an engine that always hashes on the calling thread.
+     */
+    public ByteArrayMerkleEngine() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param pool              Pool hashing the chunks of large trees.
+     * @param parallelThreshold Minimum number of leaves for a tree to be hashed in parallel.
+     */
+    public ByteArrayMerkleEngine(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @Override
+    public MerkleFormat format() {
+        return MerkleFormat.BINARY;
+    }
+
+    @Override
+    public MerkleAccumulator newAccumulator() {
+        return new ByteArrayMerkleAccumulator();
+    }
+
+    @Override
+    public String computeRoot(List<String> transactionHashes) {
+        if (transactionHashes == null || transactionHashes.isEmpty()) {
+            throw new IllegalArgumentException("Transaction hashes list cannot be empty or null to build a Merkle Tree.");
+        }
+        int count = transactionHashes.size();
+        byte[] nodes = new byte[(count + 1) * HASH_LENGTH]; // One spare slot for the duplicated odd node
+        int chunkLevels = pool == null || count < parallelThreshold ? -1 : MerkleChunking.chunkLevels(count, pool.getParallelism());
+
+        if (chunkLevels < 0) {
+            hashLeaves(transactionHashes, 0, count, nodes);
+        } else {
+            count = hashChunks(transactionHashes, nodes, chunkLevels);
+        }
+        while (count > 1) {
+            count = combineLevel(nodes, 0, count);
+        }
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(nodes, HASH_LENGTH));
+    }
+
+    /**
+     * Hashes every chunk of 2^chunkLevels leaves up by chunkLevels levels in parallel and gathers the
+     * chunk roots at the start of the array.
+     * @return The number of chunk roots.
+     */
+    private int hashChunks(List<String> transactionHashes, byte[] nodes, int chunkLevels) {
+        int leafCount = transactionHashes.size();
+        int chunkSize = 1 << chunkLevels;
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int first = 0; first < leafCount; first += chunkSize) {
+            int from = first;
+            int to = Math.min(leafCount, first + chunkSize);
+            chunks.add(() -> {
+                hashLeaves(transactionHashes, from, to, nodes);
+                int count = to - from;
+                for (int level = 0; level < chunkLevels; level++) {
+                    count = combineLevel(nodes, from, count);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing Merkle tree chunks.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hash Merkle tree chunk.", e.getCause());
+        }
+
+        // Chunk c left its root at leaf slot c * chunkSize, which is never before slot c
+        for (int chunk = 1; chunk < chunks.size(); chunk++) {
+            System.arraycopy(nodes, chunk * chunkSize * HASH_LENGTH, nodes, chunk * HASH_LENGTH, HASH_LENGTH);
+        }
+        return chunks.size();
+    }
+
+    /**
+     * Writes the SHA-256 of each transaction hash in [from, to) to its leaf slot.
+     */
+    private static void hashLeaves(List<String> transactionHashes, int from, int to, byte[] nodes) {
+        MessageDigest digest = Sha256.digest();
+        try {
+            for (int i = from; i < to; i++) {
+                digest.update(transactionHashes.get(i).getBytes(StandardCharsets.UTF_8));
+                digest.digest(nodes, i * HASH_LENGTH, HASH_LENGTH);
+            }
+        } catch (DigestException e) {
+            throw new IllegalStateException("Cannot write SHA-256 result.", e);
+        }
+    }
+
+    /**
+     * Hashes one level of count nodes starting at slot first into the next level, in place: the pair at
+     * (first + 2i, first + 2i + 1) is consumed before slot first + i is overwritten. An odd last node is
+     * duplicated into the slot after it.
+     * @return The number of nodes of the next level.
+     */
+    private static int combineLevel(byte[] nodes, int first, int count) {
+        if (count % 2 != 0) {
+            System.arraycopy(nodes, (first + count - 1) * HASH_LENGTH, nodes, (first + count) * HASH_LENGTH, HASH_LENGTH);
+            count++;
+        }
+        for (int i = 0; i < count / 2; i++) {
+            Sha256.hashPair(nodes, (first + 2 * i) * HASH_LENGTH, nodes, (first + i) * HASH_LENGTH);
+        }
+        return count / 2;
+    }
+}
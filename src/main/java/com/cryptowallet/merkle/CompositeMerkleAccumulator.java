@@ -0,0 +1,46 @@
+package com.cryptowallet.merkle;
+
+/**
+ * Streaming accumulator for the {@link MerkleFormat#COMPOSITE} format, holding one pending Base64 hash per level
+ * instead of a tree of MerkleNodes.
+ */
+class CompositeMerkleAccumulator implements MerkleAccumulator {
+    private final String[] pending = new String[Long.SIZE]; // pending[level]: a left node still waiting for its sibling
+    private long count;
+
+    @Override
+    public void add(String transactionHash) {
+        String node = transactionHash;
+        int level = 0;
+        while (pending[level] != null) {
+            node = MerkleNode.calculateSha256Hash(pending[level] + node);
+            pending[level++] = null;
+        }
+        pending[level] = node;
+        count++;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public String root() {
+        if (count == 0) {
+            throw new IllegalStateException("Cannot compute the Merkle Root of an empty tree.");
+        }
+        // Below the root every level ending in a lone node duplicates it; 'carry' is the partial node built from the tail
+        int height = 64 - Long.numberOfLeadingZeros(count - 1); // ceil(log2(count))
+        String carry = null;
+        for (int level = 0; level < height; level++) {
+            String left = pending[level];
+            if (left != null) {
+                carry = MerkleNode.calculateSha256Hash(left + (carry != null ? carry : left));
+            } else if (carry != null) {
+                carry = MerkleNode.calculateSha256Hash(carry + carry);
+            }
+        }
+        return carry != null ? carry : pending[height];
+    }
+}
@@ -0,0 +1,34 @@
+package com.cryptowallet.merkle;
+
+import java.util.List;
+
+/**
+ * Computes roots in the {@link MerkleFormat#COMPOSITE} format by building the MerkleNode composite tree.
+ * The builder is stateless, so one instance serves every thread.
+ */
+public class CompositeMerkleEngine implements MerkleEngine {
+    private final MerkleTreeBuilder merkleTreeBuilder;
+
+    public CompositeMerkleEngine() {
+        this(new MerkleTreeBuilder());
+    }
+
+    public CompositeMerkleEngine(MerkleTreeBuilder merkleTreeBuilder) {
+        this.merkleTreeBuilder = merkleTreeBuilder;
+    }
+
+    @Override
+    public MerkleFormat format() {
+        return MerkleFormat.COMPOSITE;
+    }
+
+    @Override
+    public MerkleAccumulator newAccumulator() {
+        return new CompositeMerkleAccumulator();
+    }
+
+    @Override
+    public String computeRoot(List<String> transactionHashes) {
+        return merkleTreeBuilder.computeRoot(transactionHashes);
+    }
+}
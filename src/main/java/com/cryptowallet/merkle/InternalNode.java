@@ -7,6 +7,7 @@ package com.cryptowallet.merkle;
 public class InternalNode extends MerkleNode {
     private final MerkleNode left;
     private final MerkleNode right;
+    private final String hash;
 
     /**
      * Constructs an InternalNode with two child nodes.
@@ -1,6 +1,8 @@
 package com.cryptowallet.merkle;
 
 public class LeafNode extends MerkleNode {
+    private final String hash;
+
     /**
      * Constructs a LeafNode with given transaction hash.
      * The hash of this node is simply the provided transaction hash.
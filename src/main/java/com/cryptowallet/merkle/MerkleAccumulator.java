@@ -0,0 +1,38 @@
+package com.cryptowallet.merkle;
+
+import java.util.Iterator;
+
+/**
+ * Computes a Merkle Root from leaves added one at a time, keeping only one pending node per tree level,
+ * so memory is O(log n) whatever the number of leaves.
+ * Produces the same root as the {@link MerkleEngine} of its format, including the duplication of the
+ * last node of odd-sized levels. An accumulator is used by one thread for one tree.
+ */
+public interface MerkleAccumulator {
+
+    /**
+     * Adds the next leaf in tree order.
+     * @param transactionHash The hash of the transaction at the next position.
+     */
+    void add(String transactionHash);
+
+    /**
+     * Adds every remaining leaf of an iterator, such as one over a database cursor, in tree order.
+     * @param transactionHashes The hashes of the next transactions.
+     */
+    default void addAll(Iterator<String> transactionHashes) {
+        transactionHashes.forEachRemaining(this::add);
+    }
+
+    /**
+     * @return The number of leaves added so far.
+     */
+    long count();
+
+    /**
+     * Finishes the tree over the leaves added so far. The accumulator is left unchanged.
+     * @return The Merkle Root as a Base64 encoded string.
+     * @throws IllegalStateException if no leaf was added.
+     */
+    String root();
+}
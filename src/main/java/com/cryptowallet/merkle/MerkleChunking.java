@@ -0,0 +1,29 @@
+package com.cryptowallet.merkle;
+
+/**
+ * Splits the leaves of a large tree into power-of-two sized chunks for parallel hashing.
+ * A full chunk of 2^k leaves that starts at a multiple of 2^k reduces to exactly the node the sequential
+ * algorithm produces k levels up. The last, partial chunk also reduces exactly k levels, duplicating its
+ * last node whenever its level is odd-sized: the full chunks before it always contribute an even number of
+ * nodes below level k, so the whole level is odd exactly when the partial chunk's part is.
+ * The level-k chunk roots are then combined sequentially, which gives bit-identical roots.
+ */
+final class MerkleChunking {
+
+    /** Chunks smaller than this are not worth a task of their own. */
+    static final int MIN_CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private MerkleChunking() {}
+
+    /**
+     * @param leafCount   Number of leaves in the tree.
+     * @param parallelism Number of threads hashing the chunks.
+     * @return The number of levels k each chunk of 2^k leaves is reduced by, or -1 if the tree fits in one chunk.
+     */
+    static int chunkLevels(int leafCount, int parallelism) {
+        int target = Math.max(1, leafCount / (parallelism * CHUNKS_PER_THREAD));
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(target));
+        return chunkSize >= leafCount ? -1 : Integer.numberOfTrailingZeros(chunkSize);
+    }
+}
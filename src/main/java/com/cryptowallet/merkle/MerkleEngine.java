@@ -0,0 +1,29 @@
+package com.cryptowallet.merkle;
+
+import java.util.List;
+
+/**
+ * Computes Merkle Roots in one {@link MerkleFormat}.
+ * Implementations are stateless and may be shared by any number of threads.
+ */
+public interface MerkleEngine {
+
+    /**
+     * @return The format of the roots this engine computes.
+     */
+    MerkleFormat format();
+
+    /**
+     * Computes the Merkle Root of a list of transaction hashes, duplicating the last node of odd-sized levels.
+     * @param transactionHashes A list of SHA-256 hashes of individual transactions.
+     * @return The Merkle Root as a Base64 encoded string.
+     * @throws IllegalArgumentException if the list of transaction hashes is empty or null.
+     */
+    String computeRoot(List<String> transactionHashes);
+
+    /**
+     * Creates a streaming accumulator that computes the same roots as this engine with O(log n) memory.
+     * @return A new, empty accumulator for one tree.
+     */
+    MerkleAccumulator newAccumulator();
+}
@@ -0,0 +1,43 @@
+package com.cryptowallet.merkle;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the MerkleEngine for a format: the configured one for new blocks, and the recorded one
+ * for existing blocks, so changing the format never invalidates blocks that are already stored.
+ */
+public class MerkleEngines {
+    private final Map<MerkleFormat, MerkleEngine> engines = new EnumMap<>(MerkleFormat.class);
+    private final MerkleEngine forNewBlocks;
+
+    /**
+     * @param engines         One engine per supported format.
+     * @param newBlocksFormat The format new blocks compute their Merkle Root in.
+     * @throws IllegalArgumentException if no engine supports the format for new blocks.
+     */
+    public MerkleEngines(List<MerkleEngine> engines, MerkleFormat newBlocksFormat) {
+        engines.forEach(engine -> this.engines.put(engine.format(), engine));
+        this.forNewBlocks = forFormat(newBlocksFormat);
+    }
+
+    /**
+     * @return The engine new blocks compute their Merkle Root with.
+     */
+    public MerkleEngine forNewBlocks() {
+        return forNewBlocks;
+    }
+
+    /**
+     * @param format A Merkle format, usually the one recorded in a block.
+     * @return The engine computing roots in that format.
+     */
+    public MerkleEngine forFormat(MerkleFormat format) {
+        MerkleEngine engine = engines.get(format);
+        if (engine == null) {
+            throw new IllegalArgumentException("No Merkle engine registered for format " + format);
+        }
+        return engine;
+    }
+}
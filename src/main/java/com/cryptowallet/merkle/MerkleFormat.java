@@ -0,0 +1,90 @@
+package com.cryptowallet.merkle;
+
+import com.cryptowallet.crypto.Sha256;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The ways a Merkle Root can be computed from a block's transaction hashes.
+ * A block records the format of its root, so roots of existing blocks keep being recomputed
+ * the way they were created when the format for new blocks changes.
+ */
+public enum MerkleFormat {
+
+    /**
+     * The MerkleNode composite: leaves are the transaction hashes as-is and an internal node is the
+     * Base64 SHA-256 of the concatenated Base64 strings of its children.
+     */
+    COMPOSITE(1) {
+        @Override
+        public String leaf(String transactionHash) {
+            return transactionHash;
+        }
+
+        @Override
+        public String combine(String left, String right) {
+            return MerkleNode.calculateSha256Hash(left + right);
+        }
+    },
+
+    /**
+     * Raw 32-byte hashes: a leaf is the SHA-256 of the UTF-8 transaction hash and an internal node is the
+     * SHA-256 of its two children's 32 bytes. Only the root is Base64 encoded.
+     */
+    BINARY(2) {
+        @Override
+        public String leaf(String transactionHash) {
+            return Base64.getEncoder().encodeToString(Sha256.hash(transactionHash.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public String combine(String left, String right) {
+            byte[] pair = Arrays.copyOf(Base64.getDecoder().decode(left), 2 * Sha256.HASH_LENGTH);
+            System.arraycopy(Base64.getDecoder().decode(right), 0, pair, Sha256.HASH_LENGTH, Sha256.HASH_LENGTH);
+            return Base64.getEncoder().encodeToString(Sha256.hash(pair));
+        }
+    };
+
+    private final int code;
+
+    MerkleFormat(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The code stored with a block to record the format of its Merkle Root.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Converts a transaction hash to the leaf node hash of this format, as a Base64 string.
+     * Used for proofs; bulk root computation goes through a {@link MerkleEngine}.
+     */
+    public abstract String leaf(String transactionHash);
+
+    /**
+     * Hashes two child node hashes, given as Base64 strings, into their parent node hash.
+     * Used for proofs; bulk root computation goes through a {@link MerkleEngine}.
+     */
+    public abstract String combine(String left, String right);
+
+    /**
+     * @param code The stored format code, or null for blocks that predate Merkle formats.
+     * @return The format with the given code; COMPOSITE when the code is null.
+     */
+    public static MerkleFormat of(Integer code) {
+        if (code == null) {
+            return COMPOSITE;
+        }
+        for (MerkleFormat format : values()) {
+            if (format.code == code) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Merkle format code: " + code);
+    }
+}
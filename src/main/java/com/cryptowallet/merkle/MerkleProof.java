@@ -0,0 +1,51 @@
+package com.cryptowallet.merkle;
+
+import java.util.List;
+
+/**
+ * Proof that a leaf is part of a Merkle Tree, verifiable without the rest of the tree.
+ * The position of each sibling follows from the leaf index: at every level the node is the left
+ * child when its index is even and the right child when it is odd.
+ *
+ * @param format    The format of the tree's node hashes.
+ * @param leafHash  The leaf node hash of the proven transaction.
+ * @param leafIndex The position of the leaf in the tree.
+ * @param siblings  The sibling hashes from the leaf level up to, but excluding, the root.
+ */
+public record MerkleProof(MerkleFormat format, String leafHash, int leafIndex, List<String> siblings) {
+
+    public MerkleProof {
+        siblings = List.copyOf(siblings);
+    }
+
+    /**
+     * Creates a proof for a tree in the {@link MerkleFormat#COMPOSITE} format.
+     */
+    public MerkleProof(String leafHash, int leafIndex, List<String> siblings) {
+        this(MerkleFormat.COMPOSITE, leafHash, leafIndex, siblings);
+    }
+
+    /**
+     * Recomputes the root by hashing the leaf with each sibling in turn.
+     * @return The Merkle Root implied by this proof.
+     */
+    public String computeRoot() {
+        String hash = leafHash;
+        int index = leafIndex;
+        for (String sibling : siblings) {
+            hash = (index & 1) == 0 ? format.combine(hash, sibling) : format.combine(sibling, hash);
+            index >>= 1;
+        }
+        return hash;
+    }
+
+    /**
+     * @param merkleRoot The expected Merkle Root, usually taken from a block header.
+     * @return true if the proof leads to the expected root.
+     */
+    public boolean verify(String merkleRoot) {
+        // Index bits above the proof depth would not be checked by the hashing, so they must be zero
+        boolean indexFitsProof = leafIndex >= 0 && (siblings.size() >= Integer.SIZE || (leafIndex >>> siblings.size()) == 0);
+        return leafHash != null && indexFitsProof && computeRoot().equals(merkleRoot);
+    }
+}
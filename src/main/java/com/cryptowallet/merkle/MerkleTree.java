@@ -0,0 +1,109 @@
+package com.cryptowallet.merkle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable Merkle Tree stored as compact level arrays instead of a graph of MerkleNodes.
+ * Level 0 holds the leaf node hashes and the last level holds the root. Levels with an odd number of nodes
+ * are not padded; the last node is paired with itself when hashing, as in {@link MerkleTreeBuilder}.
+ * Keeping every level allows inclusion proofs to be served without rehashing anything.
+ */
+public final class MerkleTree {
+    private final MerkleFormat format;
+    private final String[][] levels;
+
+    private MerkleTree(MerkleFormat format, String[][] levels) {
+        this.format = format;
+        this.levels = levels;
+    }
+
+    /**
+     * Builds the tree from a list of transaction hashes, producing the same root as {@link MerkleTreeBuilder}.
+     * @param transactionHashes A list of SHA-256 hashes of individual transactions.
+     * @return The tree with all of its levels.
+     * @throws IllegalArgumentException if the list of transaction hashes is empty or null.
+     */
+    public static MerkleTree build(List<String> transactionHashes) {
+        return build(MerkleFormat.COMPOSITE, transactionHashes);
+    }
+
+    /**
+     * Builds the tree from a list of transaction hashes in the given format, producing the same root as
+     * the format's {@link MerkleEngine}.
+     * @param format            The format of the tree's node hashes.
+     * @param transactionHashes A list of SHA-256 hashes of individual transactions.
+     * @return The tree with all of its levels.
+     * @throws IllegalArgumentException if the list of transaction hashes is empty or null.
+     */
+    public static MerkleTree build(MerkleFormat format, List<String> transactionHashes) {
+        if (transactionHashes == null || transactionHashes.isEmpty()) {
+            throw new IllegalArgumentException("Transaction hashes list cannot be empty or null to build a Merkle Tree.");
+        }
+        List<String[]> levels = new ArrayList<>();
+        String[] currentLevel = transactionHashes.stream().map(format::leaf).toArray(String[]::new);
+        levels.add(currentLevel);
+        while (currentLevel.length > 1) {
+            String[] nextLevel = new String[(currentLevel.length + 1) / 2];
+            for (int i = 0; i < nextLevel.length; i++) {
+                String left = currentLevel[2 * i];
+                String right = 2 * i + 1 < currentLevel.length ? currentLevel[2 * i + 1] : left;
+                nextLevel[i] = format.combine(left, right);
+            }
+            levels.add(nextLevel);
+            currentLevel = nextLevel;
+        }
+        return new MerkleTree(format, levels.toArray(new String[0][]));
+    }
+
+    /**
+     * @param leafCount The number of leaves, at least 1.
+     * @return The number of levels above the leaves, which is the number of siblings in every proof of the tree.
+     */
+    public static int depth(int leafCount) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(leafCount - 1);
+    }
+
+    public MerkleFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return The Merkle Root as a Base64 encoded SHA-256 hash.
+     */
+    public String getMerkleRoot() {
+        return levels[levels.length - 1][0];
+    }
+
+    public int getLeafCount() {
+        return levels[0].length;
+    }
+
+    /**
+     * @param leafIndex The position of a leaf.
+     * @return The leaf node hash at the given position.
+     */
+    public String getLeaf(int leafIndex) {
+        return levels[0][leafIndex];
+    }
+
+    /**
+     * Returns the inclusion proof of a leaf: the sibling hash at every level from the leaves up to the root.
+     * @param leafIndex The position of the leaf to prove.
+     * @return The inclusion proof.
+     * @throws IndexOutOfBoundsException if the index is outside the tree.
+     */
+    public MerkleProof proof(int leafIndex) {
+        Objects.checkIndex(leafIndex, getLeafCount());
+        List<String> siblings = new ArrayList<>(levels.length - 1);
+        int index = leafIndex;
+        for (int level = 0; level < levels.length - 1; level++) {
+            String[] nodes = levels[level];
+            int siblingIndex = index ^ 1;
+            siblings.add(siblingIndex < nodes.length ? nodes[siblingIndex] : nodes[index]);
+            index >>= 1;
+        }
+        return new MerkleProof(format, getLeaf(leafIndex), leafIndex, siblings);
+    }
+}
@@ -2,14 +2,39 @@ package com.cryptowallet.merkle;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * Builds a Merkle Tree from a list of transaction hashes and computes the Merkle Root.
  * This component is responsible for creating the tree structure based on the Composite Pattern MerkleNodes.
+ * Building is stateless and every result is immutable, so one builder can be used by any number of
+ * threads concurrently without locking.
+ * Trees with at least the parallel threshold of leaves have their lower levels built as independent
+ * subtrees on a ForkJoinPool and combined at the top (see {@link MerkleChunking}).
  */
 public class MerkleTreeBuilder {
-    private MerkleNode root;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * Creates a builder that always builds on the calling thread.
+     */
+    public MerkleTreeBuilder() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param pool              Pool building the subtrees of large trees.
+     * @param parallelThreshold Minimum number of leaves for a tree to be built in parallel.
+     */
+    public MerkleTreeBuilder(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
 
     /**
      * Constructs the Merkle Tree from a list of transaction hashes.
@@ -28,6 +53,12 @@ public class MerkleTreeBuilder {
                 .map(LeafNode::new)
                 .collect(Collectors.toList());
 
+        int chunkLevels = pool == null || currentLevel.size() < parallelThreshold
+                ? -1 : MerkleChunking.chunkLevels(currentLevel.size(), pool.getParallelism());
+        if (chunkLevels >= 0) {
+            currentLevel = buildSubtrees(currentLevel, chunkLevels);
+        }
+
         // Recursively build up the tree until only one node (the root) remains
         while (currentLevel.size() > 1) {
             List<MerkleNode> nextLevel = new ArrayList<>();
@@ -46,20 +77,60 @@ public class MerkleTreeBuilder {
             currentLevel = nextLevel;
         }
 
-        this.root = currentLevel.get(0);
-        return this.root;
+        return currentLevel.get(0);
     }
 
     /**
-     * Returns the Merkle Root (the hash of the root node) of the built tree.
-     * Must be called after buildTree().
-     * @return The Merkle Root as a Base64 encoded SHA-256 hash.
-     * @throws IllegalStateException if buildTree() has not been called yet.
+     * Builds the subtrees of every chunk of 2^chunkLevels leaves in parallel.
+     * @return The subtree roots, chunkLevels levels above the leaves.
      */
-    public String getMerkleRoot() {
-        if(this.root == null) {
-            throw new IllegalStateException("Merkle tree has not been built yet. Call buildTree() first.");
+    private List<MerkleNode> buildSubtrees(List<MerkleNode> leaves, int chunkLevels) {
+        int chunkSize = 1 << chunkLevels;
+        List<Callable<MerkleNode>> chunks = new ArrayList<>();
+        for (int first = 0; first < leaves.size(); first += chunkSize) {
+            List<MerkleNode> chunk = leaves.subList(first, Math.min(leaves.size(), first + chunkSize));
+            chunks.add(() -> combineLevels(chunk, chunkLevels));
+        }
+        List<MerkleNode> subtreeRoots = new ArrayList<>(chunks.size() + 1);
+        try {
+            for (Future<MerkleNode> subtreeRoot : pool.invokeAll(chunks)) {
+                subtreeRoots.add(subtreeRoot.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building Merkle subtrees.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to build Merkle subtree.", e.getCause());
         }
-        return this.root.getHash();
+        return subtreeRoots;
+    }
+
+    /**
+     * Combines exactly the given number of levels, duplicating the last node of every odd-sized level,
+     * including a level of a single node.
+     */
+    private static MerkleNode combineLevels(List<MerkleNode> nodes, int levels) {
+        List<MerkleNode> currentLevel = new ArrayList<>(nodes);
+        for (int level = 0; level < levels; level++) {
+            if (currentLevel.size() % 2 != 0) {
+                currentLevel.add(currentLevel.get(currentLevel.size() - 1));
+            }
+            List<MerkleNode> nextLevel = new ArrayList<>(currentLevel.size() / 2);
+            for (int i = 0; i < currentLevel.size(); i += 2) {
+                nextLevel.add(new InternalNode(currentLevel.get(i), currentLevel.get(i + 1)));
+            }
+            currentLevel = nextLevel;
+        }
+        return currentLevel.get(0);
+    }
+
+    /**
+     * Computes the Merkle Root of a list of transaction hashes in one call.
+     * @param transactionHashes A list of SHA-256 hashes of individual transactions.
+     * @return The Merkle Root as a Base64 encoded SHA-256 hash.
+     * @throws IllegalArgumentException if the list of transaction hashes is empty or null.
+     */
+    public String computeRoot(List<String> transactionHashes) {
+        return buildTree(transactionHashes).getHash();
     }
 }
@@ -1,6 +1,7 @@
 package com.cryptowallet.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.nio.charset.StandardCharsets;
@@ -21,30 +22,95 @@ public class Block {
     @Id
     private String id; // MongoDB ID
 
+    @Indexed(unique = true, sparse = true) // Created by MongoBlockStore on start-up; sparse so blocks written before heights existed can still be loaded
+    private Long height; // Position in the chain, 0 for the genesis block
     private List<String> transactionsIds; //Store IDs instead of full TransactionDocuments to save space
     private Instant timestamp;
     private String merkleRoot;
     private String previousBlockHash; // Hash of the previous block on the chain
     private String currentBlockHash; // Hash of this block
+    private Integer hashVersion; // Header encoding the hash was computed with; null for blocks predating versioning
+    private String transactionsRoot; // Commitment to transactionsIds, part of the binary header
+    private Integer merkleFormat; // MerkleFormat code the Merkle Root was computed in; null for the original composite format
+    private String stateRoot; // Root of the wallet balances as read when the block was sealed, not replayable from the chain; null unless hashed with a state root
+    private String bloomFilter; // Encoded Bloom filter over transaction IDs and signatures; a lookup hint, not covered by the hash
 
     public Block() {
         this.timestamp = Instant.now();
     }
 
+    /**
+     * Creates a block without a height, hashed with the legacy string encoding.
+     */
     public Block(List<String> transactionsIds, String merkleRoot, String previousBlockHash) {
         this.transactionsIds = transactionsIds;
         this.timestamp = Instant.now();  // Set timestamp upon creation
         this.merkleRoot = merkleRoot;
         this.previousBlockHash = previousBlockHash;
+        this.hashVersion = BlockHeaderEncoder.VERSION_LEGACY;
         this.currentBlockHash = calculateHash(); // Calculate the hash immediately upon creation
     }
 
     /**
-     * Calculates the SHA-256 hash of this block.
-     * The hash is based on the timestamp, Merkle root, previous block hash, and concatenated transaction IDs.
+     * Creates a block at the given height, hashed with the binary header encoding.
+     */
+    public Block(long height, List<String> transactionsIds, String merkleRoot, String previousBlockHash) {
+        this.height = height;
+        this.transactionsIds = transactionsIds;
+        this.timestamp = Instant.now();  // Set timestamp upon creation
+        this.merkleRoot = merkleRoot;
+        this.previousBlockHash = previousBlockHash;
+        this.hashVersion = BlockHeaderEncoder.VERSION_BINARY;
+        this.transactionsRoot = BlockHeaderEncoder.transactionsRoot(transactionsIds); // Computed once, reused by every hash
+        this.currentBlockHash = calculateHash(); // Calculate the hash immediately upon creation
+    }
+
+    /**
+     * Creates a block at the given height that also commits to the wallet state root, hashed with the
+     * binary header encoding followed by the state root.
+     */
+    public Block(long height, List<String> transactionsIds, String merkleRoot, String previousBlockHash, String stateRoot) {
+        this.height = height;
+        this.transactionsIds = transactionsIds;
+        this.timestamp = Instant.now();  // Set timestamp upon creation
+        this.merkleRoot = merkleRoot;
+        this.previousBlockHash = previousBlockHash;
+        this.stateRoot = stateRoot;
+        this.hashVersion = BlockHeaderEncoder.VERSION_STATE;
+        this.transactionsRoot = BlockHeaderEncoder.transactionsRoot(transactionsIds); // Computed once, reused by every hash
+        this.currentBlockHash = calculateHash(); // Calculate the hash immediately upon creation
+    }
+
+    /**
+     * Calculates the hash of this block with the encoding it was created with.
+     * Blocks from before the binary header keep verifying against the legacy string encoding.
      * @return The SHA-256 hash of the block as a Base64 encoded string.
      */
     public String calculateHash() {
+        if (isLegacyHash()) {
+            return calculateLegacyHash();
+        }
+        return Base64.getEncoder().encodeToString(calculateHashBytes());
+    }
+
+    /**
+     * Calculates the raw 32-byte hash of this block's binary header.
+     * @return The SHA-256 hash of the canonical header encoding.
+     */
+    public byte[] calculateHashBytes() {
+        return BlockHeaderEncoder.hash(this);
+    }
+
+    public boolean isLegacyHash() {
+        return hashVersion == null || hashVersion == BlockHeaderEncoder.VERSION_LEGACY;
+    }
+
+    /**
+     * Calculates the SHA-256 hash of this block with the legacy string encoding.
+     * The hash is based on the timestamp, Merkle root, previous block hash, and concatenated transaction IDs.
+     * @return The SHA-256 hash of the block as a Base64 encoded string.
+     */
+    private String calculateLegacyHash() {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             StringBuilder dataToHash = new StringBuilder();
@@ -67,6 +133,10 @@ public class Block {
         return id;
     }
 
+    public Long getHeight() {
+        return height;
+    }
+
     public List<String> getTransactionsIds() {
         return transactionsIds;
     }
@@ -87,12 +157,36 @@ public class Block {
         return currentBlockHash;
     }
 
+    public Integer getHashVersion() {
+        return hashVersion;
+    }
+
+    public String getTransactionsRoot() {
+        return transactionsRoot;
+    }
+
+    public Integer getMerkleFormat() {
+        return merkleFormat;
+    }
+
+    public String getStateRoot() {
+        return stateRoot;
+    }
+
+    public String getBloomFilter() {
+        return bloomFilter;
+    }
+
     // Setters (primarily for MongoDB to hydrate the object)
 
     public void setId(String id) {
         this.id = id;
     }
 
+    public void setHeight(Long height) {
+        this.height = height;
+    }
+
     public void setTransactionsIds(List<String> transactionsIds) {
         this.transactionsIds = transactionsIds;
     }
@@ -101,6 +195,10 @@ public class Block {
         this.timestamp = timestamp;
     }
 
+    public void setMerkleRoot(String merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
+
     public void setPreviousBlockHash(String previousBlockHash) {
         this.previousBlockHash = previousBlockHash;
     }
@@ -109,21 +207,47 @@ public class Block {
         this.currentBlockHash = currentBlockHash;
     }
 
+    public void setHashVersion(Integer hashVersion) {
+        this.hashVersion = hashVersion;
+    }
+
+    public void setTransactionsRoot(String transactionsRoot) {
+        this.transactionsRoot = transactionsRoot;
+    }
+
+    public void setMerkleFormat(Integer merkleFormat) {
+        this.merkleFormat = merkleFormat;
+    }
+
+    public void setStateRoot(String stateRoot) {
+        this.stateRoot = stateRoot;
+    }
+
+    public void setBloomFilter(String bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Block block = (Block) obj;
         return Objects.equals(id, block.id) &&
+                Objects.equals(height, block.height) &&
                 Objects.equals(transactionsIds, block.transactionsIds) &&
                 Objects.equals(timestamp, block.timestamp) &&
                 Objects.equals(merkleRoot, block.merkleRoot) &&
                 Objects.equals(previousBlockHash, block.previousBlockHash) &&
-                Objects.equals(currentBlockHash, block.currentBlockHash);
+                Objects.equals(currentBlockHash, block.currentBlockHash) &&
+                Objects.equals(hashVersion, block.hashVersion) &&
+                Objects.equals(transactionsRoot, block.transactionsRoot) &&
+                Objects.equals(merkleFormat, block.merkleFormat) &&
+                Objects.equals(stateRoot, block.stateRoot) &&
+                Objects.equals(bloomFilter, block.bloomFilter);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, transactionsIds, timestamp, merkleRoot, previousBlockHash,currentBlockHash);
+        return Objects.hash(id, height, transactionsIds, timestamp, merkleRoot, previousBlockHash, currentBlockHash, hashVersion, transactionsRoot, merkleFormat, stateRoot, bloomFilter);
     }
 }
@@ -0,0 +1,101 @@
+package com.cryptowallet.model;
+
+import com.cryptowallet.crypto.Sha256;
+import com.cryptowallet.merkle.ByteArrayMerkleEngine;
+import com.cryptowallet.merkle.MerkleEngine;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Canonical fixed-layout binary encoding of a block header, used to hash blocks without building strings.
+ * <pre>
+ * offset  size  field
+ *      0     1  header version
+ *      1     8  height
+ *      9     8  timestamp epoch seconds
+ *     17     4  timestamp nanoseconds
+ *     21    33  previous block hash, tagged
+ *     54    33  Merkle root, tagged
+ *     87    32  transaction ID commitment
+ *    119    32  wallet state root, VERSION_STATE only
+ * </pre>
+ * The previous block hash and the Merkle root can be markers or signatures rather than hashes, so they are
+ * written as Sha256 tagged hash values: a tag byte followed by either the decoded hash or the hash of the text,
+ * which keeps a string and the Base64 of its hash apart. Every field is decoded straight into one buffer per
+ * thread and hashed with one MessageDigest per thread. This class cannot be instantiated.
+ */
+public final class BlockHeaderEncoder {
+
+    /** Blocks hashed from the concatenated string of their fields, before the binary header existed. */
+    public static final int VERSION_LEGACY = 1;
+    /** Blocks hashed from the binary header above. */
+    public static final int VERSION_BINARY = 2;
+    /** Blocks hashed from the binary header followed by the root of the wallet state tree. */
+    public static final int VERSION_STATE = 3;
+
+    public static final int HEADER_LENGTH = 1 + 8 + 8 + 4 + 2 * Sha256.TAGGED_HASH_LENGTH + Sha256.HASH_LENGTH;
+    public static final int STATE_HEADER_LENGTH = HEADER_LENGTH + Sha256.HASH_LENGTH;
+
+    // The ID commitment is a binary Merkle root over the IDs, computed by the byte-array engine
+    private static final MerkleEngine TRANSACTION_ID_TREE = new ByteArrayMerkleEngine();
+
+    private static final ThreadLocal<ByteBuffer> HEADER_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(STATE_HEADER_LENGTH));
+
+    // Private constructor to prevent instantiation.
+    private BlockHeaderEncoder() {}
+
+    /**
+     * Computes the raw 32-byte hash of a block's binary header.
+     * @param block The block to hash; its transactionsRoot must already be set.
+     * @return The SHA-256 hash of the encoded header.
+     */
+    public static byte[] hash(Block block) {
+        ByteBuffer header = HEADER_BUFFER.get();
+        encode(block, header);
+        MessageDigest digest = Sha256.digest();
+        digest.update(header.array(), 0, header.position());
+        return digest.digest();
+    }
+
+    /**
+     * Writes the canonical header of a block into the given buffer, starting at position 0,
+     * and leaves the buffer's position at the end of the header.
+     * @param block  The block to encode, with hash version VERSION_BINARY or VERSION_STATE.
+     * @param header A buffer with at least STATE_HEADER_LENGTH bytes of capacity.
+     * @throws IllegalArgumentException if the block is not hashed with the binary header.
+     */
+    public static void encode(Block block, ByteBuffer header) {
+        int version = block.getHashVersion();
+        if (version != VERSION_BINARY && version != VERSION_STATE) {
+            throw new IllegalArgumentException("Block " + block.getHeight() + " is not hashed with the binary header: version " + version);
+        }
+        header.clear();
+        header.put((byte) version);
+        header.putLong(block.getHeight());
+        header.putLong(block.getTimestamp().getEpochSecond());
+        header.putInt(block.getTimestamp().getNano());
+        Sha256.putTaggedHash(header, block.getPreviousBlockHash());
+        Sha256.putTaggedHash(header, block.getMerkleRoot());
+        Sha256.putHash(header, block.getTransactionsRoot());
+        if (version == VERSION_STATE) {
+            Sha256.putHash(header, block.getStateRoot());
+        }
+    }
+
+    /**
+     * Computes the commitment to a block's transaction IDs: a binary Merkle root over the SHA-256 of each ID,
+     * in block order, duplicating the last node of odd-sized levels. Computed once when the block is created,
+     * so hashing the header never has to sort or join the IDs again.
+     * @param transactionIds The transaction IDs in block order.
+     * @return The commitment as a Base64 encoded 32-byte hash.
+     */
+    public static String transactionsRoot(List<String> transactionIds) {
+        if (transactionIds == null || transactionIds.isEmpty()) {
+            throw new IllegalArgumentException("Cannot commit to an empty list of transaction IDs.");
+        }
+        return TRANSACTION_ID_TREE.computeRoot(transactionIds);
+    }
+}
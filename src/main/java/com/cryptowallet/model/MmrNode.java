@@ -0,0 +1,39 @@
+package com.cryptowallet.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A node of the chain's Merkle Mountain Range, stored at its position in the range.
+ * Nodes are only ever appended; a retried append rewrites a node with the same hash, so a stored node never changes.
+ */
+@Document("mmr_nodes")
+public class MmrNode {
+
+    @Id
+    private long position; // 0-based post-order position in the mountain range
+    private String hash; // Base64 encoded 32-byte hash
+
+    public MmrNode() {}
+
+    public MmrNode(long position, String hash) {
+        this.position = position;
+        this.hash = hash;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+}
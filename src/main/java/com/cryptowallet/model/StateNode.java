@@ -0,0 +1,99 @@
+package com.cryptowallet.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A non-empty node of the wallet state tree, stored under its own hash. Nodes never change once written:
+ * a commit writes new nodes for the changed paths and deletes the ones they replace.
+ * Leaf nodes also keep the key and balance they commit to, so proofs can be served without reading the wallet.
+ * The same collection holds a few markers, such as the current root, under fixed names.
+ */
+@Document("state_nodes")
+public class StateNode {
+
+    @Id
+    private String id; // Base64 encoded 32-byte hash of the node, or the name of a marker
+    private String hash; // Markers only: the hash the marker records, e.g. the current root
+    private String left; // Internal nodes only: hash of the left child, null for an empty subtree
+    private String right; // Internal nodes only: hash of the right child, null for an empty subtree
+    private String key; // Leaves only: the 256-bit key of the balance in hex
+    private String balance; // Leaves only: committed balance in plain notation
+
+    public StateNode() {}
+
+    public static StateNode marker(String id, String hash) {
+        StateNode node = new StateNode();
+        node.id = id;
+        node.hash = hash;
+        return node;
+    }
+
+    public static StateNode internal(String hash, String left, String right) {
+        StateNode node = new StateNode();
+        node.id = hash;
+        node.left = left;
+        node.right = right;
+        return node;
+    }
+
+    public static StateNode leaf(String hash, String key, String balance) {
+        StateNode node = new StateNode();
+        node.id = hash;
+        node.key = key;
+        node.balance = balance;
+        return node;
+    }
+
+    public boolean isLeaf() {
+        return key != null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getLeft() {
+        return left;
+    }
+
+    public String getRight() {
+        return right;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getBalance() {
+        return balance;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public void setLeft(String left) {
+        this.left = left;
+    }
+
+    public void setRight(String right) {
+        this.right = right;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public void setBalance(String balance) {
+        this.balance = balance;
+    }
+}
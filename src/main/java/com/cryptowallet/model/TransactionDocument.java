@@ -22,6 +22,8 @@ public class TransactionDocument {
     @Indexed(unique = true) // The signature should be unique to prevent replay attacks
     private String signature;
     private TransactionStatus status;
+    private Long blockHeight; // Height of the block the transaction was sealed into; null until sealed
+    private Integer blockPosition; // Index of the transaction in that block's transaction list
 
     public TransactionDocument() {}
 
@@ -67,6 +69,14 @@ public class TransactionDocument {
         return status;
     }
 
+    public Long getBlockHeight() {
+        return blockHeight;
+    }
+
+    public Integer getBlockPosition() {
+        return blockPosition;
+    }
+
     public void setId(String id) {
         this.id = id;
     }
@@ -94,4 +104,12 @@ public class TransactionDocument {
     public void setStatus(TransactionStatus status) {
         this.status = status;
     }
+
+    public void setBlockHeight(Long blockHeight) {
+        this.blockHeight = blockHeight;
+    }
+
+    public void setBlockPosition(Integer blockPosition) {
+        this.blockPosition = blockPosition;
+    }
 }
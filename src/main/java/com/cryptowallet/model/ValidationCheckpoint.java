@@ -0,0 +1,63 @@
+package com.cryptowallet.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Records the highest block that passed chain validation, so later validations
+ * only need to check the blocks appended after it.
+ */
+@Document("validation_checkpoints")
+public class ValidationCheckpoint {
+    public static final String LATEST_ID = "latest";
+
+    @Id
+    private String id;
+
+    private long height; // Height of the last verified block
+    private String blockHash; // Hash of the last verified block, used to detect a replaced chain
+    private Instant verifiedAt;
+
+    public ValidationCheckpoint() {}
+
+    public ValidationCheckpoint(long height, String blockHash, Instant verifiedAt) {
+        this.id = LATEST_ID;
+        this.height = height;
+        this.blockHash = blockHash;
+        this.verifiedAt = verifiedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    public Instant getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setHeight(long height) {
+        this.height = height;
+    }
+
+    public void setBlockHash(String blockHash) {
+        this.blockHash = blockHash;
+    }
+
+    public void setVerifiedAt(Instant verifiedAt) {
+        this.verifiedAt = verifiedAt;
+    }
+}
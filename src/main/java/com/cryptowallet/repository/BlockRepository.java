@@ -9,4 +9,5 @@ import java.util.Optional;
 @Repository
 public interface BlockRepository extends MongoRepository<Block, String> {
     Optional<Block> findTopByOrderByTimestampDesc();
+    Optional<Block> findByHeight(long height);
 }
@@ -0,0 +1,15 @@
+package com.cryptowallet.repository;
+
+import com.cryptowallet.model.ValidationCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ValidationCheckpointRepository extends MongoRepository<ValidationCheckpoint, String> {
+
+    default Optional<ValidationCheckpoint> findLatest() {
+        return findById(ValidationCheckpoint.LATEST_ID);
+    }
+}
@@ -2,42 +2,80 @@ package com.cryptowallet.service;
 
 import com.cryptowallet.domain.TransactionStatus;
 import com.cryptowallet.model.TransactionDocument;
-import com.cryptowallet.repository.TransactionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @Slf4j
 public class AsyncTransactionProcessor {
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private TransactionService transactionService;
 
-    @Async
-    public void processTransaction(String transactionId) {
-        log.info("Asynchronously processing transaction {}", transactionId);
-        transactionRepository.findById(transactionId).ifPresent(transaction -> {
-            if (transaction.getStatus() == TransactionStatus.PENDING) {
-                try {
-                    transaction.setStatus(TransactionStatus.PROCESSING);
-                    transactionRepository.save(transaction);
-
-                    transactionService.executeTransaction(transaction);
-
-                    transaction.setStatus(TransactionStatus.COMPLETED);
-                    transactionRepository.save(transaction);
-                    log.info("Transaction {} processed successfully", transactionId);
-                } catch (Exception e) {
-                    log.error("Failed to process transaction {}: {}", transactionId, e.getMessage());
-                    transaction.setStatus(TransactionStatus.FAILED);
-                    transactionRepository.save(transaction);
-                }
-            }
-        });
+    @Autowired
+    private TransactionLaneExecutor laneExecutor;
+
+    /**
+     * Queues a stored PENDING transaction on the execution lane of its sender and returns immediately.
+     * Transactions of the same sender are executed one at a time, in the order they were queued.
+     * @param transactionId The ID of the stored transaction.
+     * @param fromAddress The sender address, which selects the lane.
+     */
+    public void processTransaction(String transactionId, String fromAddress) {
+        laneExecutor.submit(fromAddress, () -> process(transactionId));
+    }
+
+    /**
+     * Queues the transactions of a batch on the lanes of their senders, in request order.
+     * @param transactions The stored PENDING transactions.
+     */
+    public void processTransactions(List<TransactionDocument> transactions) {
+        log.info("Queueing a batch of {} transactions for execution", transactions.size());
+        transactions.forEach(transaction -> processTransaction(transaction.getId(), transaction.getFromAddress()));
+    }
+
+    /**
+     * Claims and loads the transaction in one atomic update, so only one worker can ever execute it, then
+     * records the outcome by updating the status field alone.
+     */
+    private void process(String transactionId) {
+        log.info("Processing transaction {} on its sender lane", transactionId);
+        TransactionDocument transaction = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(transactionId).and("status").is(TransactionStatus.PENDING)),
+                new Update().set("status", TransactionStatus.PROCESSING),
+                new FindAndModifyOptions().returnNew(true),
+                TransactionDocument.class
+        );
+        if (transaction == null) {
+            log.info("Transaction {} is not pending; it was already claimed or processed", transactionId);
+            return;
+        }
+        try {
+            transactionService.executeTransaction(transaction);
+            updateStatus(transactionId, TransactionStatus.COMPLETED);
+            log.info("Transaction {} processed successfully", transactionId);
+        } catch (Exception e) {
+            log.error("Failed to process transaction {}: {}", transactionId, e.getMessage());
+            updateStatus(transactionId, TransactionStatus.FAILED);
+        }
+    }
+
+    private void updateStatus(String transactionId, TransactionStatus status) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(transactionId).and("status").is(TransactionStatus.PROCESSING)),
+                new Update().set("status", status),
+                TransactionDocument.class
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,555 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.dto.BalanceBatchMetricsDTO;
+import com.cryptowallet.exception.InsufficientBalanceException;
+import com.cryptowallet.exception.WalletNotFoundException;
+import com.cryptowallet.model.TransactionDocument;
+import com.cryptowallet.model.WalletDocument;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies the balance changes of transfers in micro-batches instead of two findAndModify calls per transfer.
+ * Transfers are collected for up to a short window or a maximum number of items, by default one per
+ * transaction lane since each lane waits on one transfer at a time, then a single flusher thread applies the
+ * batch with two round-trips:
+ * <ol>
+ *     <li>one query reads the balances of every wallet in the batch, and the transfers are checked against
+ *     them in submission order, so a debit only goes ahead if the balance left by the earlier transfers
+ *     covers it;</li>
+ *     <li>one ordered bulk write applies the accepted transfers.</li>
+ * </ol>
+ * With netting, the bulk write holds one $inc per wallet with its net change in every currency, so
+ * transfers back and forth between the same hot wallets cost one write per wallet rather than two per
+ * transfer. Each wallet whose running change goes negative at some point of the sequence is guarded by the
+ * condition that its balance covers the largest such cumulative debit, which keeps every accepted transfer
+ * covered at its place in the sequence. The guarded updates hold only the net debits and come first; every
+ * net credit follows the last guard. If a guard does not match, the debits written before it are reverted and
+ * the batch is written again transfer by transfer, so no credit is ever visible, or left behind by a crash or
+ * a failed revert, for a batch that was not applied. Once every guard has matched, the batch is covered and a
+ * credit that fails is written again rather than undone.
+ * <p>
+ * A credit that fails after its debit was written, or a revert that fails, is not undone or reported as a
+ * failed transfer: it is kept in the unsettled queue and written again by the flusher until it succeeds, so
+ * each transfer is reported as applied exactly when its debit stands. The queue is held in memory, and any
+ * update still in it at shutdown is logged for reconciliation.
+ * <p>
+ * Without netting, each transfer is a debit conditional on the sender balance followed by a credit.
+ * Conditional writes are upserts, so one whose condition does not match tries to insert a second wallet with
+ * the same address, which the unique address index rejects. The ordered bulk stops at that error and reports
+ * its index. Every operation before it was applied and none after it, so the failed transfer is known exactly
+ * and the ones after it are checked again against fresh balances.
+ */
+@Component
+@Slf4j
+public class BalanceUpdateBatcher {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long SETTLE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean configuredEnabled;
+    private final boolean netting;
+    private final int maxItems;
+    private final long windowNanos;
+
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>(); // Bounded by the waiting lane threads
+    private final Queue<WalletCredit> unsettled = new ConcurrentLinkedQueue<>(); // Written again by the flusher only
+    private volatile boolean enabled;
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder retriedTransfers = new LongAdder();
+    private final LongAdder writeOperations = new LongAdder();
+    private final LongAdder nettingFallbacks = new LongAdder();
+
+    private record PendingTransfer(TransactionDocument transaction, CompletableFuture<Void> applied) {}
+
+    /**
+     * A balance increase owed to a wallet because the other side of its transfers is already written.
+     */
+    private record WalletCredit(String address, Update update) {}
+
+    /**
+     * Outcome of a netted write.
+     */
+    private enum NettedWrite {
+        WRITTEN, // Every debit is written; credits that failed are unsettled
+        REVERTED, // A guard did not match and the debits before it were given back
+        NOT_REVERTED // A guard did not match and giving back the debits before it failed, so they are unsettled
+    }
+
+    public BalanceUpdateBatcher(MongoTemplate mongoTemplate,
+                                TransactionLaneExecutor laneExecutor,
+                                @Value("${transactions.balance-batch.enabled:true}") boolean enabled,
+                                @Value("${transactions.balance-batch.netting:true}") boolean netting,
+                                @Value("${transactions.balance-batch.max-items:0}") int maxItems,
+                                @Value("${transactions.balance-batch.window-ms:2}") long windowMs) {
+        if (maxItems < 0 || windowMs < 0) {
+            throw new IllegalArgumentException("Balance batch max-items and window-ms must not be negative.");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.configuredEnabled = enabled;
+        this.netting = netting;
+        this.maxItems = maxItems > 0 ? maxItems : laneExecutor.laneCount();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    /**
+     * Starts the flusher once the unique wallet address index that conditional debits rely on exists.
+     * Without it, balances are updated per transaction.
+     */
+    @PostConstruct
+    public void start() {
+        if (!configuredEnabled) {
+            log.info("Balance micro-batching is disabled. Balances are updated per transaction.");
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(WalletDocument.class).ensureIndex(new Index().on("address", Sort.Direction.ASC).unique());
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the unique wallet address index. Balances are updated per transaction. Error: {}", e.getMessage());
+            return;
+        }
+        enabled = true;
+        running = true;
+        flusher = new Thread(this::run, "balance-batcher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Balance micro-batching started: up to {} transfers or {} ms per batch.", maxItems,
+                TimeUnit.NANOSECONDS.toMillis(windowNanos));
+    }
+
+    /**
+     * Stops once every transfer already queued has been applied.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread current = flusher;
+        if (current != null) {
+            current.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (!unsettled.isEmpty()) {
+            log.error("Stopped with {} unsettled wallet credits. Their balances need to be reconciled: {}",
+                    unsettled.size(), unsettled.stream().map(credit -> credit.address() + " " + credit.update()).toList());
+        }
+    }
+
+    /**
+     * @return Whether transfers are applied through this batcher.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the debit and credit of a transfer and waits until the batch holding it is written.
+     * @param transaction The transfer to apply.
+     * @throws WalletNotFoundException if the sender or receiver wallet does not exist.
+     * @throws InsufficientBalanceException if the sender balance does not cover the amount.
+     */
+    public void apply(TransactionDocument transaction) {
+        PendingTransfer pending = new PendingTransfer(transaction, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            pending.applied().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<PendingTransfer> batch = new ArrayList<>(maxItems);
+        long nextSettle = System.nanoTime();
+        while (running || !queue.isEmpty()) {
+            if (!unsettled.isEmpty() && System.nanoTime() - nextSettle >= 0 && !settle()) {
+                nextSettle = System.nanoTime() + SETTLE_RETRY_NANOS;
+            }
+            try {
+                PendingTransfer first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxItems) {
+                    queue.drainTo(batch, maxItems - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxItems || remaining <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.applied().completeExceptionally(
+                        new IllegalStateException("Balance batcher was interrupted before applying the transfer.")));
+                return;
+            }
+            complete(batch);
+            batch.clear();
+        }
+        settle();
+    }
+
+    private void complete(List<PendingTransfer> batch) {
+        batches.increment();
+        transfers.add(batch.size());
+        Map<TransactionDocument, RuntimeException> failures;
+        try {
+            failures = apply(batch.stream().map(PendingTransfer::transaction).toList());
+        } catch (RuntimeException e) {
+            // A balance read or a whole bulk write failed, so none of these transfers is known to be applied
+            log.error("Failed to apply a batch of {} balance updates: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(pending -> pending.applied().completeExceptionally(e));
+            return;
+        }
+        for (PendingTransfer pending : batch) {
+            RuntimeException failure = failures.get(pending.transaction());
+            if (failure == null) {
+                pending.applied().complete(null);
+            } else {
+                pending.applied().completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Applies the balance changes of the given transfers in submission order.
+     * @return The failed transfers with the reason they failed; every other transfer was applied, though some of
+     * its credits may still be unsettled.
+     */
+    Map<TransactionDocument, RuntimeException> apply(List<TransactionDocument> transactions) {
+        Map<TransactionDocument, RuntimeException> failures = new IdentityHashMap<>();
+        List<TransactionDocument> accepted = check(transactions, failures);
+        if (netting && !accepted.isEmpty()) {
+            NettedWrite outcome = writeNetted(accepted);
+            if (outcome == NettedWrite.WRITTEN) {
+                return failures;
+            }
+            nettingFallbacks.increment();
+            if (outcome == NettedWrite.NOT_REVERTED) {
+                // Balances read now would miss the debits still to be given back, so none of these go ahead
+                accepted.forEach(transaction -> failures.put(transaction, new IllegalStateException(
+                        "Could not update the balances of transaction " + transaction.getId() + ".")));
+                return failures;
+            }
+            // A balance changed outside this batcher since it was read, so find the affected transfers one by one
+            accepted = check(accepted, failures);
+        }
+        while (!accepted.isEmpty()) {
+            BulkWriteError error = write(accepted);
+            if (error == null) {
+                break;
+            }
+            int failed = error.getIndex() / 2; // Each transfer is a debit followed by a credit
+            TransactionDocument transaction = accepted.get(failed);
+            boolean debit = error.getIndex() % 2 == 0;
+            if (debit && error.getCode() == DUPLICATE_KEY_ERROR) {
+                // The balance changed outside this batcher since it was read
+                failures.put(transaction, insufficientFunds(transaction));
+            } else if (!debit) {
+                // The debit before it is written, so the transfer stands and its credit is written again later
+                log.error("Failed to credit transaction {}: {}. The credit is kept to be written again.",
+                        transaction.getId(), error.getMessage());
+                unsettled.add(new WalletCredit(transaction.getToAddress(),
+                        new Update().inc("balances." + transaction.getCurrency(), transaction.getAmount())));
+            } else {
+                log.error("Failed to debit transaction {}: {}", transaction.getId(), error.getMessage());
+                failures.put(transaction, new IllegalStateException("Could not update the balances of transaction "
+                        + transaction.getId() + ": " + error.getMessage()));
+            }
+            List<TransactionDocument> remaining = accepted.subList(failed + 1, accepted.size());
+            retriedTransfers.add(remaining.size());
+            accepted = check(remaining, failures);
+        }
+        return failures;
+    }
+
+    /**
+     * Reads the current balances of the wallets involved and checks the transfers against them in order.
+     * @return The transfers that can be applied; the others are added to the failures.
+     */
+    private List<TransactionDocument> check(List<TransactionDocument> transactions, Map<TransactionDocument, RuntimeException> failures) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Map<String, BigDecimal>> balances = readBalances(transactions);
+        List<TransactionDocument> accepted = new ArrayList<>(transactions.size());
+        for (TransactionDocument transaction : transactions) {
+            RuntimeException rejection = debitAndCredit(transaction, balances);
+            if (rejection == null) {
+                accepted.add(transaction);
+            } else {
+                failures.put(transaction, rejection);
+            }
+        }
+        return accepted;
+    }
+
+    private Map<String, Map<String, BigDecimal>> readBalances(List<TransactionDocument> transactions) {
+        Set<String> addresses = new HashSet<>();
+        transactions.forEach(transaction -> {
+            addresses.add(transaction.getFromAddress());
+            addresses.add(transaction.getToAddress());
+        });
+        Query query = new Query(Criteria.where("address").in(addresses));
+        query.fields().include("address").include("balances");
+        roundTrips.increment();
+        Map<String, Map<String, BigDecimal>> balances = new HashMap<>();
+        for (WalletDocument wallet : mongoTemplate.find(query, WalletDocument.class)) {
+            balances.put(wallet.getAddress(), new HashMap<>(wallet.getBalances()));
+        }
+        return balances;
+    }
+
+    /**
+     * Checks a transfer against the balances left by the transfers before it and applies it to them.
+     * @return Why the transfer cannot be applied, or null if it was.
+     */
+    private static RuntimeException debitAndCredit(TransactionDocument transaction, Map<String, Map<String, BigDecimal>> balances) {
+        Map<String, BigDecimal> sender = balances.get(transaction.getFromAddress());
+        if (sender == null) {
+            return new WalletNotFoundException("Sender wallet not found: " + transaction.getFromAddress());
+        }
+        Map<String, BigDecimal> receiver = balances.get(transaction.getToAddress());
+        if (receiver == null) {
+            return new WalletNotFoundException("Receiver wallet not found: " + transaction.getToAddress());
+        }
+        BigDecimal available = sender.get(transaction.getCurrency());
+        if (available == null || available.compareTo(transaction.getAmount()) < 0) {
+            return insufficientFunds(transaction);
+        }
+        sender.put(transaction.getCurrency(), available.subtract(transaction.getAmount()));
+        receiver.merge(transaction.getCurrency(), transaction.getAmount(), BigDecimal::add);
+        return null;
+    }
+
+    /**
+     * @return The error that stopped the ordered bulk write, or null if every operation was applied.
+     */
+    private BulkWriteError write(List<TransactionDocument> transactions) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, WalletDocument.class);
+        for (TransactionDocument transaction : transactions) {
+            String balance = "balances." + transaction.getCurrency();
+            bulk.upsert(new Query(Criteria.where("address").is(transaction.getFromAddress()).and(balance).gte(transaction.getAmount())),
+                    new Update().inc(balance, transaction.getAmount().negate()));
+            bulk.updateOne(new Query(Criteria.where("address").is(transaction.getToAddress())),
+                    new Update().inc(balance, transaction.getAmount()));
+        }
+        roundTrips.increment();
+        writeOperations.add(2L * transactions.size());
+        try {
+            bulk.execute();
+            return null;
+        } catch (BulkOperationException e) {
+            return e.getErrors().get(0); // Ordered: the first error stops the write
+        }
+    }
+
+    /**
+     * Writes the net change of every wallet in the batch with one operation per guard and one per credited wallet.
+     * @return WRITTEN if every debit was written, or whether the debits written before a guard that did not match
+     * were given back.
+     */
+    private NettedWrite writeNetted(List<TransactionDocument> transactions) {
+        Map<String, WalletNet> nets = new LinkedHashMap<>();
+        for (TransactionDocument transaction : transactions) {
+            nets.computeIfAbsent(transaction.getFromAddress(), address -> new WalletNet(address))
+                    .add(transaction.getCurrency(), transaction.getAmount().negate());
+            nets.computeIfAbsent(transaction.getToAddress(), address -> new WalletNet(address))
+                    .add(transaction.getCurrency(), transaction.getAmount());
+        }
+        // Guards with their debits first, so a guard that does not match stops the write before any credit
+        List<WalletNet> guarded = nets.values().stream().filter(WalletNet::isGuarded).toList();
+        List<WalletNet> credited = nets.values().stream().filter(WalletNet::hasCredits).toList();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, WalletDocument.class);
+        for (WalletNet net : guarded) {
+            Criteria criteria = Criteria.where("address").is(net.address);
+            net.drawdown.forEach((currency, amount) -> criteria.and("balances." + currency).gte(amount));
+            bulk.upsert(new Query(criteria), net.debits(BigDecimal.ONE));
+        }
+        credited.forEach(net -> bulk.updateOne(new Query(Criteria.where("address").is(net.address)), net.credits()));
+        roundTrips.increment();
+        writeOperations.add(guarded.size() + credited.size());
+        try {
+            bulk.execute();
+            return NettedWrite.WRITTEN;
+        } catch (BulkOperationException e) {
+            BulkWriteError error = e.getErrors().get(0); // Ordered: the first error stops the write
+            int stopped = error.getIndex();
+            if (stopped >= guarded.size()) {
+                // Every transfer of the batch is covered by then, so its credits are completed rather than its debits undone
+                log.warn("Netted balance write of {} transfers stopped at the credit of wallet {}: {}. Writing the remaining credits again.",
+                        transactions.size(), credited.get(stopped - guarded.size()).address, error.getMessage());
+                credited.subList(stopped - guarded.size(), credited.size())
+                        .forEach(net -> unsettled.add(new WalletCredit(net.address, net.credits())));
+                settle();
+                return NettedWrite.WRITTEN;
+            }
+            log.warn("Netted balance write of {} transfers stopped at the guard of wallet {}: {}. Reverting {} wallet debits.",
+                    transactions.size(), guarded.get(stopped).address, error.getMessage(), stopped);
+            // Until the debits are given back, the wallets only hold less than they should, never more
+            guarded.subList(0, stopped).stream().filter(WalletNet::hasDebits)
+                    .forEach(net -> unsettled.add(new WalletCredit(net.address, net.debits(BigDecimal.ONE.negate()))));
+            return settle() ? NettedWrite.REVERTED : NettedWrite.NOT_REVERTED;
+        }
+    }
+
+    /**
+     * Writes the unsettled credits in the order they were kept, one update per wallet, so a failure leaves no
+     * doubt about which of them were written. Stops at the first one that fails and keeps it and the rest.
+     * @return Whether every unsettled credit was written.
+     */
+    boolean settle() {
+        WalletCredit credit;
+        while ((credit = unsettled.peek()) != null) {
+            roundTrips.increment();
+            writeOperations.increment();
+            try {
+                mongoTemplate.updateFirst(new Query(Criteria.where("address").is(credit.address())), credit.update(), WalletDocument.class);
+            } catch (RuntimeException e) {
+                log.error("Failed to write the unsettled credit of wallet {}: {}. {} credits are kept to be written again.",
+                        credit.address(), e.getMessage(), unsettled.size());
+                return false;
+            }
+            unsettled.poll();
+        }
+        return true;
+    }
+
+    /**
+     * Net balance change of one wallet over a batch of transfers, in sequence order.
+     */
+    private static final class WalletNet {
+        private final String address;
+        private final Map<String, BigDecimal> delta = new HashMap<>(); // Net change per currency
+        private final Map<String, BigDecimal> drawdown = new HashMap<>(); // Largest cumulative debit per currency, if any
+
+        private WalletNet(String address) {
+            this.address = address;
+        }
+
+        private void add(String currency, BigDecimal amount) {
+            BigDecimal running = delta.merge(currency, amount, BigDecimal::add);
+            if (running.signum() < 0 && running.negate().compareTo(drawdown.getOrDefault(currency, BigDecimal.ZERO)) > 0) {
+                drawdown.put(currency, running.negate());
+            }
+        }
+
+        /**
+         * @return Whether the balance has to cover a cumulative debit at some point of the sequence.
+         */
+        private boolean isGuarded() {
+            return !drawdown.isEmpty();
+        }
+
+        private boolean hasDebits() {
+            return delta.values().stream().anyMatch(amount -> amount.signum() < 0);
+        }
+
+        private boolean hasCredits() {
+            return delta.values().stream().anyMatch(amount -> amount.signum() > 0);
+        }
+
+        /**
+         * @param sign ONE to apply the net debits, or minus ONE to revert them.
+         * @return The change of every currency with a net debit, or an increment by zero of a guarded currency if
+         * there is none, so the guard is still checked.
+         */
+        private Update debits(BigDecimal sign) {
+            Update update = new Update();
+            delta.forEach((currency, amount) -> {
+                if (amount.signum() < 0) {
+                    update.inc("balances." + currency, amount.multiply(sign));
+                }
+            });
+            if (!hasDebits()) {
+                update.inc("balances." + drawdown.keySet().iterator().next(), BigDecimal.ZERO);
+            }
+            return update;
+        }
+
+        /**
+         * @return The change of every currency with a net credit.
+         */
+        private Update credits() {
+            Update update = new Update();
+            delta.forEach((currency, amount) -> {
+                if (amount.signum() > 0) {
+                    update.inc("balances." + currency, amount);
+                }
+            });
+            return update;
+        }
+    }
+
+    private static InsufficientBalanceException insufficientFunds(TransactionDocument transaction) {
+        return new InsufficientBalanceException("Insufficient funds in " + transaction.getCurrency()
+                + " for wallet " + transaction.getFromAddress());
+    }
+
+    public BalanceBatchMetricsDTO metrics() {
+        long batchCount = batches.sum();
+        long transferCount = transfers.sum();
+        long roundTripCount = roundTrips.sum();
+        return new BalanceBatchMetricsDTO(
+                enabled,
+                netting,
+                maxItems,
+                TimeUnit.NANOSECONDS.toMillis(windowNanos),
+                batchCount,
+                transferCount,
+                batchCount == 0 ? 0 : (double) transferCount / batchCount,
+                roundTripCount,
+                transferCount == 0 ? 0 : (double) roundTripCount / transferCount,
+                writeOperations.sum(),
+                retriedTransfers.sum(),
+                nettingFallbacks.sum(),
+                unsettled.size()
+        );
+    }
+}
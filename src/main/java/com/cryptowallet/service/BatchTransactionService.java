@@ -0,0 +1,231 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.dto.BatchTransactionResponseDTO;
+import com.cryptowallet.dto.BatchTransactionResultDTO;
+import com.cryptowallet.dto.SendTransactionRequestDTO;
+import com.cryptowallet.dto.TransactionDTO;
+import com.cryptowallet.exception.InvalidTransactionException;
+import com.cryptowallet.mapper.TransactionMapper;
+import com.cryptowallet.model.TransactionDocument;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts many transfers in one call.
+ * Signatures are verified, or created on the server, in parallel on a dedicated pool, since resolving a
+ * signing key can wait on the database and must not hold threads of the common pool. Duplicates are found with one query over
+ * all signatures of the batch, and the new transactions are stored with one unordered bulk insert, so an
+ * item that fails does not stop the others. Accepted transactions are then queued on the execution lanes
+ * of their senders, in request order.
+ */
+@Service
+@Slf4j
+public class BatchTransactionService {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final TransactionService transactionService;
+    private final MongoTemplate mongoTemplate;
+    private final AsyncTransactionProcessor asyncTransactionProcessor;
+    private final int maxBatchSize;
+    private final ForkJoinPool signingPool;
+
+    public BatchTransactionService(TransactionService transactionService,
+                                   MongoTemplate mongoTemplate,
+                                   AsyncTransactionProcessor asyncTransactionProcessor,
+                                   @Value("${transactions.batch.max-size:10000}") int maxBatchSize,
+                                   @Value("${transactions.batch.signing-threads:0}") int signingThreads) {
+        this.transactionService = transactionService;
+        this.mongoTemplate = mongoTemplate;
+        this.asyncTransactionProcessor = asyncTransactionProcessor;
+        this.maxBatchSize = maxBatchSize;
+        this.signingPool = new ForkJoinPool(signingThreads > 0 ? signingThreads : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("batch-signing-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signingPool.shutdown();
+    }
+
+    /**
+     * @param requests The transfers to submit.
+     * @return One result per transfer, in request order.
+     * @throws InvalidTransactionException if the batch is empty or larger than the configured maximum.
+     */
+    public BatchTransactionResponseDTO processBatch(List<SendTransactionRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidTransactionException("A batch must contain at least one transaction.");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new InvalidTransactionException("A batch may contain at most " + maxBatchSize + " transactions.");
+        }
+        log.info("Processing a batch of {} transactions", requests.size());
+
+        BatchTransactionResultDTO[] results = new BatchTransactionResultDTO[requests.size()];
+        String[] signatures = new String[requests.size()];
+        // One contiguous range of items per signing thread
+        int chunkCount = Math.min(signingPool.getParallelism(), requests.size());
+        ForkJoinTask<?>[] chunks = new ForkJoinTask<?>[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            int from = (int) ((long) requests.size() * c / chunkCount);
+            int to = (int) ((long) requests.size() * (c + 1) / chunkCount);
+            chunks[c] = signingPool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    try {
+                        SendTransactionRequestDTO request = requests.get(i);
+                        checkFields(request);
+                        signatures[i] = transactionService.resolveSignature(request);
+                    } catch (RuntimeException e) {
+                        results[i] = BatchTransactionResultDTO.rejected(i, e.getMessage());
+                    }
+                }
+            });
+        }
+        for (ForkJoinTask<?> chunk : chunks) {
+            chunk.join();
+        }
+
+        // The first item with a signature is the one stored; later ones in the batch are its duplicates
+        Map<String, Integer> firstBySignature = new LinkedHashMap<>();
+        Map<Integer, Integer> duplicateOf = new HashMap<>();
+        for (int i = 0; i < signatures.length; i++) {
+            if (results[i] == null) {
+                Integer first = firstBySignature.putIfAbsent(signatures[i], i);
+                if (first != null) {
+                    duplicateOf.put(i, first);
+                }
+            }
+        }
+
+        Map<String, TransactionDocument> existing = findBySignatures(firstBySignature.keySet());
+        List<TransactionDocument> inserts = new ArrayList<>();
+        List<Integer> insertIndexes = new ArrayList<>();
+        firstBySignature.forEach((signature, i) -> {
+            TransactionDocument stored = existing.get(signature);
+            if (stored != null) {
+                results[i] = BatchTransactionResultDTO.duplicate(i, TransactionMapper.toDTO(stored),
+                        "A transaction with this signature already exists.");
+                return;
+            }
+            SendTransactionRequestDTO request = requests.get(i);
+            TransactionDocument transaction = new TransactionDocument(request.fromAddress(), request.toAddress(),
+                    request.amount(), request.currency(), signature);
+            transaction.setId(new ObjectId().toHexString()); // Known before the insert, which does not report IDs
+            inserts.add(transaction);
+            insertIndexes.add(i);
+        });
+
+        Map<Integer, BulkWriteError> failed = insert(inserts);
+        List<TransactionDocument> accepted = new ArrayList<>(inserts.size());
+        for (int k = 0; k < inserts.size(); k++) {
+            int i = insertIndexes.get(k);
+            BulkWriteError error = failed.get(k);
+            if (error == null) {
+                results[i] = BatchTransactionResultDTO.accepted(i, TransactionMapper.toDTO(inserts.get(k)));
+                accepted.add(inserts.get(k));
+            } else if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                // Stored by a concurrent request between the lookup and the insert
+                results[i] = BatchTransactionResultDTO.duplicate(i, null, "A transaction with this signature already exists.");
+            } else {
+                results[i] = BatchTransactionResultDTO.rejected(i, "Could not store the transaction: " + error.getMessage());
+            }
+        }
+        duplicateOf.forEach((i, first) -> {
+            TransactionDTO original = results[first].transaction();
+            results[i] = BatchTransactionResultDTO.duplicate(i, original, "Duplicate of transaction " + first + " in this batch.");
+        });
+
+        if (!accepted.isEmpty()) {
+            asyncTransactionProcessor.processTransactions(accepted);
+        }
+
+        Map<BatchTransactionResultDTO.Outcome, Long> counts = Arrays.stream(results)
+                .collect(Collectors.groupingBy(BatchTransactionResultDTO::outcome, Collectors.counting()));
+        log.info("Batch of {} transactions: {} accepted, {} duplicates, {} rejected", requests.size(),
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.ACCEPTED, 0L),
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.DUPLICATE, 0L),
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.REJECTED, 0L));
+        return new BatchTransactionResponseDTO(
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.ACCEPTED, 0L).intValue(),
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.DUPLICATE, 0L).intValue(),
+                counts.getOrDefault(BatchTransactionResultDTO.Outcome.REJECTED, 0L).intValue(),
+                List.of(results)
+        );
+    }
+
+    /**
+     * Checks the constraints of SendTransactionRequestDTO per item, so one invalid transfer only rejects itself.
+     */
+    private static void checkFields(SendTransactionRequestDTO request) {
+        if (request == null) {
+            throw new InvalidTransactionException("Transaction must not be null.");
+        }
+        if (request.fromAddress() == null || request.fromAddress().isBlank()) {
+            throw new InvalidTransactionException("fromAddress must not be blank");
+        }
+        if (request.toAddress() == null || request.toAddress().isBlank()) {
+            throw new InvalidTransactionException("toAddress must not be blank");
+        }
+        if (request.amount() == null || request.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidTransactionException("Amount must be positive");
+        }
+        if (request.currency() == null || request.currency().isBlank()) {
+            throw new InvalidTransactionException("Currency must be specified");
+        }
+    }
+
+    private Map<String, TransactionDocument> findBySignatures(Iterable<String> signatures) {
+        List<String> values = new ArrayList<>();
+        signatures.forEach(values::add);
+        if (values.isEmpty()) {
+            return Map.of();
+        }
+        return mongoTemplate.find(new Query(Criteria.where("signature").in(values)), TransactionDocument.class).stream()
+                .collect(Collectors.toMap(TransactionDocument::getSignature, Function.identity()));
+    }
+
+    /**
+     * @return The write errors of the insert, keyed by the position of the failed transaction in the list.
+     */
+    private Map<Integer, BulkWriteError> insert(List<TransactionDocument> transactions) {
+        if (transactions.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class)
+                    .insert(transactions)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            // Unordered: every transaction without an error was inserted
+            return e.getErrors().stream().collect(Collectors.toMap(BulkWriteError::getIndex, Function.identity()));
+        }
+    }
+}
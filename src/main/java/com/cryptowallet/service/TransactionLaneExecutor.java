@@ -0,0 +1,187 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.dto.ExecutionLaneMetricsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Partitioned executor for transaction execution.
+ * Each sender address is hashed to one of a fixed set of lanes, and each lane runs its tasks on a single
+ * thread in submission order. Transfers from the same wallet therefore never race on its balance, while
+ * unrelated senders proceed in parallel on other lanes. Lane queues are bounded: when a lane is full,
+ * submitting blocks until it has room, so a burst slows its callers down instead of growing the heap.
+ */
+@Component
+@Slf4j
+public class TransactionLaneExecutor {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Lane[] lanes;
+    private final int queueCapacity;
+
+    public TransactionLaneExecutor(@Value("${transactions.lanes.count:0}") int laneCount,
+                                   @Value("${transactions.lanes.queue-capacity:10000}") int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Transaction lane queue capacity must be at least 1.");
+        }
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i, queueCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.start();
+        }
+        log.info("Started {} transaction execution lanes.", lanes.length);
+    }
+
+    /**
+     * Stops the lanes once every task already submitted has run.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Lane lane : lanes) {
+            lane.running = false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (Lane lane : lanes) {
+            lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        log.info("Transaction execution lanes stopped.");
+    }
+
+    /**
+     * Queues a task on the lane of the given sender, after every task submitted for that sender before it.
+     * Blocks while the lane is full.
+     * @param fromAddress The sender address the task is ordered by.
+     * @param task The task to run on the lane thread.
+     */
+    public void submit(String fromAddress, Runnable task) {
+        Lane lane = lanes[laneOf(fromAddress)];
+        try {
+            lane.queue.put(new LaneTask(task, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in transaction lane " + lane.index, e);
+        }
+        lane.submitted.increment();
+    }
+
+    /**
+     * @return The number of lanes, which is also the most transactions that run at the same time.
+     */
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * @return The lane that runs the tasks of the given sender.
+     */
+    public int laneOf(String fromAddress) {
+        return Math.floorMod(fromAddress.hashCode(), lanes.length);
+    }
+
+    public ExecutionLaneMetricsDTO metrics() {
+        List<ExecutionLaneMetricsDTO.Lane> perLane = new ArrayList<>(lanes.length);
+        long submitted = 0;
+        long executed = 0;
+        long failed = 0;
+        long waitNanos = 0;
+        long maxWaitNanos = 0;
+        int maxDepth = 0;
+        for (Lane lane : lanes) {
+            int depth = lane.queue.size();
+            long laneExecuted = lane.executed.sum();
+            long laneWaitNanos = lane.waitNanos.sum();
+            long laneMaxWaitNanos = lane.maxWaitNanos.get();
+            perLane.add(new ExecutionLaneMetricsDTO.Lane(lane.index, depth, laneExecuted, lane.failed.sum(),
+                    averageMillis(laneWaitNanos, laneExecuted), toMillis(laneMaxWaitNanos)));
+            submitted += lane.submitted.sum();
+            executed += laneExecuted;
+            failed += lane.failed.sum();
+            waitNanos += laneWaitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, laneMaxWaitNanos);
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return new ExecutionLaneMetricsDTO(lanes.length, queueCapacity, submitted, executed, failed, maxDepth,
+                averageMillis(waitNanos, executed), toMillis(maxWaitNanos), perLane);
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0 : toMillis(nanos) / count;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record LaneTask(Runnable work, long enqueuedNanos) {}
+
+    private static final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<LaneTask> queue;
+        private final Thread thread;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder(); // Time tasks spent queued before they started
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private volatile boolean running;
+
+        private Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "transaction-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            running = true;
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                LaneTask task;
+                try {
+                    task = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                long waited = System.nanoTime() - task.enqueuedNanos();
+                waitNanos.add(waited);
+                maxWaitNanos.accumulate(waited);
+                try {
+                    task.work().run();
+                } catch (RuntimeException e) {
+                    // The lane must outlive a failing task, or every later transaction of its senders would stall
+                    failed.increment();
+                    log.error("Task on transaction lane {} failed: {}", index, e.getMessage(), e);
+                }
+                executed.increment();
+            }
+        }
+    }
+}
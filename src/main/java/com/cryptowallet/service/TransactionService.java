@@ -1,6 +1,7 @@
 package com.cryptowallet.service;
 
-import com.cryptowallet.blockchain.BlockChain;
+import com.cryptowallet.blockchain.mempool.BlockSealer;
+import com.cryptowallet.blockchain.state.StateTree;
 import com.cryptowallet.crypto.CryptoFacade;
 import com.cryptowallet.dto.SendTransactionRequestDTO;
 import com.cryptowallet.dto.TransactionDTO;
@@ -26,9 +27,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -40,11 +38,10 @@ public class TransactionService {
     private final CryptoFacade cryptoFacade;
     private final MongoTemplate mongoTemplate;
     private final ApplicationEventPublisher eventPublisher;
-    private final BlockChain blockChain;
     private final AsyncTransactionProcessor asyncTransactionProcessor;
-
-    private final List<String> pendingTransactionIdsForBlock;
-    private static final int BLOCK_SIZE_THRESHOLD = 8;
+    private final BlockSealer blockSealer; // Pools executed transactions and cuts them into blocks
+    private final BalanceUpdateBatcher balanceUpdateBatcher;
+    private final StateTree stateTree;
 
     @Autowired
     public TransactionService(WalletRepository walletRepository,
@@ -52,35 +49,26 @@ public class TransactionService {
                               CryptoFacade cryptoFacade,
                               MongoTemplate mongoTemplate,
                               ApplicationEventPublisher eventPublisher,
-                              BlockChain blockChain, AsyncTransactionProcessor asyncTransactionProcessor) {
+                              AsyncTransactionProcessor asyncTransactionProcessor,
+                              BlockSealer blockSealer,
+                              BalanceUpdateBatcher balanceUpdateBatcher,
+                              StateTree stateTree) {
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
         this.cryptoFacade = cryptoFacade;
         this.mongoTemplate = mongoTemplate;
         this.eventPublisher = eventPublisher;
-        this.blockChain = blockChain;
         this.asyncTransactionProcessor = asyncTransactionProcessor;
-        this.pendingTransactionIdsForBlock = Collections.synchronizedList(new ArrayList<>());
+        this.blockSealer = blockSealer;
+        this.balanceUpdateBatcher = balanceUpdateBatcher;
+        this.stateTree = stateTree;
     }
 
     @Transactional
     public TransactionDTO processTransaction(SendTransactionRequestDTO dto) {
         log.info("Processing transaction from {} to {} amount={} {}", dto.fromAddress(), dto.toAddress(), dto.amount(), dto.currency());
 
-        final String finalSignature;
-
-        if (dto.signature() != null && !dto.signature().isBlank() && !"BYPASS_SIGNATURE_FOR_TESTING_BYPASS".equals(dto.signature())) {
-            log.info("Verifying client-provided signature...");
-            if (!cryptoFacade.verifySignature(dto.toSignableString(), dto.signature(), dto.fromAddress())) {
-                throw new InvalidTransactionException("Transaction signature is invalid.");
-            }
-            finalSignature = dto.signature();
-        } else {
-            log.info("Client signature not provided. Proceeding with server-side signing...");
-            // The service no longer handles private keys. It just passes the identifier (address).
-            finalSignature = cryptoFacade.signData(dto.toSignableString(), dto.fromAddress());
-            log.info("Server-side signature generated: {}", finalSignature);
-        }
+        final String finalSignature = resolveSignature(dto);
 
         Optional<TransactionDocument> existingTransaction = transactionRepository.findBySignature(finalSignature);
         if (existingTransaction.isPresent()) {
@@ -100,7 +88,7 @@ public class TransactionService {
             TransactionDocument saved = transactionRepository.save(transaction);
             log.info("Transaction saved with PENDING status, ID: {}", saved.getId());
 
-            asyncTransactionProcessor.processTransaction(saved.getId());
+            asyncTransactionProcessor.processTransaction(saved.getId(), saved.getFromAddress());
 
             return TransactionMapper.toDTO(saved);
         } catch (DuplicateKeyException e) {
@@ -112,34 +100,43 @@ public class TransactionService {
         }
     }
 
-    public void executeTransaction(TransactionDocument transaction) {
-        updateSenderBalance(transaction.getFromAddress(), transaction.getCurrency(), transaction.getAmount());
-        updateReceiverBalance(transaction.getToAddress(), transaction.getCurrency(), transaction.getAmount());
-
-        eventPublisher.publishEvent(new TransactionCreatedEvent(this, TransactionMapper.toDTO(transaction)));
-        log.info("Published TransactionCreatedEvent for transaction ID: {}", transaction.getId());
-
-        addTransactionToPendingBlock(transaction.getId());
+    /**
+     * Verifies the client-provided signature of a transfer, or signs it on the server if none was provided.
+     * @return The signature the transaction is stored with.
+     * @throws InvalidTransactionException if the client-provided signature is invalid.
+     */
+    public String resolveSignature(SendTransactionRequestDTO dto) {
+        if (dto.signature() != null && !dto.signature().isBlank() && !"BYPASS_SIGNATURE_FOR_TESTING_BYPASS".equals(dto.signature())) {
+            log.info("Verifying client-provided signature...");
+            if (!cryptoFacade.verifySignature(dto.toSignableString(), dto.signature(), dto.fromAddress())) {
+                throw new InvalidTransactionException("Transaction signature is invalid.");
+            }
+            return dto.signature();
+        }
+        log.info("Client signature not provided. Proceeding with server-side signing...");
+        // The service no longer handles private keys. It just passes the identifier (address).
+        String signature = cryptoFacade.signData(dto.toSignableString(), dto.fromAddress());
+        log.info("Server-side signature generated: {}", signature);
+        return signature;
     }
 
-    private void addTransactionToPendingBlock(String transactionId) {
-        synchronized (pendingTransactionIdsForBlock) {
-            pendingTransactionIdsForBlock.add(transactionId);
-            log.debug("Added transaction {} to pending block list. Current size: {}", transactionId, pendingTransactionIdsForBlock.size());
-
-            if(pendingTransactionIdsForBlock.size() >= BLOCK_SIZE_THRESHOLD) {
-                log.info("Pending transactions reached threshold ({}). Creating a new block...", BLOCK_SIZE_THRESHOLD);
-                List<String> txIdsForBlock = new ArrayList<>(pendingTransactionIdsForBlock);
-                pendingTransactionIdsForBlock.clear();
-
-                try {
-                    blockChain.addBlock(txIdsForBlock);
-                    log.info("Successfully created a new block with {} transactions.", txIdsForBlock.size());
-                } catch (Exception e) {
-                    log.error("Failed to create a new block for transactions: {}. Error: {}", txIdsForBlock, e.getMessage());
-                }
+    public void executeTransaction(TransactionDocument transaction) {
+        stateTree.beginBalanceChange(); // Until the event marks both balances, a crash must rebuild the state tree
+        try {
+            if (balanceUpdateBatcher.isEnabled()) {
+                balanceUpdateBatcher.apply(transaction); // Returns once the micro-batch holding the transfer is written
+            } else {
+                updateSenderBalance(transaction.getFromAddress(), transaction.getCurrency(), transaction.getAmount());
+                updateReceiverBalance(transaction.getToAddress(), transaction.getCurrency(), transaction.getAmount());
             }
+
+            eventPublisher.publishEvent(new TransactionCreatedEvent(this, TransactionMapper.toDTO(transaction)));
+            log.info("Published TransactionCreatedEvent for transaction ID: {}", transaction.getId());
+        } finally {
+            stateTree.endBalanceChange();
         }
+
+        blockSealer.add(transaction.getId());
     }
 
     private void updateSenderBalance(String fromAddress, String currency, BigDecimal amount) {
@@ -1,9 +1,11 @@
 package com.cryptowallet.service;
 
+import com.cryptowallet.blockchain.state.StateTree;
 import com.cryptowallet.crypto.CryptoFacade;
 import com.cryptowallet.crypto.EncodedKeyPair;
 import com.cryptowallet.dto.WalletDTO;
 import com.cryptowallet.dto.CreateWalletRequestDTO;
+import com.cryptowallet.event.WalletCreatedEvent;
 import com.cryptowallet.exception.WalletNotFoundException;
 import com.cryptowallet.mapper.WalletMapper;
 import com.cryptowallet.model.SecretStorageDocument;
@@ -22,13 +24,15 @@ public class WalletService {
     private final SecretStorageRepository secretStorageRepository;
     private final CryptoFacade cryptoFacade; // Reverted back to using the facade
     private final ApplicationEventPublisher eventPublisher;
+    private final StateTree stateTree;
 
 
-    public WalletService(WalletRepository walletRepository, SecretStorageRepository secretStorageRepository, CryptoFacade cryptoFacade, ApplicationEventPublisher eventPublisher) {
+    public WalletService(WalletRepository walletRepository, SecretStorageRepository secretStorageRepository, CryptoFacade cryptoFacade, ApplicationEventPublisher eventPublisher, StateTree stateTree) {
         this.walletRepository = walletRepository;
         this.secretStorageRepository = secretStorageRepository;
         this.cryptoFacade = cryptoFacade;
         this.eventPublisher = eventPublisher;
+        this.stateTree = stateTree;
     }
 
     @Transactional
@@ -47,15 +51,22 @@ public class WalletService {
                 dto.userId(),
                 publicKey // The public key is the address
         );
-        WalletDocument savedWallet = walletRepository.save(wallet);
+        stateTree.beginBalanceChange(); // The opening balances are written before the event marks them
+        try {
+            WalletDocument savedWallet = walletRepository.save(wallet);
 
-        // 2. Create and save the secret document separately
-        SecretStorageDocument secret = new SecretStorageDocument(publicKey, encryptedPrivateKey);
-        secretStorageRepository.save(secret);
+            // 2. Create and save the secret document separately
+            SecretStorageDocument secret = new SecretStorageDocument(publicKey, encryptedPrivateKey);
+            secretStorageRepository.save(secret);
 
-        log.info("Wallet created with ID={} and address={}. Private key stored separately.", savedWallet.getId(), savedWallet.getAddress());
+            log.info("Wallet created with ID={} and address={}. Private key stored separately.", savedWallet.getId(), savedWallet.getAddress());
 
-        return WalletMapper.toDTO(savedWallet);
+            WalletDTO created = WalletMapper.toDTO(savedWallet);
+            eventPublisher.publishEvent(new WalletCreatedEvent(this, created)); // Opening balances enter the state tree
+            return created;
+        } finally {
+            stateTree.endBalanceChange();
+        }
     }
 
     public WalletDTO getWalletById(String walletId) {
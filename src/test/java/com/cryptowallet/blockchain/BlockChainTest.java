@@ -0,0 +1,219 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.bloom.TransactionLocator;
+import com.cryptowallet.blockchain.mmr.ChainMmr;
+import com.cryptowallet.blockchain.state.StateTree;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.merkle.MerkleEngines;
+import com.cryptowallet.model.Block;
+import com.cryptowallet.model.ValidationCheckpoint;
+import com.cryptowallet.repository.ValidationCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockChainTest {
+
+    @Mock
+    private ChainStore chainStore;
+
+    @Mock
+    private BlockStore blockStore;
+
+    @Mock
+    private MerkleEngines merkleEngines;
+
+    @Mock
+    private TransactionLeafLoader transactionLeafLoader;
+
+    @Mock
+    private ChainValidator chainValidator;
+
+    @Mock
+    private ValidationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ChainSnapshotService snapshotService;
+
+    @Mock
+    private ChainMmr chainMmr;
+
+    @Mock
+    private StateTree stateTree;
+
+    @Mock
+    private TransactionLocator transactionLocator;
+
+    @InjectMocks
+    private BlockChain blockChain;
+
+    private static Block block(long height, String previousHash) {
+        Block block = new Block(height, List.of("tx-" + height), "root-" + height, previousHash);
+        block.setId("block-" + height);
+        return block;
+    }
+
+    private static BlockHeader header(long height) {
+        return new BlockHeader("block-" + height, height, "hash-" + height, "hash-" + (height - 1), "root-" + height, Instant.now());
+    }
+
+    private static ChainValidationReport validReport() {
+        return new ChainValidationReport(true, null, null, null, 5, 0, List.of());
+    }
+
+    private static ChainValidationReport invalidReport(long firstInvalidHeight) {
+        return new ChainValidationReport(false, firstInvalidHeight, ValidationFailure.INVALID_BLOCK_HASH, "tampered", 5, 0, List.of());
+    }
+
+    // A loaded chain of heights 0..9 whose persisted checkpoint sits at height 4 with the given hash
+    private void loadChainWithCheckpoint(String checkpointHash) {
+        when(chainStore.size()).thenReturn(10L);
+        when(chainStore.getHeader(anyLong())).thenAnswer(invocation -> header(invocation.getArgument(0)));
+        when(checkpointRepository.findLatest()).thenReturn(Optional.of(new ValidationCheckpoint(4, checkpointHash, Instant.now())));
+    }
+
+    private ValidationCheckpoint savedCheckpoint() {
+        ArgumentCaptor<ValidationCheckpoint> saved = ArgumentCaptor.forClass(ValidationCheckpoint.class);
+        verify(checkpointRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private void startFromSnapshotWithCheckpoint(ValidationCheckpoint checkpoint) {
+        when(snapshotService.load()).thenReturn(Optional.of(new ChainSnapshot(List.of(), checkpoint)));
+        when(chainStore.isEmpty()).thenReturn(true);
+    }
+
+    @Test
+    void init_shouldAdoptASnapshotCheckpointThatMatchesAStoredBlock() {
+        // Arrange
+        Block stored = block(3, "previous");
+        ValidationCheckpoint checkpoint = new ValidationCheckpoint(3, stored.getCurrentBlockHash(), Instant.now());
+        startFromSnapshotWithCheckpoint(checkpoint);
+        when(blockStore.findByHeight(3)).thenReturn(Optional.of(stored));
+
+        // Act
+        blockChain.init();
+
+        // Assert
+        verify(checkpointRepository).save(checkpoint);
+    }
+
+    @Test
+    void init_shouldIgnoreASnapshotCheckpointWithoutAMatchingStoredBlock() {
+        // Arrange
+        ValidationCheckpoint checkpoint = new ValidationCheckpoint(3, "hash-of-another-chain", Instant.now());
+        startFromSnapshotWithCheckpoint(checkpoint);
+        when(blockStore.findByHeight(3)).thenReturn(Optional.of(block(3, "previous")));
+
+        // Act
+        blockChain.init();
+
+        // Assert
+        verify(checkpointRepository, never()).save(any(ValidationCheckpoint.class));
+    }
+
+    @Test
+    void validateIncremental_shouldValidateFromTheCheckpointAndAdvanceItToTheTip() {
+        // Arrange
+        loadChainWithCheckpoint("hash-4");
+        when(chainValidator.validate(chainStore, 5, 10)).thenReturn(validReport());
+
+        // Act
+        ChainValidationReport report = blockChain.validateIncremental();
+
+        // Assert
+        assertThat(report.valid()).isTrue();
+        ValidationCheckpoint checkpoint = savedCheckpoint();
+        assertThat(checkpoint.getHeight()).isEqualTo(9);
+        assertThat(checkpoint.getBlockHash()).isEqualTo("hash-9");
+    }
+
+    @Test
+    void validateIncremental_shouldFallBackToHeightOneWhenTheCheckpointHashNoLongerMatches() {
+        // Arrange
+        loadChainWithCheckpoint("hash-of-a-replaced-block");
+        when(chainValidator.validate(chainStore, 1, 10)).thenReturn(validReport());
+
+        // Act
+        blockChain.validateIncremental();
+
+        // Assert
+        verify(chainValidator).validate(chainStore, 1, 10);
+        assertThat(savedCheckpoint().getHeight()).isEqualTo(9);
+    }
+
+    @Test
+    void validateIncremental_shouldFallBackToHeightOneWhenTheCheckpointIsBeyondTheChain() {
+        // Arrange
+        when(chainStore.size()).thenReturn(3L);
+        when(checkpointRepository.findLatest()).thenReturn(Optional.of(new ValidationCheckpoint(4, "hash-4", Instant.now())));
+        when(chainValidator.validate(chainStore, 1, 3)).thenReturn(validReport());
+        when(chainStore.getHeader(2)).thenReturn(header(2));
+
+        // Act
+        blockChain.validateIncremental();
+
+        // Assert
+        verify(chainValidator).validate(chainStore, 1, 3);
+        assertThat(savedCheckpoint().getHeight()).isEqualTo(2);
+    }
+
+    @Test
+    void validateIncremental_shouldKeepTheCheckpointWhenTheFirstNewBlockFails() {
+        // Arrange
+        loadChainWithCheckpoint("hash-4");
+        when(chainValidator.validate(chainStore, 5, 10)).thenReturn(invalidReport(5));
+
+        // Act
+        ChainValidationReport report = blockChain.validateIncremental();
+
+        // Assert
+        assertThat(report.valid()).isFalse();
+        verify(checkpointRepository, never()).save(any(ValidationCheckpoint.class));
+    }
+
+    @Test
+    void validateIncremental_shouldStopTheCheckpointBeforeABlockThatFailsPartway() {
+        // Arrange
+        loadChainWithCheckpoint("hash-4");
+        when(chainValidator.validate(chainStore, 5, 10)).thenReturn(invalidReport(7));
+
+        // Act
+        blockChain.validateIncremental();
+
+        // Assert
+        ValidationCheckpoint checkpoint = savedCheckpoint();
+        assertThat(checkpoint.getHeight()).isEqualTo(6);
+        assertThat(checkpoint.getBlockHash()).isEqualTo("hash-6");
+    }
+
+    @Test
+    void validate_shouldResetTheCheckpointBelowAFailureEvenWhenItMovesBackwards() {
+        // Arrange
+        when(chainStore.size()).thenReturn(10L);
+        when(chainStore.getHeader(2)).thenReturn(header(2));
+        when(chainValidator.validate(chainStore, 1, 10)).thenReturn(invalidReport(3));
+
+        // Act
+        blockChain.validate();
+
+        // Assert
+        verify(checkpointRepository, never()).findLatest();
+        assertThat(savedCheckpoint().getHeight()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,107 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.mempool.Mempool;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockSequencerTest {
+
+    @Mock
+    private BlockChain blockChain;
+
+    @Mock
+    private TransactionBlockIndex transactionBlockIndex;
+
+    @Mock
+    private Mempool mempool;
+
+    @Test
+    void submit_shouldWriteBatchesInOrderOnTheSequencerThread() throws InterruptedException {
+        // Arrange
+        BlockSequencer sequencer = new BlockSequencer(blockChain, transactionBlockIndex, mempool);
+        sequencer.start();
+
+        // Act
+        sequencer.submit(List.of("tx-1", "tx-2"));
+        sequencer.submit(List.of("tx-3"));
+        sequencer.stop(); // Drains everything submitted before returning
+
+        // Assert
+        InOrder inOrder = inOrder(blockChain);
+        inOrder.verify(blockChain).addBlock(List.of("tx-1", "tx-2"));
+        inOrder.verify(blockChain).addBlock(List.of("tx-3"));
+        assertThat(sequencer.pendingBatches()).isZero();
+    }
+
+    @Test
+    void submit_shouldWriteAFailedBlockAgainBeforeTheNextBatch() throws InterruptedException {
+        // Arrange
+        when(blockChain.addBlock(List.of("tx-retried")))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(new Block(0L, List.of("tx-retried"), "root", "GENESIS"));
+        BlockSequencer sequencer = new BlockSequencer(blockChain, transactionBlockIndex, mempool);
+        sequencer.start();
+
+        // Act
+        sequencer.submit(List.of("tx-retried"));
+        sequencer.submit(List.of("tx-next"));
+        verify(mempool, timeout(5000)).commit(List.of("tx-next"));
+        sequencer.stop();
+
+        // Assert
+        InOrder inOrder = inOrder(blockChain, mempool);
+        inOrder.verify(blockChain, times(2)).addBlock(List.of("tx-retried"));
+        inOrder.verify(mempool).commit(List.of("tx-retried"));
+        inOrder.verify(blockChain).addBlock(List.of("tx-next"));
+        assertThat(sequencer.pendingBatches()).isZero();
+    }
+
+    @Test
+    void stop_shouldLeaveABlockThatKeepsFailingUncommitted() throws InterruptedException {
+        // Arrange
+        when(blockChain.addBlock(List.of("tx-bad"))).thenThrow(new IllegalStateException("boom"));
+        BlockSequencer sequencer = new BlockSequencer(blockChain, transactionBlockIndex, mempool);
+        sequencer.start();
+
+        // Act
+        sequencer.submit(List.of("tx-bad"));
+        verify(blockChain, timeout(5000)).addBlock(List.of("tx-bad"));
+        sequencer.stop();
+
+        // Assert
+        verify(mempool, never()).commit(anyList()); // Replayed on the next start
+        assertThat(sequencer.pendingBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_shouldIndexTheTransactionsOfEachWrittenBlock() throws InterruptedException {
+        // Arrange
+        Block block = new Block(0L, List.of("tx-1"), "root", "GENESIS");
+        when(blockChain.addBlock(List.of("tx-1"))).thenReturn(block);
+        doThrow(new IllegalStateException("index down")).when(transactionBlockIndex).record(block);
+        BlockSequencer sequencer = new BlockSequencer(blockChain, transactionBlockIndex, mempool);
+        sequencer.start();
+
+        // Act
+        sequencer.submit(List.of("tx-1"));
+        sequencer.submit(List.of("tx-2"));
+        sequencer.stop();
+
+        // Assert
+        verify(transactionBlockIndex).record(block);
+        verify(blockChain).addBlock(List.of("tx-2")); // A failed index update does not stop the sequencer
+        verify(mempool).commit(List.of("tx-1"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.model.ValidationCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ChainSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeTo_shouldRoundTripHeadersAndCheckpoint() throws IOException {
+        // Arrange: enough headers to span several write buffers
+        List<BlockHeader> headers = new ArrayList<>();
+        for (int height = 0; height < 5_000; height++) {
+            headers.add(new BlockHeader("block-" + height, height, "hash-" + height,
+                    height == 0 ? null : "hash-" + (height - 1), "root-" + height, Instant.ofEpochSecond(1_700_000_000L + height, 123)));
+        }
+        ValidationCheckpoint checkpoint = new ValidationCheckpoint(4_000, "hash-4000", Instant.ofEpochSecond(1_800_000_000L, 5));
+        Path path = directory.resolve("chain.snapshot");
+
+        // Act
+        new ChainSnapshot(headers, checkpoint).writeTo(path);
+        ChainSnapshot read = ChainSnapshot.readFrom(path);
+
+        // Assert
+        assertThat(read.headers()).isEqualTo(headers);
+        assertThat(read.checkpoint().getHeight()).isEqualTo(4_000);
+        assertThat(read.checkpoint().getBlockHash()).isEqualTo("hash-4000");
+        assertThat(read.checkpoint().getVerifiedAt()).isEqualTo(checkpoint.getVerifiedAt());
+    }
+
+    @Test
+    void writeTo_shouldRoundTripSnapshotWithoutCheckpoint() throws IOException {
+        // Arrange
+        List<BlockHeader> headers = List.of(new BlockHeader("block-0", 0, "hash-0", "GENESIS", "root-0", Instant.EPOCH));
+        Path path = directory.resolve("chain.snapshot");
+
+        // Act
+        new ChainSnapshot(headers, null).writeTo(path);
+        ChainSnapshot read = ChainSnapshot.readFrom(path);
+
+        // Assert
+        assertThat(read.headers()).isEqualTo(headers);
+        assertThat(read.checkpoint()).isNull();
+    }
+
+    @Test
+    void readFrom_shouldRejectCorruptedSnapshot() throws IOException {
+        // Arrange
+        List<BlockHeader> headers = List.of(new BlockHeader("block-0", 0, "hash-0", "GENESIS", "root-0", Instant.EPOCH));
+        Path path = directory.resolve("chain.snapshot");
+        new ChainSnapshot(headers, null).writeTo(path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[30] ^= 0x01;
+        Files.write(path, bytes);
+
+        // Act & Assert
+        assertThatThrownBy(() -> ChainSnapshot.readFrom(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+}
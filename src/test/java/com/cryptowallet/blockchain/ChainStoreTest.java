@@ -0,0 +1,184 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChainStoreTest {
+
+    @Mock
+    private BlockStore blockStore;
+
+    private ChainStore chainStore;
+    private final List<Block> blocks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        chainStore = new ChainStore(blockStore, 2, 1);
+        String previousHash = "GENESIS";
+        for (int height = 0; height < 5; height++) {
+            Block block = new Block((long) height, List.of("tx-" + height), "root-" + height, previousHash);
+            block.setId("block-" + height);
+            blocks.add(block);
+            chainStore.append(block);
+            previousHash = block.getCurrentBlockHash();
+        }
+    }
+
+    @Test
+    void append_shouldKeepOnlyNewestBlocksAndAllHeaders() {
+        assertThat(chainStore.size()).isEqualTo(5);
+        assertThat(chainStore.getLatestBlock()).isSameAs(blocks.get(4));
+        assertThat(chainStore.getHeader(0).currentBlockHash()).isEqualTo(blocks.get(0).getCurrentBlockHash());
+
+        // Blocks inside the window never hit the database
+        assertThat(chainStore.getBlock(3)).isSameAs(blocks.get(3));
+        verifyNoInteractions(blockStore);
+    }
+
+    @Test
+    void findHeight_shouldResolveBlockHashToHeight() {
+        assertThat(chainStore.findHeight(blocks.get(2).getCurrentBlockHash())).contains(2L);
+        assertThat(chainStore.findHeight("unknown")).isEmpty();
+    }
+
+    @Test
+    void append_shouldRejectBlockThatDoesNotExtendTheTip() {
+        Block stray = new Block(7L, List.of("tx-7"), "root-7", blocks.get(4).getCurrentBlockHash());
+        assertThatThrownBy(() -> chainStore.append(stray)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getBlock_shouldLoadOlderBodiesLazilyThroughLruCache() {
+        when(blockStore.findByHeight(0)).thenReturn(Optional.of(blocks.get(0)));
+        when(blockStore.findByHeight(1)).thenReturn(Optional.of(blocks.get(1)));
+
+        chainStore.getBlock(0);
+        chainStore.getBlock(0); // Served from cache
+        chainStore.getBlock(1); // Evicts height 0 (cache size 1)
+        chainStore.getBlock(0);
+
+        verify(blockStore, times(2)).findByHeight(0);
+        verify(blockStore, times(1)).findByHeight(1);
+    }
+
+    @Test
+    void read_shouldLoadMissingBodiesInOneStoreRead() {
+        when(blockStore.read(1, 3)).thenReturn(List.of(blocks.get(1), blocks.get(2)));
+
+        List<Block> range = chainStore.read(1, 5);
+
+        assertThat(range).containsExactly(blocks.get(1), blocks.get(2), blocks.get(3), blocks.get(4));
+        verify(blockStore).read(1, 3);
+    }
+
+    @Test
+    void load_shouldStartFromSnapshotAndCatchUpOnNewerBlocks() {
+        // Arrange: a snapshot of the first 3 headers, with 2 newer blocks in the store
+        ChainSnapshot snapshot = new ChainSnapshot(chainStore.headers().subList(0, 3), null);
+        ChainStore restarted = new ChainStore(blockStore, 2, 1);
+        when(blockStore.findByHeight(anyLong())).thenAnswer(invocation -> Optional.of(blocks.get(invocation.<Long>getArgument(0).intValue())));
+        doAnswer(invocation -> {
+            Consumer<Block> consumer = invocation.getArgument(1);
+            consumer.accept(blocks.get(3));
+            consumer.accept(blocks.get(4));
+            return null;
+        }).when(blockStore).forEachHeader(eq(3L), any());
+        when(blockStore.read(3, 5)).thenReturn(List.of(blocks.get(3), blocks.get(4)));
+
+        // Act
+        restarted.load(snapshot);
+
+        // Assert
+        assertThat(restarted.size()).isEqualTo(5);
+        assertThat(restarted.headers()).isEqualTo(chainStore.headers());
+        assertThat(restarted.getLatestBlock()).isSameAs(blocks.get(4));
+        verify(blockStore, never()).forEachHeader(eq(0L), any());
+    }
+
+    @Test
+    void load_shouldIgnoreSnapshotThatDoesNotMatchBlockStore() {
+        // Arrange
+        ChainSnapshot snapshot = new ChainSnapshot(chainStore.headers().subList(0, 3), null);
+        ChainStore restarted = new ChainStore(blockStore, 2, 1);
+        Block replaced = new Block(2L, List.of("other-tx"), "other-root", blocks.get(1).getCurrentBlockHash());
+        when(blockStore.findByHeight(anyLong())).thenAnswer(invocation -> {
+            long height = invocation.getArgument(0);
+            return Optional.of(height == 2 ? replaced : blocks.get((int) height));
+        });
+        doAnswer(invocation -> {
+            Consumer<Block> consumer = invocation.getArgument(1);
+            blocks.forEach(consumer);
+            return null;
+        }).when(blockStore).forEachHeader(eq(0L), any());
+        when(blockStore.read(3, 5)).thenReturn(List.of(blocks.get(3), blocks.get(4)));
+
+        // Act
+        restarted.load(snapshot);
+
+        // Assert
+        assertThat(restarted.size()).isEqualTo(5);
+        verify(blockStore).forEachHeader(eq(0L), any());
+    }
+
+    @Test
+    void load_shouldIgnoreSnapshotWithAnIntermediateHeaderThatDoesNotMatchBlockStore() {
+        // Arrange: the tip matches the store, but the block below it was replaced
+        ChainSnapshot snapshot = new ChainSnapshot(chainStore.headers().subList(0, 3), null);
+        ChainStore restarted = new ChainStore(blockStore, 2, 1);
+        Block replaced = new Block(1L, List.of("other-tx"), "other-root", blocks.get(0).getCurrentBlockHash());
+        when(blockStore.findByHeight(anyLong())).thenAnswer(invocation -> {
+            long height = invocation.getArgument(0);
+            return Optional.of(height == 1 ? replaced : blocks.get((int) height));
+        });
+        doAnswer(invocation -> {
+            Consumer<Block> consumer = invocation.getArgument(1);
+            blocks.forEach(consumer);
+            return null;
+        }).when(blockStore).forEachHeader(eq(0L), any());
+        when(blockStore.read(3, 5)).thenReturn(List.of(blocks.get(3), blocks.get(4)));
+
+        // Act
+        restarted.load(snapshot);
+
+        // Assert
+        verify(blockStore).forEachHeader(eq(0L), any());
+        verify(blockStore, never()).forEachHeader(eq(3L), any());
+    }
+
+    @Test
+    void load_shouldIgnoreSnapshotWhoseHeadersDoNotLink() {
+        // Arrange
+        List<BlockHeader> headers = new ArrayList<>(chainStore.headers().subList(0, 3));
+        BlockHeader middle = headers.get(1);
+        headers.set(1, new BlockHeader(middle.id(), 1, middle.currentBlockHash(), "forged", middle.merkleRoot(), middle.timestamp()));
+        ChainStore restarted = new ChainStore(blockStore, 2, 1);
+        doAnswer(invocation -> {
+            Consumer<Block> consumer = invocation.getArgument(1);
+            blocks.forEach(consumer);
+            return null;
+        }).when(blockStore).forEachHeader(eq(0L), any());
+        when(blockStore.read(3, 5)).thenReturn(List.of(blocks.get(3), blocks.get(4)));
+
+        // Act
+        restarted.load(new ChainSnapshot(headers, null));
+
+        // Assert
+        assertThat(restarted.headers()).isEqualTo(chainStore.headers());
+        verify(blockStore, never()).findByHeight(anyLong()); // Rejected before reading the store
+    }
+}
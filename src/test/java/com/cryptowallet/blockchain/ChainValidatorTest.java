@@ -0,0 +1,204 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.exception.MissingTransactionsException;
+import com.cryptowallet.merkle.ByteArrayMerkleEngine;
+import com.cryptowallet.merkle.CompositeMerkleEngine;
+import com.cryptowallet.merkle.MerkleEngine;
+import com.cryptowallet.merkle.MerkleEngines;
+import com.cryptowallet.merkle.MerkleFormat;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class ChainValidatorTest {
+
+    @Mock
+    private TransactionLeafLoader transactionLeafLoader;
+
+    private static final MerkleEngines MERKLE_ENGINES =
+            new MerkleEngines(List.of(new CompositeMerkleEngine(), new ByteArrayMerkleEngine()), MerkleFormat.BINARY);
+
+    private ChainValidator chainValidator;
+
+    @BeforeEach
+    void setUp() {
+        // Signatures are derived from the IDs so every block's Merkle root can be rebuilt
+        lenient().when(transactionLeafLoader.loadSignatures(anyList())).thenAnswer(i -> {
+            List<String> ids = i.getArgument(0);
+            return ids.stream().map(id -> "sig-" + id).toList();
+        });
+        chainValidator = new ChainValidator(transactionLeafLoader, MERKLE_ENGINES, 4, 3, 100_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chainValidator.shutdown();
+    }
+
+    private static List<Block> buildChain(int length) {
+        return buildChain(length, true);
+    }
+
+    private static List<Block> buildChain(int length, boolean binaryHeaders) {
+        List<Block> chain = new ArrayList<>();
+        String previousHash = "GENESIS";
+        for (int height = 0; height < length; height++) {
+            List<String> ids = List.of("tx-" + height + "-a", "tx-" + height + "-b", "tx-" + height + "-c");
+            // Blocks with binary headers use the binary Merkle format, as new blocks do; legacy blocks the composite one
+            MerkleEngine engine = MERKLE_ENGINES.forFormat(binaryHeaders ? MerkleFormat.BINARY : MerkleFormat.COMPOSITE);
+            String merkleRoot = engine.computeRoot(ids.stream().map(id -> "sig-" + id).toList());
+            Block block;
+            if (binaryHeaders) {
+                block = new Block((long) height, ids, merkleRoot, previousHash);
+                block.setMerkleFormat(engine.format().code());
+            } else {
+                block = new Block(ids, merkleRoot, previousHash);
+            }
+            block.setId("block-" + height);
+            chain.add(block);
+            previousHash = block.getCurrentBlockHash();
+        }
+        return chain;
+    }
+
+    @Test
+    void validate_shouldReportValidChainWithOneReportPerSegment() {
+        // Act
+        ChainValidationReport report = chainValidator.validate(buildChain(11));
+
+        // Assert: heights 1..10 in segments of 3
+        assertThat(report.valid()).isTrue();
+        assertThat(report.blocksChecked()).isEqualTo(10);
+        assertThat(report.segments()).extracting(SegmentReport::fromHeight).containsExactly(1L, 4L, 7L, 10L);
+        assertThat(report.segments()).allMatch(SegmentReport::isValid);
+    }
+
+    @Test
+    void validate_shouldReportFirstInvalidHeightAcrossSegments() {
+        // Arrange: tamper with a late block's hash and break the link at a segment boundary earlier on
+        List<Block> chain = buildChain(11);
+        chain.get(9).setCurrentBlockHash("tampered");
+        chain.get(4).setPreviousBlockHash("forged");
+        chain.get(4).setCurrentBlockHash(chain.get(4).calculateHash());
+
+        // Act
+        ChainValidationReport report = chainValidator.validate(chain);
+
+        // Assert
+        assertThat(report.valid()).isFalse();
+        assertThat(report.firstInvalidHeight()).isEqualTo(4L);
+        assertThat(report.failure()).isEqualTo(ValidationFailure.BROKEN_HASH_LINK);
+        assertThat(report.segments()).filteredOn(s -> !s.isValid())
+                .extracting(SegmentReport::failedHeight).containsExactly(4L, 9L, 10L);
+    }
+
+    @Test
+    void validate_shouldReportASegmentThatCannotBeReadInsteadOfDroppingTheRun() {
+        // Arrange: reads starting at height 6 or later fail, as when blocks are missing from the store
+        List<Block> chain = buildChain(11);
+        BlockRangeReader reader = (from, to) -> {
+            if (from >= 6) {
+                throw new IllegalStateException("Expected " + (to - from) + " blocks but found none");
+            }
+            return chain.subList((int) from, (int) to);
+        };
+
+        // Act
+        ChainValidationReport report = chainValidator.validate(reader, 1, 11);
+
+        // Assert
+        assertThat(report.valid()).isFalse();
+        assertThat(report.firstInvalidHeight()).isEqualTo(7L);
+        assertThat(report.failure()).isEqualTo(ValidationFailure.SEGMENT_ERROR);
+        assertThat(report.segments()).extracting(SegmentReport::fromHeight).containsExactly(1L, 4L, 7L, 10L);
+        assertThat(report.segments()).filteredOn(s -> !s.isValid())
+                .extracting(SegmentReport::failedHeight).containsExactly(7L, 10L);
+    }
+
+    @Test
+    void validate_shouldStillAcceptBlocksHashedWithLegacyEncoding() {
+        ChainValidationReport report = chainValidator.validate(buildChain(6, false));
+
+        assertThat(report.valid()).isTrue();
+    }
+
+    @Test
+    void validate_shouldDetectTransactionIdsReplacedAfterHashing() {
+        // Arrange: swap a block's transaction list while keeping its stored hash
+        List<Block> chain = buildChain(5);
+        chain.get(3).setTransactionsIds(List.of("tx-forged"));
+
+        // Act
+        ChainValidationReport report = chainValidator.validate(chain);
+
+        // Assert
+        assertThat(report.firstInvalidHeight()).isEqualTo(3L);
+        assertThat(report.failure()).isEqualTo(ValidationFailure.INVALID_BLOCK_HASH);
+    }
+
+    @Test
+    void validate_shouldReportMissingTransactions() {
+        // Arrange
+        List<Block> chain = buildChain(5);
+        lenient().when(transactionLeafLoader.loadSignatures(chain.get(2).getTransactionsIds()))
+                .thenThrow(new MissingTransactionsException("Not found.", List.of("tx-2-a")));
+
+        // Act
+        ChainValidationReport report = chainValidator.validate(chain);
+
+        // Assert
+        assertThat(report.firstInvalidHeight()).isEqualTo(2L);
+        assertThat(report.failure()).isEqualTo(ValidationFailure.MISSING_TRANSACTIONS);
+    }
+
+    @Test
+    void validate_shouldRecomputeMerkleRootInTheFormatTheBlockRecorded() {
+        // Arrange: a block whose recorded format does not match how its root was computed
+        List<Block> chain = buildChain(5);
+        chain.get(3).setMerkleFormat(MerkleFormat.COMPOSITE.code());
+
+        // Act
+        ChainValidationReport report = chainValidator.validate(chain);
+
+        // Assert
+        assertThat(report.valid()).isFalse();
+        assertThat(report.firstInvalidHeight()).isEqualTo(3L);
+        assertThat(report.failure()).isEqualTo(ValidationFailure.MERKLE_ROOT_MISMATCH);
+    }
+
+    @Test
+    void validate_shouldStreamLeavesOfLargeBlocks() {
+        // Arrange: every block is at the streaming threshold
+        doCallRealMethod().when(transactionLeafLoader).forEachSignature(anyList(), any());
+        doCallRealMethod().when(transactionLeafLoader).forEachSignature(anyList(), anyInt(), any());
+        ChainValidator streamingValidator = new ChainValidator(transactionLeafLoader, MERKLE_ENGINES, 2, 3, 1);
+
+        try {
+            // Act
+            ChainValidationReport binaryReport = streamingValidator.validate(buildChain(7));
+            ChainValidationReport compositeReport = streamingValidator.validate(buildChain(7, false));
+
+            // Assert
+            assertThat(binaryReport.valid()).isTrue();
+            assertThat(compositeReport.valid()).isTrue();
+            assertThat(binaryReport.blocksChecked()).isEqualTo(6);
+        } finally {
+            streamingValidator.shutdown();
+        }
+    }
+}
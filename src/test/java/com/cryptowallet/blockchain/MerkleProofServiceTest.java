@@ -0,0 +1,148 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.dto.MerkleProofDTO;
+import com.cryptowallet.dto.MerkleProofVerificationDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.dto.VerifyMerkleProofRequestDTO;
+import com.cryptowallet.exception.BlockNotFoundException;
+import com.cryptowallet.exception.TransactionNotInBlockException;
+import com.cryptowallet.merkle.MerkleFormat;
+import com.cryptowallet.merkle.MerkleTree;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MerkleProofServiceTest {
+
+    private static final List<String> TX_IDS = List.of("tx-0", "tx-1", "tx-2");
+    private static final List<String> SIGNATURES = List.of("sig-0", "sig-1", "sig-2");
+
+    @Mock
+    private BlockChain blockChain;
+
+    @Mock
+    private TransactionLeafLoader transactionLeafLoader;
+
+    @Mock
+    private TransactionBlockIndex transactionBlockIndex;
+
+    private MerkleProofService merkleProofService;
+    private Block block;
+
+    @BeforeEach
+    void setUp() {
+        merkleProofService = new MerkleProofService(blockChain, transactionLeafLoader, transactionBlockIndex, 4);
+        block = new Block(3L, TX_IDS, MerkleTree.build(SIGNATURES).getMerkleRoot(), "previous-hash");
+    }
+
+    @Test
+    void prove_shouldReturnVerifiableProofAndCacheTheTree() {
+        // Arrange
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(transactionLeafLoader.loadSignatures(TX_IDS)).thenReturn(SIGNATURES);
+
+        // Act
+        MerkleProofDTO first = merkleProofService.prove(3, "tx-2");
+        MerkleProofDTO second = merkleProofService.prove(3, "tx-0");
+
+        // Assert
+        assertThat(first.leafHash()).isEqualTo("sig-2");
+        assertThat(first.merkleRoot()).isEqualTo(block.getMerkleRoot());
+        VerifyMerkleProofRequestDTO request = new VerifyMerkleProofRequestDTO("tx-2", first.leafHash(), first.leafIndex(), first.siblings());
+        assertThat(merkleProofService.verify(3, request).valid()).isTrue();
+        assertThat(second.leafIndex()).isZero();
+        verify(transactionLeafLoader, times(1)).loadSignatures(TX_IDS);
+    }
+
+    @Test
+    void verify_shouldRejectProofForAnotherTransaction() {
+        // Arrange
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(transactionLeafLoader.loadSignatures(TX_IDS)).thenReturn(SIGNATURES);
+        MerkleProofDTO proof = merkleProofService.prove(3, "tx-1");
+
+        // Act
+        MerkleProofVerificationDTO result = merkleProofService.verify(3,
+                new VerifyMerkleProofRequestDTO("tx-0", proof.leafHash(), proof.leafIndex(), proof.siblings()));
+
+        // Assert
+        assertThat(result.valid()).isFalse();
+        assertThat(result.computedRoot()).isNull();
+    }
+
+    @Test
+    void verify_shouldRejectAnInternalNodePassedOffAsALeafWithAShorterPath() {
+        // Arrange: the parent of tx-0 and tx-1 with its own sibling hashes up to the root
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(transactionLeafLoader.loadSignatures(TX_IDS)).thenReturn(SIGNATURES);
+        MerkleProofDTO proof = merkleProofService.prove(3, "tx-0");
+        MerkleFormat format = MerkleFormat.of(block.getMerkleFormat());
+        String parent = format.combine(proof.leafHash(), proof.siblings().get(0));
+        List<String> shortened = proof.siblings().subList(1, proof.siblings().size());
+        assertThat(format.combine(parent, shortened.get(0))).isEqualTo(block.getMerkleRoot());
+
+        // Act
+        MerkleProofVerificationDTO result = merkleProofService.verify(3,
+                new VerifyMerkleProofRequestDTO("tx-0", parent, 0, shortened));
+
+        // Assert
+        assertThat(result.valid()).isFalse();
+    }
+
+    @Test
+    void verify_shouldHashFromTheStoredSignatureInsteadOfTheSubmittedLeaf() {
+        // Arrange
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(transactionLeafLoader.loadSignatures(TX_IDS)).thenReturn(SIGNATURES);
+        MerkleProofDTO proof = merkleProofService.prove(3, "tx-2");
+
+        // Act
+        MerkleProofVerificationDTO forged = merkleProofService.verify(3,
+                new VerifyMerkleProofRequestDTO("tx-2", "forged-leaf", proof.leafIndex(), proof.siblings()));
+
+        // Assert: the submitted leaf plays no part, the stored signature of tx-2 proves it
+        assertThat(forged.valid()).isTrue();
+        assertThat(forged.computedRoot()).isEqualTo(block.getMerkleRoot());
+    }
+
+    @Test
+    void prove_shouldThrowWhenBlockOrTransactionIsMissing() {
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(blockChain.getBlockByHeight(9)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> merkleProofService.prove(9, "tx-0")).isInstanceOf(BlockNotFoundException.class);
+        assertThatThrownBy(() -> merkleProofService.prove(3, "tx-9")).isInstanceOf(TransactionNotInBlockException.class);
+        verifyNoInteractions(transactionLeafLoader);
+    }
+
+    @Test
+    void proveById_shouldUseTheTransactionIndexInsteadOfSearchingBlocks() {
+        // Arrange
+        when(transactionBlockIndex.find("tx-2"))
+                .thenReturn(Optional.of(new TransactionLocationDTO("tx-2", 3, block.getCurrentBlockHash(), 2)));
+        when(transactionBlockIndex.find("tx-pending")).thenReturn(Optional.empty());
+        when(blockChain.getBlockByHeight(3)).thenReturn(Optional.of(block));
+        when(transactionLeafLoader.loadSignatures(TX_IDS)).thenReturn(SIGNATURES);
+
+        // Act
+        MerkleProofDTO proof = merkleProofService.prove("tx-2");
+
+        // Assert
+        assertThat(proof.blockHeight()).isEqualTo(3);
+        assertThat(proof.leafIndex()).isEqualTo(2);
+        assertThat(proof.merkleRoot()).isEqualTo(block.getMerkleRoot());
+        assertThatThrownBy(() -> merkleProofService.prove("tx-pending"))
+                .isInstanceOf(TransactionNotInBlockException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.cryptowallet.blockchain;
+
+import com.cryptowallet.exception.MissingTransactionsException;
+import com.cryptowallet.model.TransactionDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionLeafLoaderTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private TransactionLeafLoader transactionLeafLoader;
+
+    private static TransactionDocument tx(String id, String signature) {
+        TransactionDocument tx = new TransactionDocument("from", "to", BigDecimal.ONE, "USD", signature);
+        tx.setId(id);
+        return tx;
+    }
+
+    @Test
+    void loadSignatures_shouldIssueOneProjectedQueryAndKeepBlockOrder() {
+        // Arrange: Mongo returns documents in a different order than requested
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class)))
+                .thenReturn(List.of(tx("tx-3", "sig-3"), tx("tx-1", "sig-1"), tx("tx-2", "sig-2")));
+
+        // Act
+        List<String> signatures = transactionLeafLoader.loadSignatures(List.of("tx-1", "tx-2", "tx-3"));
+
+        // Assert
+        assertThat(signatures).containsExactly("sig-1", "sig-2", "sig-3");
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).find(queryCaptor.capture(), eq(TransactionDocument.class));
+        assertThat(queryCaptor.getValue().getFieldsObject()).containsKey("signature");
+    }
+
+    @Test
+    void loadSignatures_shouldReportAllMissingIdsTogether() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class)))
+                .thenReturn(List.of(tx("tx-2", "sig-2")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> transactionLeafLoader.loadSignatures(List.of("tx-1", "tx-2", "tx-3")))
+                .isInstanceOf(MissingTransactionsException.class)
+                .satisfies(e -> assertThat(((MissingTransactionsException) e).getMissingTransactionIds())
+                        .containsExactly("tx-1", "tx-3"));
+    }
+
+    @Test
+    void loadSignatures_shouldSkipQueryForEmptyBlock() {
+        assertThat(transactionLeafLoader.loadSignatures(List.of())).isEmpty();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void forEachSignature_shouldQueryOneChunkAtATimeInBlockOrder() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class)))
+                .thenReturn(List.of(tx("tx-2", "sig-2"), tx("tx-1", "sig-1")))
+                .thenReturn(List.of(tx("tx-3", "sig-3")));
+        List<String> signatures = new ArrayList<>();
+
+        // Act
+        transactionLeafLoader.forEachSignature(List.of("tx-1", "tx-2", "tx-3"), 2, signatures::add);
+
+        // Assert
+        assertThat(signatures).containsExactly("sig-1", "sig-2", "sig-3");
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(TransactionDocument.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.cryptowallet.blockchain.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldHaveNoFalseNegativesAndStayNearTheTargetRate() {
+        // Arrange
+        BloomFilter filter = BloomFilter.create(1000, 0.01, 0);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("tx-" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("tx-" + i)).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(300); // 1% target, with generous slack
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    void encode_shouldRoundTripTheFilter() {
+        // Arrange
+        BloomFilter filter = BloomFilter.create(10, 0.01, 64);
+        filter.add("tx-a");
+
+        // Act
+        BloomFilter decoded = BloomFilter.decode(filter.encode());
+
+        // Assert
+        assertThat(decoded.sizeInBytes()).isEqualTo(64);
+        assertThat(decoded.hashCount()).isEqualTo(filter.hashCount());
+        assertThat(decoded.mightContain("tx-a")).isTrue();
+        assertThat(decoded.encode()).isEqualTo(filter.encode());
+    }
+
+    @Test
+    void create_shouldRejectAnInvalidRate() {
+        assertThatThrownBy(() -> BloomFilter.create(10, 1.5, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cryptowallet.blockchain.bloom;
+
+import com.cryptowallet.blockchain.ChainStore;
+import com.cryptowallet.blockchain.TransactionLeafLoader;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.dto.BloomFilterMetricsDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionLocatorTest {
+
+    @Mock
+    private BlockStore blockStore;
+
+    @Mock
+    private TransactionLeafLoader transactionLeafLoader;
+
+    private ChainStore chainStore;
+    private TransactionLocator locator;
+    private final List<Block> blocks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        chainStore = new ChainStore(blockStore, 2, 4);
+        locator = new TransactionLocator(chainStore, blockStore, transactionLeafLoader, 0.01, 0, 2);
+        String previousHash = "GENESIS";
+        for (long height = 0; height < 6; height++) {
+            List<String> ids = List.of("tx-" + height + "-a", "tx-" + height + "-b");
+            Block block = new Block(height, ids, "root", previousHash);
+            block.setBloomFilter(locator.filterFor(ids, List.of("sig-" + height + "-a", "sig-" + height + "-b")));
+            chainStore.append(block);
+            blocks.add(block);
+            previousHash = block.getCurrentBlockHash();
+        }
+        lenient().when(blockStore.findByHeight(anyLong())).thenAnswer(invocation -> Optional.of(blocks.get(Math.toIntExact((Long) invocation.getArgument(0)))));
+        lenient().doAnswer(invocation -> {
+            Consumer<Block> consumer = invocation.getArgument(1);
+            blocks.forEach(consumer);
+            return null;
+        }).when(blockStore).forEachHeader(eq(0L), any());
+    }
+
+    @Test
+    void locate_shouldFindTransactionInTheWindowWithoutScanningOlderHeaders() {
+        // Act
+        Optional<TransactionLocationDTO> location = locator.locate("tx-5-b");
+
+        // Assert
+        assertThat(location).contains(new TransactionLocationDTO("tx-5-b", 5, blocks.get(5).getCurrentBlockHash(), 1));
+        verify(blockStore, never()).forEachHeader(anyLong(), any());
+        verify(transactionLeafLoader, never()).loadSignatures(any());
+    }
+
+    @Test
+    void locate_shouldFindOlderTransactionBySignature() {
+        // Arrange
+        lenient().when(transactionLeafLoader.loadSignatures(List.of("tx-1-a", "tx-1-b"))).thenReturn(List.of("sig-1-a", "sig-1-b"));
+
+        // Act
+        Optional<TransactionLocationDTO> location = locator.locate("sig-1-b");
+
+        // Assert
+        assertThat(location).contains(new TransactionLocationDTO("tx-1-b", 1, blocks.get(1).getCurrentBlockHash(), 1));
+        verify(transactionLeafLoader).loadSignatures(List.of("tx-1-a", "tx-1-b")); // Only the matching block is read
+    }
+
+    @Test
+    void locate_shouldReportUnknownTransactionsAndCountFilterChecks() {
+        // Act
+        Optional<TransactionLocationDTO> location = locator.locate("tx-unknown");
+        BloomFilterMetricsDTO metrics = locator.metrics();
+
+        // Assert
+        assertThat(location).isEmpty();
+        assertThat(metrics.lookups()).isEqualTo(1);
+        assertThat(metrics.filterChecks()).isEqualTo(6);
+        assertThat(metrics.falsePositives()).isEqualTo(metrics.candidateBlocks());
+        assertThat(metrics.filtersInMemory()).isEqualTo(2);
+    }
+}
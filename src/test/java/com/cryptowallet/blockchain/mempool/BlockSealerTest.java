@@ -0,0 +1,150 @@
+package com.cryptowallet.blockchain.mempool;
+
+import com.cryptowallet.blockchain.BlockSequencer;
+import com.cryptowallet.blockchain.TransactionBlockIndex;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.dto.BlockSealingMetricsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockSealerTest {
+
+    @Mock
+    private TransactionBlockIndex transactionBlockIndex;
+
+    @Mock
+    private BlockStore blockStore;
+
+    @Mock
+    private BlockSequencer blockSequencer;
+
+    private Mempool mempool;
+
+    @BeforeEach
+    void setUp() {
+        mempool = new Mempool(transactionBlockIndex, blockStore, "", 1 << 20, 16); // Memory only
+        mempool.open();
+    }
+
+    @Test
+    void add_shouldSealOnceThePoolReachesTheTargetSize() {
+        // Arrange
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 4, 100, 1 << 20, 60_000, 1000);
+
+        // Act
+        for (int i = 0; i < 9; i++) {
+            sealer.add("tx-" + i);
+        }
+
+        // Assert
+        verify(blockSequencer).submit(List.of("tx-0", "tx-1", "tx-2", "tx-3"));
+        verify(blockSequencer).submit(List.of("tx-4", "tx-5", "tx-6", "tx-7"));
+        assertThat(mempool.size()).isEqualTo(1);
+        BlockSealingMetricsDTO metrics = sealer.metrics();
+        assertThat(metrics.blocksByReason()).containsEntry(SealReason.COUNT, 2L);
+        assertThat(metrics.lastSealReason()).isEqualTo(SealReason.COUNT);
+        assertThat(metrics.averageBlockSize()).isEqualTo(4.0);
+    }
+
+    @Test
+    void tick_shouldSealAPartialBlockOnceTheOldestTransactionIsTooOld() {
+        // Arrange
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 8, 100, 1 << 20, 0, 1000);
+        sealer.add("tx-0");
+        sealer.add("tx-1");
+        verify(blockSequencer, never()).submit(anyList());
+
+        // Act
+        sealer.tick();
+
+        // Assert
+        verify(blockSequencer).submit(List.of("tx-0", "tx-1"));
+        assertThat(mempool.size()).isZero();
+        assertThat(sealer.metrics().blocksByReason()).containsEntry(SealReason.AGE, 1L);
+    }
+
+    @Test
+    void add_shouldSealWhenThePoolReachesTheMaximumBlockBytes() {
+        // Arrange
+        long threeIds = 3 * Mempool.sizeInBlock("tx-0");
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 8, 100, threeIds, 60_000, 1000);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            sealer.add("tx-" + i);
+        }
+
+        // Assert
+        verify(blockSequencer).submit(List.of("tx-0", "tx-1", "tx-2"));
+        assertThat(mempool.size()).isEqualTo(1);
+        assertThat(sealer.metrics().blocksByReason()).containsEntry(SealReason.BYTES, 1L);
+    }
+
+    @Test
+    void tick_shouldGrowTheTargetSizeWithTheArrivalRate() {
+        // Arrange
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 2, 500, 1 << 20, 60_000, 1000);
+        for (int i = 0; i < 1000; i++) {
+            sealer.add("tx-" + i);
+        }
+        verify(blockSequencer, times(500)).submit(anyList()); // Tiny blocks at the minimum target
+
+        // Act
+        sealer.tick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100)); // About 10000 tx/s
+
+        // Assert
+        assertThat(sealer.targetCount()).isEqualTo(500);
+        assertThat(sealer.metrics().arrivalRatePerSecond()).isGreaterThan(1000);
+    }
+
+    @Test
+    void tick_shouldShrinkTheTargetSizeBackWhenTrafficDrops() {
+        // Arrange
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 2, 500, 1 << 20, 60_000, 1000);
+        for (int i = 0; i < 1000; i++) {
+            sealer.add("tx-" + i);
+        }
+        long now = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        sealer.tick(now);
+
+        // Act
+        for (int second = 1; second <= 60; second++) {
+            sealer.tick(now + TimeUnit.SECONDS.toNanos(second)); // No arrivals
+        }
+
+        // Assert
+        assertThat(sealer.targetCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sealRecoveredTransactions_shouldSealEverythingReplayedOnStartup() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            mempool.add("tx-" + i);
+        }
+        BlockSealer sealer = new BlockSealer(mempool, blockSequencer, 2, 3, 1 << 20, 60_000, 1000);
+        ArgumentCaptor<List<String>> batches = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        sealer.sealRecoveredTransactions();
+
+        // Assert
+        verify(blockSequencer, times(2)).submit(batches.capture());
+        assertThat(batches.getAllValues()).containsExactly(List.of("tx-0", "tx-1", "tx-2"), List.of("tx-3", "tx-4"));
+        assertThat(sealer.metrics().blocksByReason()).containsEntry(SealReason.RECOVERY, 2L);
+    }
+}
@@ -0,0 +1,216 @@
+package com.cryptowallet.blockchain.mempool;
+
+import com.cryptowallet.blockchain.TransactionBlockIndex;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MempoolTest {
+
+    @Mock
+    private TransactionBlockIndex transactionBlockIndex;
+
+    @Mock
+    private BlockStore blockStore;
+
+    @TempDir
+    Path directory;
+
+    private final List<Mempool> opened = new ArrayList<>();
+
+    private Mempool open(long compactBytes) {
+        lenient().when(transactionBlockIndex.sealedAmong(any())).thenReturn(Set.of());
+        lenient().when(blockStore.read(anyLong(), anyLong())).thenReturn(List.of());
+        Mempool mempool = new Mempool(transactionBlockIndex, blockStore, directory.resolve("mempool.wal").toString(), compactBytes, 16);
+        mempool.open();
+        opened.add(mempool);
+        return mempool;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Mempool mempool : opened) {
+            mempool.close();
+        }
+    }
+
+    @Test
+    void open_shouldReplayTransactionsThatNeverReachedABlock() throws IOException {
+        // Arrange
+        Mempool mempool = open(1 << 20);
+        for (int i = 0; i < 5; i++) {
+            mempool.add("tx-" + i);
+        }
+        List<String> sealed = mempool.seal(2, 2);
+        mempool.commit(sealed);
+        mempool.seal(1, 1); // Sealed but its block was never written
+        mempool.close();
+
+        // Act
+        Mempool restarted = open(1 << 20);
+
+        // Assert
+        assertThat(sealed).containsExactly("tx-0", "tx-1");
+        assertThat(restarted.size()).isEqualTo(3);
+        assertThat(restarted.seal(1, 10)).containsExactly("tx-2", "tx-3", "tx-4");
+    }
+
+    @Test
+    void open_shouldDropTransactionsTheBlockIndexAlreadyPlacesInABlock() throws IOException {
+        // Arrange
+        Mempool mempool = open(1 << 20);
+        mempool.add("tx-a");
+        mempool.add("tx-b");
+        mempool.close();
+        lenient().when(transactionBlockIndex.sealedAmong(any())).thenReturn(Set.of("tx-a"));
+        Mempool restarted = new Mempool(transactionBlockIndex, blockStore, directory.resolve("mempool.wal").toString(), 1 << 20, 16);
+        opened.add(restarted);
+
+        // Act
+        restarted.open();
+
+        // Assert
+        assertThat(restarted.seal(1, 10)).containsExactly("tx-b");
+    }
+
+    @Test
+    void open_shouldDropTransactionsOfABlockPersistedJustBeforeACrash() throws IOException {
+        // Arrange: the block with tx-a and tx-b was stored, then the process died before indexing and committing it
+        Mempool mempool = open(1 << 20);
+        mempool.add("tx-a");
+        mempool.add("tx-b");
+        mempool.add("tx-c");
+        mempool.seal(2, 2);
+        mempool.close();
+        Block persisted = new Block(7L, List.of("tx-a", "tx-b"), "root", "previous");
+        when(blockStore.size()).thenReturn(8L);
+        when(blockStore.read(0, 8)).thenReturn(List.of(persisted));
+        Mempool restarted = new Mempool(transactionBlockIndex, blockStore, directory.resolve("mempool.wal").toString(), 1 << 20, 16);
+        opened.add(restarted);
+
+        // Act
+        restarted.open();
+
+        // Assert
+        assertThat(restarted.seal(1, 10)).containsExactly("tx-c");
+    }
+
+    @Test
+    void add_shouldMakeConcurrentAddsDurableThroughGroupCommit() throws Exception {
+        // Arrange
+        Mempool mempool = open(1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            int first = thread * 100;
+            futures.add(executor.submit(() -> {
+                for (int i = first; i < first + 100; i++) {
+                    mempool.add("tx-" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        mempool.close();
+        Mempool restarted = open(1 << 20);
+
+        // Assert
+        assertThat(restarted.size()).isEqualTo(800);
+    }
+
+    @Test
+    void open_shouldIgnoreATornTailAndKeepAppending() throws IOException {
+        // Arrange
+        Mempool mempool = open(1 << 20);
+        mempool.add("tx-1");
+        mempool.add("tx-2");
+        mempool.close();
+        Files.write(directory.resolve("mempool.wal"), new byte[]{'A', 0, 0, 0, 9, 't'}, StandardOpenOption.APPEND);
+
+        // Act
+        Mempool restarted = open(1 << 20);
+        restarted.add("tx-3");
+        restarted.close();
+        Mempool again = open(1 << 20);
+
+        // Assert
+        assertThat(again.seal(1, 10)).containsExactly("tx-1", "tx-2", "tx-3");
+    }
+
+    @Test
+    void commit_shouldCompactTheLogPastTheThreshold() throws IOException {
+        // Arrange
+        Mempool mempool = open(256);
+        for (int i = 0; i < 50; i++) {
+            mempool.add("tx-" + i);
+        }
+        long sizeBefore = Files.size(directory.resolve("mempool.wal"));
+
+        // Act
+        mempool.commit(mempool.seal(49, 49));
+
+        // Assert
+        assertThat(Files.size(directory.resolve("mempool.wal"))).isLessThan(sizeBefore);
+        mempool.close();
+        assertThat(open(256).seal(1, 10)).containsExactly("tx-49");
+    }
+
+    @Test
+    void add_shouldRewriteAFailedLogOnTheNextAppend() throws IOException {
+        // Arrange
+        Mempool mempool = open(1 << 20);
+        mempool.add("tx-1");
+        mempool.close(); // The channel is gone, so the next write fails
+        mempool.add("tx-2"); // Only kept in memory
+        boolean failedAfterWrite = mempool.isLogFailed();
+
+        // Act
+        mempool.add("tx-3");
+
+        // Assert
+        assertThat(failedAfterWrite).isTrue();
+        assertThat(mempool.isLogFailed()).isFalse();
+        assertThat(mempool.logFailures()).isEqualTo(1);
+        assertThat(mempool.logRecoveries()).isEqualTo(1);
+        mempool.close();
+        assertThat(open(1 << 20).seal(1, 10)).containsExactly("tx-1", "tx-2", "tx-3");
+    }
+
+    @Test
+    void seal_shouldLeaveTransactionsPooledBelowTheMinimum() {
+        // Arrange
+        Mempool mempool = new Mempool(transactionBlockIndex, blockStore, "", 0, 16);
+        mempool.add("tx-1");
+
+        // Act & Assert
+        assertThat(mempool.seal(2, 2)).isEmpty();
+        assertThat(mempool.seal(1, 2)).containsExactly("tx-1");
+    }
+}
@@ -0,0 +1,221 @@
+package com.cryptowallet.blockchain.mmr;
+
+import com.cryptowallet.blockchain.ChainStore;
+import com.cryptowallet.blockchain.store.BlockStore;
+import com.cryptowallet.crypto.Sha256;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+public class ChainMmrTest {
+
+    @Mock
+    private BlockStore blockStore;
+
+    private ChainStore chainStore;
+    private InMemoryNodeStore nodeStore;
+    private String previousHash = "GENESIS";
+
+    @BeforeEach
+    void setUp() {
+        chainStore = new ChainStore(blockStore, 4, 4);
+        nodeStore = new InMemoryNodeStore();
+    }
+
+    private void appendBlocks(int count) {
+        for (int i = 0; i < count; i++) {
+            Block block = new Block(chainStore.size(), List.of("tx-" + chainStore.size()), "root", previousHash);
+            chainStore.append(block);
+            previousHash = block.getCurrentBlockHash();
+        }
+    }
+
+    /**
+     * Root by definition: perfect trees over the leaves of each set bit of the count, bagged from the right.
+     */
+    private String expectedRoot() {
+        List<byte[]> peaks = new ArrayList<>();
+        long first = 0;
+        long count = chainStore.size();
+        for (int height = 63; height >= 0; height--) {
+            if ((count & (1L << height)) != 0) {
+                peaks.add(subtree(first, 1L << height));
+                first += 1L << height;
+            }
+        }
+        return Base64.getEncoder().encodeToString(ChainMmr.bagPeaks(peaks));
+    }
+
+    private byte[] subtree(long first, long leaves) {
+        if (leaves == 1) {
+            return Sha256.hash(Sha256.toTaggedHashBytes(chainStore.getHeader(first).currentBlockHash()));
+        }
+        return ChainMmr.hashPair(subtree(first, leaves / 2), subtree(first + leaves / 2, leaves / 2));
+    }
+
+    @Test
+    void sync_shouldMaintainRootAndVerifiableProofsAsBlocksAreAppended() {
+        ChainMmr chainMmr = new ChainMmr(nodeStore, chainStore);
+        for (int blocks = 1; blocks <= 21; blocks++) {
+            // Act
+            appendBlocks(1);
+            chainMmr.sync();
+
+            // Assert
+            String root = chainMmr.root();
+            assertThat(root).as("root of %d blocks", blocks).isEqualTo(expectedRoot());
+            for (long height = 0; height < blocks; height++) {
+                assertThat(chainMmr.prove(height).verify(root)).as("block %d of %d", height, blocks).isTrue();
+            }
+        }
+        assertThat(nodeStore.size()).isEqualTo(2 * 21 - Long.bitCount(21));
+    }
+
+    @Test
+    void verify_shouldRejectProofForAnotherBlockOrRoot() {
+        // Arrange
+        appendBlocks(11);
+        ChainMmr chainMmr = new ChainMmr(nodeStore, chainStore);
+        chainMmr.sync();
+        MmrProof proof = chainMmr.prove(6);
+
+        // Act
+        MmrProof forged = new MmrProof(6, chainStore.getHeader(7).currentBlockHash(), proof.leafCount(), proof.siblings(), proof.peaks());
+        MmrProof wrongShape = new MmrProof(6, proof.blockHash(), 12, proof.siblings(), proof.peaks());
+
+        // Assert
+        assertThat(proof.verify(chainMmr.root())).isTrue();
+        assertThat(forged.verify(chainMmr.root())).isFalse();
+        assertThat(wrongShape.verify(chainMmr.root())).isFalse();
+        assertThat(proof.verify(Base64.getEncoder().encodeToString(new byte[32]))).isFalse();
+    }
+
+    @Test
+    void load_shouldReuseStoredNodesAndCatchUpOnNewBlocks() {
+        // Arrange: a range persisted for 9 blocks, then 4 more blocks appended
+        appendBlocks(9);
+        new ChainMmr(nodeStore, chainStore).sync();
+        appendBlocks(4);
+        nodeStore.appendCalls = 0;
+
+        // Act
+        ChainMmr reloaded = new ChainMmr(nodeStore, chainStore);
+        reloaded.load();
+
+        // Assert
+        assertThat(reloaded.leafCount()).isEqualTo(13);
+        assertThat(reloaded.root()).isEqualTo(expectedRoot());
+        assertThat(nodeStore.cleared).isFalse();
+        assertThat(nodeStore.appendCalls).isEqualTo(1);
+    }
+
+    @Test
+    void load_shouldRebuildRangeThatDoesNotMatchTheChain() {
+        // Arrange: a range built for a different chain
+        ChainStore otherChain = new ChainStore(blockStore, 4, 4);
+        otherChain.append(new Block(0L, List.of("other"), "root", "OTHER"));
+        new ChainMmr(nodeStore, otherChain).sync();
+        appendBlocks(5);
+
+        // Act
+        ChainMmr reloaded = new ChainMmr(nodeStore, chainStore);
+        reloaded.load();
+
+        // Assert
+        assertThat(nodeStore.cleared).isTrue();
+        assertThat(reloaded.root()).isEqualTo(expectedRoot());
+    }
+
+    @Test
+    void sync_shouldRetryAnAppendThatFailedPartway() {
+        // Arrange
+        ChainMmr mmr = new ChainMmr(nodeStore, chainStore);
+        appendBlocks(3);
+        mmr.sync();
+        appendBlocks(1); // Merges into one mountain, writing 3 new nodes
+        nodeStore.failAfter = 1;
+
+        // Act
+        assertThatThrownBy(mmr::sync).isInstanceOf(IllegalStateException.class);
+        long leavesAfterFailure = mmr.leafCount();
+        mmr.sync();
+
+        // Assert
+        assertThat(leavesAfterFailure).isEqualTo(3);
+        assertThat(mmr.leafCount()).isEqualTo(4);
+        assertThat(mmr.root()).isEqualTo(expectedRoot());
+        assertThat(nodeStore.size()).isEqualTo(7);
+        assertThat(mmr.prove(3).verify(mmr.root())).isTrue();
+    }
+
+    @Test
+    void leafHash_shouldNotMapAMarkerAndTheBase64OfItsHashToTheSameLeaf() {
+        // Arrange
+        String marker = "genesis";
+        String markerHash = Base64.getEncoder().encodeToString(Sha256.hash(marker.getBytes(StandardCharsets.UTF_8)));
+
+        // Act & Assert
+        assertThat(ChainMmr.leafHash(markerHash)).hasSize(Sha256.HASH_LENGTH).isNotEqualTo(ChainMmr.leafHash(marker));
+    }
+
+    @Test
+    void leafCountOf_shouldInvertRangeSize() {
+        for (long leaves = 0; leaves < 300; leaves++) {
+            assertThat(ChainMmr.leafCountOf(2 * leaves - Long.bitCount(leaves))).isEqualTo(leaves);
+        }
+        assertThat(ChainMmr.leafCountOf(2)).isEqualTo(-1); // 1 leaf has 1 node, 2 leaves have 3
+    }
+
+    private static class InMemoryNodeStore implements MmrNodeStore {
+        private final Map<Long, byte[]> nodes = new HashMap<>();
+        private boolean cleared;
+        private int appendCalls;
+        private int failAfter = -1; // Nodes the next append stores before failing, or -1 to succeed
+
+        @Override
+        public long size() {
+            return nodes.size();
+        }
+
+        @Override
+        public void append(long firstPosition, List<byte[]> hashes) {
+            assertThat(firstPosition).isLessThanOrEqualTo(nodes.size());
+            for (int i = 0; i < hashes.size(); i++) {
+                if (i == failAfter) {
+                    failAfter = -1;
+                    throw new IllegalStateException("Bulk write failed partway");
+                }
+                nodes.put(firstPosition + i, hashes.get(i));
+            }
+            appendCalls++;
+        }
+
+        @Override
+        public Map<Long, byte[]> findAll(Collection<Long> positions) {
+            Map<Long, byte[]> found = new HashMap<>();
+            positions.stream().filter(nodes::containsKey).forEach(position -> found.put(position, nodes.get(position)));
+            return found;
+        }
+
+        @Override
+        public void clear() {
+            nodes.clear();
+            cleared = true;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cryptowallet.blockchain.state;
+
+import com.cryptowallet.model.StateNode;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoStateNodeStoreTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private MongoStateNodeStore nodeStore;
+
+    @Test
+    void findAll_shouldSplitLargeLookupsIntoBoundedQueries() {
+        // Arrange
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2 * MongoStateNodeStore.FIND_CHUNK_SIZE + 1; i++) {
+            ids.add("256:" + i);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(StateNode.class)))
+                .thenReturn(List.of(StateNode.leaf("256:0", "ab", "10")))
+                .thenReturn(List.of())
+                .thenReturn(List.of(StateNode.leaf("256:" + (ids.size() - 1), "cd", "20")));
+
+        // Act
+        Map<String, StateNode> found = nodeStore.findAll(ids);
+
+        // Assert
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(queries.capture(), eq(StateNode.class));
+        assertThat(queries.getAllValues()).allSatisfy(query -> assertThat(
+                ((List<?>) query.getQueryObject().get("_id", Document.class).get("$in")))
+                .hasSizeLessThanOrEqualTo(MongoStateNodeStore.FIND_CHUNK_SIZE));
+        assertThat(found).containsOnlyKeys("256:0", "256:" + (ids.size() - 1));
+    }
+}
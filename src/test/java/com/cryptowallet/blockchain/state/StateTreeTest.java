@@ -0,0 +1,329 @@
+package com.cryptowallet.blockchain.state;
+
+import com.cryptowallet.model.StateNode;
+import com.cryptowallet.model.WalletDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StateTreeTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private InMemoryNodeStore nodeStore;
+    private final Map<String, WalletDocument> wallets = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        nodeStore = new InMemoryNodeStore();
+    }
+
+    private void setBalance(String address, String currency, String balance) {
+        WalletDocument wallet = wallets.computeIfAbsent(address, key -> {
+            WalletDocument created = new WalletDocument("user-" + key, key);
+            created.getBalances().clear();
+            return created;
+        });
+        wallet.getBalances().put(currency, new BigDecimal(balance));
+    }
+
+    private StateTree newTree(int cacheSize) {
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> new ArrayList<>(wallets.values()));
+        return new StateTree(nodeStore, mongoTemplate, cacheSize);
+    }
+
+    @Test
+    void commit_shouldProduceVerifiableBalanceProofs() {
+        // Arrange
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000.00");
+        setBalance("alice", "BTC", "1.5");
+        setBalance("bob", "USD", "250");
+        tree.markDirty("alice", "USD");
+        tree.markDirty("alice", "BTC");
+        tree.markDirty("bob", "USD");
+
+        // Act
+        String root = tree.commit();
+        BalanceProof proof = tree.prove("alice", "BTC");
+
+        // Assert
+        assertThat(root).isNotEqualTo(Base64.getEncoder().encodeToString(StateTree.emptyHash()));
+        assertThat(proof.balance()).isEqualByComparingTo("1.5");
+        assertThat(proof.stateRoot()).isEqualTo(root);
+        assertThat(proof.verify(root)).isTrue();
+        assertThat(proof.siblings()).hasSizeLessThanOrEqualTo(3); // Only the non-empty siblings are sent
+        assertThat(tree.prove("bob", "USD").verify(root)).isTrue();
+    }
+
+    @Test
+    void prove_shouldRejectATamperedBalanceAndProveAbsence() {
+        // Arrange
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000");
+        tree.markDirty("alice", "USD");
+        String root = tree.commit();
+        BalanceProof proof = tree.prove("alice", "USD");
+
+        // Act
+        BalanceProof tampered = new BalanceProof("alice", "USD", new BigDecimal("1000000"), proof.depth(),
+                proof.siblingBitmap(), proof.siblings(), null, null, proof.stateRoot());
+        BalanceProof absent = tree.prove("alice", "ETH");
+
+        // Assert
+        assertThat(tampered.verify(root)).isFalse();
+        assertThat(absent.balance()).isNull();
+        assertThat(absent.verify(root)).isTrue();
+    }
+
+    @Test
+    void commit_shouldReachTheSameRootIncrementallyAsInOneBatch() {
+        // Arrange
+        for (int i = 0; i < 100; i++) {
+            setBalance("wallet-" + i, "USD", Integer.toString(i * 10));
+        }
+        StateTree incremental = newTree(16); // Small cache so nodes are read back from the store
+        for (int i = 0; i < 100; i++) {
+            incremental.markDirty("wallet-" + i, "USD");
+            incremental.commit();
+        }
+        setBalance("wallet-7", "USD", "5.00");
+        incremental.markDirty("wallet-7", "USD");
+
+        // Act
+        String incrementalRoot = incremental.commit();
+        Set<String> incrementalNodes = nodeStore.nodeIds();
+        nodeStore = new InMemoryNodeStore();
+        StateTree batch = newTree(16);
+        for (int i = 0; i < 100; i++) {
+            batch.markDirty("wallet-" + i, "USD");
+        }
+        String batchRoot = batch.commit();
+
+        // Assert: replaced nodes were deleted, so both stores hold the same tree
+        assertThat(incrementalRoot).isEqualTo(batchRoot);
+        assertThat(incremental.prove("wallet-7", "USD").verify(batchRoot)).isTrue();
+        assertThat(incrementalNodes).isEqualTo(nodeStore.nodeIds());
+    }
+
+    @Test
+    void load_shouldKeepThePersistedRootWhenItMatchesTheLatestBlock() {
+        // Arrange
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000");
+        tree.markDirty("alice", "USD");
+        String root = tree.commit();
+        StateTree restarted = new StateTree(nodeStore, mongoTemplate, 1024);
+
+        // Act
+        restarted.load(root);
+
+        // Assert
+        assertThat(restarted.root()).isEqualTo(root);
+        assertThat(restarted.prove("alice", "USD").verify(root)).isTrue();
+    }
+
+    @Test
+    void load_shouldRebuildWhenBalancesChangedWithoutACommit() {
+        // Arrange
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000");
+        tree.markDirty("alice", "USD");
+        String root = tree.commit();
+        tree.beginBalanceChange();
+        setBalance("alice", "USD", "400"); // Crash after the write, before the balance is marked
+        when(mongoTemplate.stream(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> new ArrayList<>(wallets.values()).stream());
+        StateTree restarted = new StateTree(nodeStore, mongoTemplate, 1024);
+
+        // Act
+        restarted.load(root);
+
+        // Assert
+        assertThat(restarted.root()).isNotEqualTo(root);
+        assertThat(restarted.prove("alice", "USD").balance()).isEqualByComparingTo("400");
+        assertThat(nodeStore.findAll(List.of("pending"))).isEmpty();
+    }
+
+    @Test
+    void commit_shouldKeepThePendingMarkerWhileAChangeIsInFlight() {
+        // Arrange
+        StateTree tree = newTree(1024);
+        tree.beginBalanceChange();
+        setBalance("alice", "USD", "1000");
+        tree.markDirty("alice", "USD");
+
+        // Act
+        tree.commit();
+        boolean storedWhileInFlight = !nodeStore.findAll(List.of("pending")).isEmpty();
+        tree.endBalanceChange();
+        tree.commit();
+
+        // Assert
+        assertThat(storedWhileInFlight).isTrue();
+        assertThat(nodeStore.findAll(List.of("pending"))).isEmpty();
+    }
+
+    @Test
+    void commit_shouldStoreAboutLog2NodesPerBalance() {
+        // Arrange
+        int count = 1024;
+        for (int i = 0; i < count; i++) {
+            setBalance("wallet-" + i, "USD", Integer.toString(i));
+        }
+        StateTree tree = newTree(1024);
+        for (int i = 0; i < count; i++) {
+            tree.markDirty("wallet-" + i, "USD");
+        }
+
+        // Act
+        String root = tree.commit();
+        BalanceProof proof = tree.prove("wallet-512", "USD");
+
+        // Assert: one leaf per balance and fewer internal nodes than a few per balance, instead of 256 per key
+        assertThat(nodeStore.nodeIds().size()).isLessThan(4 * count);
+        assertThat(proof.depth()).isLessThan(40);
+        assertThat(proof.siblings()).hasSizeLessThanOrEqualTo(proof.depth());
+        assertThat(proof.verify(root)).isTrue();
+    }
+
+    @Test
+    void prove_shouldProveAbsenceThroughANeighborLeafAndRejectAForgedOne() {
+        // Arrange: with a single balance the root is its leaf, so any other key ends at that neighbor
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000");
+        tree.markDirty("alice", "USD");
+        String root = tree.commit();
+
+        // Act
+        BalanceProof absent = tree.prove("bob", "USD");
+        BalanceProof forged = new BalanceProof("alice", "USD", null, absent.depth(), absent.siblingBitmap(),
+                absent.siblings(), absent.neighborKey(), absent.neighborValueHash(), absent.stateRoot());
+
+        // Assert
+        assertThat(absent.balance()).isNull();
+        assertThat(absent.neighborKey()).isNotNull();
+        assertThat(absent.verify(root)).isTrue();
+        assertThat(forged.verify(root)).isFalse(); // A leaf cannot be its own neighbor
+    }
+
+    @Test
+    void prove_shouldNotWaitForACommitInProgress() throws Exception {
+        // Arrange
+        StateTree tree = newTree(1024);
+        setBalance("alice", "USD", "1000");
+        setBalance("bob", "USD", "50");
+        tree.markDirty("alice", "USD");
+        tree.markDirty("bob", "USD");
+        String root = tree.commit();
+        setBalance("alice", "USD", "700");
+        tree.markDirty("alice", "USD");
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        nodeStore.pauseSaves(saving, release);
+        ExecutorService committer = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act
+            Future<String> commit = committer.submit(tree::commit);
+            assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+            BalanceProof proof = tree.prove("alice", "USD");
+            release.countDown();
+            String newRoot = commit.get(5, TimeUnit.SECONDS);
+
+            // Assert: the proof was served from the last committed root while the commit was blocked
+            assertThat(proof.balance()).isEqualByComparingTo("1000");
+            assertThat(proof.verify(root)).isTrue();
+            assertThat(tree.prove("alice", "USD").verify(newRoot)).isTrue();
+        } finally {
+            release.countDown();
+            committer.shutdownNow();
+        }
+    }
+
+    /**
+     * Node store backed by a map, standing in for the Mongo collection. Saves can be paused to hold a commit.
+     */
+    private static class InMemoryNodeStore implements StateNodeStore {
+        private final Map<String, StateNode> nodes = new ConcurrentHashMap<>();
+        private volatile CountDownLatch saving;
+        private volatile CountDownLatch release;
+
+        void pauseSaves(CountDownLatch saving, CountDownLatch release) {
+            this.saving = saving;
+            this.release = release;
+        }
+
+        // IDs of the tree nodes, without the markers
+        Set<String> nodeIds() {
+            Set<String> ids = new HashSet<>(nodes.keySet());
+            ids.removeAll(List.of("root", "pending"));
+            return ids;
+        }
+
+        @Override
+        public Map<String, StateNode> findAll(Collection<String> ids) {
+            Map<String, StateNode> found = new HashMap<>();
+            ids.stream().filter(nodes::containsKey).forEach(id -> found.put(id, nodes.get(id)));
+            return found;
+        }
+
+        @Override
+        public void saveAll(Collection<StateNode> saved) {
+            CountDownLatch paused = release;
+            if (paused != null) {
+                release = null;
+                saving.countDown();
+                try {
+                    paused.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            saved.forEach(node -> nodes.put(node.getId(), node));
+        }
+
+        @Override
+        public void delete(String id) {
+            nodes.remove(id);
+        }
+
+        @Override
+        public void deleteAll(Collection<String> ids) {
+            ids.forEach(nodes::remove);
+        }
+
+        @Override
+        public void clear() {
+            nodes.clear();
+        }
+    }
+}
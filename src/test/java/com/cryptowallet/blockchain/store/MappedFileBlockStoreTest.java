@@ -0,0 +1,116 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.crypto.Sha256;
+import com.cryptowallet.model.Block;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedFileBlockStoreTest {
+
+    private static final int SEGMENT_SIZE = 1024; // Small segments so a few blocks span several files
+
+    @TempDir
+    Path directory;
+
+    private static List<Block> appendBlocks(MappedFileBlockStore store, int count) {
+        List<Block> blocks = new ArrayList<>();
+        String previousHash = "GENESIS";
+        for (int i = 0; i < count; i++) {
+            long height = store.size();
+            List<String> ids = List.of("tx-" + height + "-a", "tx-" + height + "-b");
+            // Odd heights also commit to a state root, so both header versions are stored
+            Block block = height % 2 == 0
+                    ? new Block(height, ids, "root-" + height, previousHash)
+                    : new Block(height, ids, "root-" + height, previousHash,
+                            Base64.getEncoder().encodeToString(Sha256.hash(ids.get(0).getBytes(StandardCharsets.UTF_8))));
+            blocks.add(store.append(block));
+            previousHash = block.getCurrentBlockHash();
+        }
+        return blocks;
+    }
+
+    @Test
+    void append_shouldRoundTripBlocksAcrossSegmentsAndRestarts() throws IOException {
+        // Arrange
+        List<Block> written;
+        try (MappedFileBlockStore store = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            written = appendBlocks(store, 20);
+        }
+
+        // Act
+        try (MappedFileBlockStore reopened = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            List<Block> headers = new ArrayList<>();
+            reopened.forEachHeader(headers::add);
+
+            // Assert
+            assertThat(Files.exists(directory.resolve("blocks-00001.log"))).isTrue();
+            assertThat(reopened.size()).isEqualTo(20);
+            assertThat(reopened.read(0, 20)).isEqualTo(written);
+            assertThat(reopened.findByHeight(13)).contains(written.get(13));
+            assertThat(headers).extracting(Block::getCurrentBlockHash)
+                    .containsExactlyElementsOf(written.stream().map(Block::getCurrentBlockHash).toList());
+            assertThat(headers.get(0).getTransactionsIds()).isNull();
+            assertThat(reopened.read(5, 6).get(0).calculateHash()).isEqualTo(written.get(5).getCurrentBlockHash());
+            assertThat(headers.get(5).getStateRoot()).isNotNull().isEqualTo(written.get(5).getStateRoot());
+            assertThat(headers.get(4).getStateRoot()).isNull();
+        }
+    }
+
+    @Test
+    void open_shouldReindexCompleteRecordsWrittenAfterTheLastIndexEntry() throws IOException {
+        // Arrange: simulate a crash between writing a record and its index entry
+        try (MappedFileBlockStore store = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            appendBlocks(store, 3);
+        }
+        try (FileChannel index = FileChannel.open(directory.resolve("blocks.idx"), StandardOpenOption.WRITE)) {
+            index.truncate(2 * 12);
+        }
+
+        // Act
+        try (MappedFileBlockStore reopened = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            // Assert
+            assertThat(reopened.size()).isEqualTo(3);
+            assertThat(reopened.findByHeight(2)).isPresent();
+        }
+    }
+
+    @Test
+    void open_shouldWipeTornTailAndAcceptNewAppends() throws IOException {
+        // Arrange: corrupt the body of the last record, as if the process died mid-write
+        long lastOffset;
+        try (MappedFileBlockStore store = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            appendBlocks(store, 2);
+        }
+        try (FileChannel index = FileChannel.open(directory.resolve("blocks.idx"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer entry = ByteBuffer.allocate(12);
+            index.read(entry, 12);
+            lastOffset = entry.getLong(4);
+            index.truncate(12);
+        }
+        try (FileChannel segment = FileChannel.open(directory.resolve("blocks-00000.log"), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), lastOffset + 60);
+        }
+
+        // Act
+        try (MappedFileBlockStore reopened = new MappedFileBlockStore(directory, SEGMENT_SIZE)) {
+            // Assert: the torn block is gone and the log keeps growing from height 1
+            assertThat(reopened.size()).isEqualTo(1);
+            Block replacement = new Block(1L, List.of("tx-new"), "root-new", reopened.findByHeight(0).orElseThrow().getCurrentBlockHash());
+            reopened.append(replacement);
+            assertThat(reopened.findByHeight(1)).contains(replacement);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.cryptowallet.blockchain.store;
+
+import com.cryptowallet.model.Block;
+import com.cryptowallet.repository.BlockRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoBlockStoreTest {
+
+    @Mock
+    private BlockRepository blockRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    private MongoBlockStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MongoBlockStore(blockRepository, mongoTemplate);
+        lenient().when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Block.class))).thenReturn(bulkOperations);
+    }
+
+    private static Block block(String id, Long height, String previousHash, String hash) {
+        Block block = new Block();
+        block.setId(id);
+        block.setHeight(height);
+        block.setPreviousBlockHash(previousHash);
+        block.setCurrentBlockHash(hash);
+        return block;
+    }
+
+    private void storeBlocksWithoutHeight(Block tip, Block... blocks) {
+        when(mongoTemplate.exists(any(Query.class), eq(Block.class))).thenReturn(true);
+        when(mongoTemplate.findOne(any(Query.class), eq(Block.class))).thenReturn(tip);
+        when(mongoTemplate.stream(any(Query.class), eq(Block.class))).thenReturn(Stream.of(blocks), Stream.empty());
+    }
+
+    @Test
+    void forEachHeader_shouldNumberBlocksWithoutAHeightOnFromTheHighestHeight() {
+        // Arrange: three blocks written without a height after the block at height 4, streamed out of order
+        storeBlocksWithoutHeight(block("d", 4L, "h3", "h4"),
+                block("g", null, "h6", "h7"), block("e", null, "h4", "h5"), block("f", null, "h5", "h6"));
+
+        // Act
+        store.forEachHeader(block -> { });
+
+        // Assert
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).bulkOps(BulkOperations.BulkMode.ORDERED, Block.class);
+        verify(bulkOperations, times(3)).updateOne(queries.capture(), updates.capture());
+        verify(bulkOperations).execute();
+        assertThat(queries.getAllValues()).extracting(query -> query.getQueryObject().get("_id")).containsExactly("e", "f", "g");
+        assertThat(queries.getAllValues()).allSatisfy(query ->
+                assertThat(query.getQueryObject().get("height")).isEqualTo(new Document("$exists", false)));
+        assertThat(updates.getAllValues()).extracting(update -> ((Document) update.getUpdateObject().get("$set")).get("height"))
+                .containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    void forEachHeader_shouldNumberALegacyChainFromZero() {
+        // Arrange
+        storeBlocksWithoutHeight(null, block("b", null, "h0", "h1"), block("a", null, "GENESIS", "h0"));
+
+        // Act
+        store.forEachHeader(block -> { });
+
+        // Assert
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        assertThat(updates.getAllValues()).extracting(update -> ((Document) update.getUpdateObject().get("$set")).get("height"))
+                .containsExactly(0L, 1L);
+    }
+
+    @Test
+    void forEachHeader_shouldRefuseToNumberAForkedChain() {
+        // Arrange
+        storeBlocksWithoutHeight(null, block("a", null, "GENESIS", "h0"), block("b", null, "h0", "h1"), block("c", null, "h0", "h1b"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.forEachHeader(block -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("forked");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Block.class));
+    }
+
+    @Test
+    void forEachHeader_shouldRefuseToPickBetweenSeveralStartingBlocks() {
+        // Arrange
+        storeBlocksWithoutHeight(null, block("a", null, "GENESIS", "h0"), block("b", null, "OTHER", "h1"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.forEachHeader(block -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("found 2");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Block.class));
+    }
+
+    @Test
+    void forEachHeader_shouldRefuseBlocksThatDoNotFollowTheHighestHeight() {
+        // Arrange
+        storeBlocksWithoutHeight(block("d", 4L, "h3", "h4"), block("e", null, "h2", "h5"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.forEachHeader(block -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("height 4");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Block.class));
+    }
+
+    @Test
+    void forEachHeader_shouldRefuseBlocksThatDoNotAllLinkIntoOneChain() {
+        // Arrange: a chain plus a two-block cycle that has no starting block of its own
+        storeBlocksWithoutHeight(null, block("a", null, "GENESIS", "h0"), block("x", null, "hy", "hx"), block("y", null, "hx", "hy"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.forEachHeader(block -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Only 1 of 3");
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void ensureHeightIndex_shouldCreateAUniqueSparseIndexOnHeight() {
+        // Arrange
+        when(mongoTemplate.indexOps(Block.class)).thenReturn(indexOperations);
+
+        // Act
+        store.ensureHeightIndex();
+
+        // Assert
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations).ensureIndex(index.capture());
+        assertThat(index.getValue().getIndexKeys()).isEqualTo(new Document("height", 1));
+        assertThat(index.getValue().getIndexOptions()).containsEntry("unique", true).containsEntry("sparse", true);
+    }
+
+    @Test
+    void ensureHeightIndex_shouldFailStartUpWhenTheIndexCannotBeCreated() {
+        // Arrange: e.g. two blocks already share a height
+        when(mongoTemplate.indexOps(Block.class)).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.ensureHeightIndex())
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(DuplicateKeyException.class);
+    }
+}
@@ -1,7 +1,13 @@
 package com.cryptowallet.controller;
 
+import com.cryptowallet.blockchain.MerkleProofService;
+import com.cryptowallet.blockchain.TransactionBlockIndex;
+import com.cryptowallet.dto.BatchTransactionResponseDTO;
+import com.cryptowallet.dto.BatchTransactionResultDTO;
 import com.cryptowallet.dto.SendTransactionRequestDTO;
 import com.cryptowallet.dto.TransactionDTO;
+import com.cryptowallet.dto.TransactionLocationDTO;
+import com.cryptowallet.service.BatchTransactionService;
 import com.cryptowallet.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -14,10 +20,14 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -34,6 +44,15 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionBlockIndex transactionBlockIndex;
+
+    @MockBean
+    private MerkleProofService merkleProofService;
+
+    @MockBean
+    private BatchTransactionService batchTransactionService;
+
     // ObjectMapper can be autowired to help create JSON strings
     @Autowired
     private ObjectMapper objectMapper;
@@ -64,4 +83,44 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.id").value("tx-id-1"))
                 .andExpect(jsonPath("$.amount").value(10.5));
     }
+
+    @Test
+    @WithMockUser
+    void shouldReturnTheBlockOfASealedTransaction() throws Exception {
+        // Arrange
+        when(transactionBlockIndex.find("tx-id-1")).thenReturn(Optional.of(new TransactionLocationDTO("tx-id-1", 7, "block-hash", 3)));
+        when(transactionBlockIndex.find("tx-pending")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/tx-id-1/block"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.blockHeight").value(7))
+                .andExpect(jsonPath("$.position").value(3));
+        mockMvc.perform(get("/api/transactions/tx-pending/block"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnAResultPerTransactionOfABatch() throws Exception {
+        // Arrange
+        List<SendTransactionRequestDTO> requestDtos = List.of(
+                new SendTransactionRequestDTO("addr1", "addr2", new BigDecimal("1"), "sig-1", "BTC"),
+                new SendTransactionRequestDTO("addr1", "addr2", new BigDecimal("-1"), "sig-2", "BTC"));
+        TransactionDTO stored = new TransactionDTO(
+                "tx-id-1", "addr1", "addr2", new BigDecimal("1"), "BTC", "sig-1", Instant.now(), com.cryptowallet.domain.TransactionStatus.PENDING);
+        when(batchTransactionService.processBatch(anyList())).thenReturn(new BatchTransactionResponseDTO(1, 0, 1, List.of(
+                BatchTransactionResultDTO.accepted(0, stored),
+                BatchTransactionResultDTO.rejected(1, "Amount must be positive"))));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDtos))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.results[0].transaction.id").value("tx-id-1"))
+                .andExpect(jsonPath("$.results[1].outcome").value("REJECTED"));
+    }
 }
@@ -0,0 +1,62 @@
+package com.cryptowallet.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ByteArrayMerkleEngineTest {
+
+    private final ByteArrayMerkleEngine engine = new ByteArrayMerkleEngine();
+
+    private static List<String> leaves(int count) {
+        List<String> leaves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            leaves.add("signature-" + i);
+        }
+        return leaves;
+    }
+
+    @Test
+    void computeRoot_shouldMatchBinaryFormatTree() {
+        for (int count = 1; count <= 17; count++) {
+            // Act
+            String root = engine.computeRoot(leaves(count));
+
+            // Assert: the in-place engine agrees with the level-by-level definition of the format
+            assertThat(root).as("root of %d leaves", count)
+                    .isEqualTo(MerkleTree.build(MerkleFormat.BINARY, leaves(count)).getMerkleRoot());
+        }
+    }
+
+    @Test
+    void computeRoot_shouldDifferFromCompositeFormat() {
+        // Act
+        String binaryRoot = engine.computeRoot(leaves(4));
+        String compositeRoot = new CompositeMerkleEngine().computeRoot(leaves(4));
+
+        // Assert
+        assertThat(binaryRoot).isNotEqualTo(compositeRoot);
+        assertThat(MerkleFormat.of(null)).isEqualTo(MerkleFormat.COMPOSITE);
+    }
+
+    @Test
+    void binaryProof_shouldVerifyAgainstEngineRoot() {
+        // Arrange
+        MerkleTree tree = MerkleTree.build(MerkleFormat.BINARY, leaves(6));
+
+        // Act
+        MerkleProof proof = tree.proof(5);
+
+        // Assert
+        assertThat(proof.verify(engine.computeRoot(leaves(6)))).isTrue();
+    }
+
+    @Test
+    void computeRoot_shouldRejectEmptyList() {
+        assertThatThrownBy(() -> engine.computeRoot(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
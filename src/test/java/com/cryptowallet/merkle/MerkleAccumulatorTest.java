@@ -0,0 +1,61 @@
+package com.cryptowallet.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MerkleAccumulatorTest {
+
+    private static List<String> leaves(int count) {
+        List<String> leaves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            leaves.add("signature-" + i);
+        }
+        return leaves;
+    }
+
+    @Test
+    void root_shouldMatchEngineRootForEveryTreeShape() {
+        for (MerkleEngine engine : List.of(new CompositeMerkleEngine(), new ByteArrayMerkleEngine())) {
+            for (int count = 1; count <= 70; count++) {
+                // Arrange
+                MerkleAccumulator accumulator = engine.newAccumulator();
+
+                // Act
+                accumulator.addAll(leaves(count).iterator());
+
+                // Assert
+                assertThat(accumulator.root())
+                        .as("%s root of %d leaves", engine.format(), count)
+                        .isEqualTo(engine.computeRoot(leaves(count)));
+            }
+        }
+    }
+
+    @Test
+    void root_shouldLeaveAccumulatorUsableForMoreLeaves() {
+        // Arrange
+        MerkleEngine engine = new ByteArrayMerkleEngine();
+        MerkleAccumulator accumulator = engine.newAccumulator();
+        accumulator.addAll(leaves(5).iterator());
+
+        // Act
+        String rootOfFive = accumulator.root();
+        accumulator.add("signature-5");
+
+        // Assert
+        assertThat(rootOfFive).isEqualTo(engine.computeRoot(leaves(5)));
+        assertThat(accumulator.root()).isEqualTo(engine.computeRoot(leaves(6)));
+        assertThat(accumulator.count()).isEqualTo(6);
+    }
+
+    @Test
+    void root_shouldRejectEmptyTree() {
+        assertThatThrownBy(() -> new CompositeMerkleEngine().newAccumulator().root())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.cryptowallet.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MerkleTreeBuilderTest {
+
+    private final MerkleTreeBuilder merkleTreeBuilder = new MerkleTreeBuilder();
+
+    @Test
+    void buildTree_shouldReturnRootMatchingComputeRoot() {
+        // Arrange
+        List<String> hashes = List.of("a", "b", "c");
+
+        // Act
+        MerkleNode root = merkleTreeBuilder.buildTree(hashes);
+
+        // Assert
+        assertThat(root).isInstanceOf(InternalNode.class);
+        assertThat(root.getHash()).isEqualTo(merkleTreeBuilder.computeRoot(hashes));
+        assertThat(((InternalNode) root).getRight().getHash())
+                .as("odd level duplicates its last node")
+                .isEqualTo(MerkleNode.calculateSha256Hash("cc"));
+    }
+
+    @Test
+    void computeRoot_shouldBeSafeToCallConcurrentlyOnOneBuilder() throws Exception {
+        // Arrange: each task builds a different tree on the shared builder
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            // Act
+            for (int task = 0; task < 200; task++) {
+                List<String> hashes = List.of("tx-" + task, "tx-" + (task + 1), "tx-" + (task + 2));
+                String expected = new MerkleTreeBuilder().computeRoot(hashes);
+                results.add(executor.submit(() -> merkleTreeBuilder.computeRoot(hashes).equals(expected)));
+            }
+
+            // Assert
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void buildTree_shouldRejectEmptyList() {
+        assertThatThrownBy(() -> merkleTreeBuilder.buildTree(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.cryptowallet.merkle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MerkleTreeTest {
+
+    private static List<String> leaves(int count) {
+        List<String> leaves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            leaves.add("signature-" + i);
+        }
+        return leaves;
+    }
+
+    @Test
+    void build_shouldProduceSameRootAsMerkleTreeBuilder() {
+        for (int count = 1; count <= 17; count++) {
+            // Arrange
+            String expectedRoot = new MerkleTreeBuilder().computeRoot(leaves(count));
+
+            // Act
+            MerkleTree tree = MerkleTree.build(leaves(count));
+
+            // Assert
+            assertThat(tree.getMerkleRoot()).as("root of %d leaves", count).isEqualTo(expectedRoot);
+        }
+    }
+
+    @Test
+    void depth_shouldMatchTheSiblingCountOfEveryProof() {
+        for (int count = 1; count <= 17; count++) {
+            // Act
+            MerkleTree tree = MerkleTree.build(leaves(count));
+
+            // Assert
+            assertThat(tree.proof(count - 1).siblings()).as("proof in %d leaves", count).hasSize(MerkleTree.depth(count));
+        }
+    }
+
+    @Test
+    void proof_shouldVerifyForEveryLeaf() {
+        for (int count = 1; count <= 17; count++) {
+            MerkleTree tree = MerkleTree.build(leaves(count));
+            for (int index = 0; index < count; index++) {
+                // Act
+                MerkleProof proof = tree.proof(index);
+
+                // Assert
+                assertThat(proof.leafHash()).isEqualTo("signature-" + index);
+                assertThat(proof.verify(tree.getMerkleRoot())).as("leaf %d of %d", index, count).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void verify_shouldRejectTamperedProof() {
+        // Arrange
+        MerkleTree tree = MerkleTree.build(leaves(7));
+        MerkleProof proof = tree.proof(3);
+
+        // Act
+        MerkleProof wrongLeaf = new MerkleProof("forged", proof.leafIndex(), proof.siblings());
+        MerkleProof wrongIndex = new MerkleProof(proof.leafHash(), 2, proof.siblings());
+        MerkleProof aliasedIndex = new MerkleProof(proof.leafHash(), 3 + 8, proof.siblings());
+
+        // Assert
+        assertThat(wrongLeaf.verify(tree.getMerkleRoot())).isFalse();
+        assertThat(wrongIndex.verify(tree.getMerkleRoot())).isFalse();
+        assertThat(aliasedIndex.verify(tree.getMerkleRoot())).isFalse();
+    }
+}
@@ -0,0 +1,62 @@
+package com.cryptowallet.merkle;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelMerkleRootTest {
+
+    // Chunk-aligned sizes, sizes with a one-leaf tail (duplicated up through every chunk level) and odd tails
+    private static final int[] LEAF_COUNTS = {1, 2047, 2048, 2049, 3072, 3073, 4097, 5000, 8191};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private static List<String> leaves(int count) {
+        List<String> leaves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            leaves.add("signature-" + i);
+        }
+        return leaves;
+    }
+
+    @Test
+    void byteArrayEngine_shouldGiveSameRootInParallel() {
+        ByteArrayMerkleEngine sequential = new ByteArrayMerkleEngine();
+        ByteArrayMerkleEngine parallel = new ByteArrayMerkleEngine(pool, 1);
+
+        for (int count : LEAF_COUNTS) {
+            assertThat(parallel.computeRoot(leaves(count)))
+                    .as("root of %d leaves", count)
+                    .isEqualTo(sequential.computeRoot(leaves(count)));
+        }
+    }
+
+    @Test
+    void merkleTreeBuilder_shouldGiveSameRootInParallel() {
+        MerkleTreeBuilder sequential = new MerkleTreeBuilder();
+        MerkleTreeBuilder parallel = new MerkleTreeBuilder(pool, 1);
+
+        for (int count : LEAF_COUNTS) {
+            assertThat(parallel.computeRoot(leaves(count)))
+                    .as("root of %d leaves", count)
+                    .isEqualTo(sequential.computeRoot(leaves(count)));
+        }
+    }
+
+    @Test
+    void chunkLevels_shouldKeepSmallTreesSequential() {
+        assertThat(MerkleChunking.chunkLevels(MerkleChunking.MIN_CHUNK_SIZE, 4)).isEqualTo(-1);
+        assertThat(MerkleChunking.chunkLevels(MerkleChunking.MIN_CHUNK_SIZE + 1, 4)).isEqualTo(10);
+        assertThat(MerkleChunking.chunkLevels(1 << 20, 4)).isEqualTo(16);
+    }
+}
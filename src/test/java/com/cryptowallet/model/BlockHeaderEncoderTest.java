@@ -0,0 +1,107 @@
+package com.cryptowallet.model;
+
+import com.cryptowallet.crypto.Sha256;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BlockHeaderEncoderTest {
+
+    private static final String MARKER = "genesis";
+    private static final String MARKER_HASH =
+            Base64.getEncoder().encodeToString(Sha256.hash(MARKER.getBytes(StandardCharsets.UTF_8)));
+
+    @Test
+    void hash_shouldNotCollideWhenAPreviousHashIsTheBase64OfAnotherBlocksMarker() {
+        // Arrange
+        Block fromMarker = new Block(1, List.of("tx1"), "root", MARKER);
+        Block fromMarkerHash = copyWithPreviousHash(fromMarker, MARKER_HASH);
+
+        // Act & Assert
+        assertThat(fromMarker.getHashVersion()).isEqualTo(BlockHeaderEncoder.VERSION_BINARY);
+        assertThat(fromMarkerHash.calculateHash()).isNotEqualTo(fromMarker.calculateHash());
+    }
+
+    @Test
+    void hash_shouldNotCollideWhenAMerkleRootIsTheBase64OfAnotherBlocksRoot() {
+        // Arrange
+        Block fromText = new Block(1, List.of("tx1"), MARKER, "prev", MARKER_HASH);
+        Block fromTextHash = copyWithPreviousHash(fromText, "prev");
+        fromTextHash.setMerkleRoot(MARKER_HASH);
+
+        // Act & Assert
+        assertThat(fromText.getHashVersion()).isEqualTo(BlockHeaderEncoder.VERSION_STATE);
+        assertThat(fromTextHash.calculateHash()).isNotEqualTo(fromText.calculateHash());
+    }
+
+    @Test
+    void encode_shouldWriteTheTaggedFieldsAtTheirFixedOffsets() {
+        // Arrange
+        Block block = new Block(7, List.of("tx1"), MARKER_HASH, MARKER, MARKER_HASH);
+        ByteBuffer header = ByteBuffer.allocate(BlockHeaderEncoder.STATE_HEADER_LENGTH);
+
+        // Act
+        BlockHeaderEncoder.encode(block, header);
+
+        // Assert
+        byte[] bytes = header.array();
+        assertThat(header.position()).isEqualTo(BlockHeaderEncoder.STATE_HEADER_LENGTH);
+        assertThat(bytes[0]).isEqualTo((byte) BlockHeaderEncoder.VERSION_STATE);
+        assertThat(bytes[21]).isEqualTo(Sha256.TAG_HASHED); // The marker is hashed
+        assertThat(Arrays.copyOfRange(bytes, 22, 54)).isEqualTo(Sha256.hash(MARKER.getBytes(StandardCharsets.UTF_8)));
+        assertThat(bytes[54]).isEqualTo(Sha256.TAG_DECODED); // The Merkle root is decoded
+        assertThat(Arrays.copyOfRange(bytes, 55, 87)).isEqualTo(Base64.getDecoder().decode(MARKER_HASH));
+        assertThat(Arrays.copyOfRange(bytes, 87, 119)).isEqualTo(Base64.getDecoder().decode(block.getTransactionsRoot()));
+        assertThat(Arrays.copyOfRange(bytes, 119, 151)).isEqualTo(Base64.getDecoder().decode(MARKER_HASH));
+    }
+
+    @Test
+    void encode_shouldRejectALegacyBlock() {
+        // Arrange
+        Block legacy = new Block(List.of("tx1"), "root", MARKER);
+
+        // Act & Assert
+        assertThatThrownBy(() -> BlockHeaderEncoder.encode(legacy, ByteBuffer.allocate(BlockHeaderEncoder.STATE_HEADER_LENGTH)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void toTaggedHashBytes_shouldHashNonCanonicalBase64InsteadOfDecodingIt() {
+        // Arrange: same decoded bytes, but the last character carries non-zero unused bits
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        int last = alphabet.indexOf(MARKER_HASH.charAt(42));
+        String nonCanonical = MARKER_HASH.substring(0, 42) + alphabet.charAt(last ^ 1) + "=";
+
+        // Act
+        byte[] canonical = Sha256.toTaggedHashBytes(MARKER_HASH);
+        byte[] other = Sha256.toTaggedHashBytes(nonCanonical);
+
+        // Assert
+        assertThat(Base64.getDecoder().decode(nonCanonical)).isEqualTo(Base64.getDecoder().decode(MARKER_HASH));
+        assertThat(canonical[0]).isEqualTo(Sha256.TAG_DECODED);
+        assertThat(other[0]).isEqualTo(Sha256.TAG_HASHED);
+        assertThat(other).isNotEqualTo(canonical);
+        assertThatThrownBy(() -> Sha256.putHash(ByteBuffer.allocate(Sha256.HASH_LENGTH), nonCanonical))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Block copyWithPreviousHash(Block block, String previousHash) {
+        Block copy = new Block();
+        copy.setHeight(block.getHeight());
+        copy.setTransactionsIds(block.getTransactionsIds());
+        copy.setTimestamp(block.getTimestamp());
+        copy.setMerkleRoot(block.getMerkleRoot());
+        copy.setPreviousBlockHash(previousHash);
+        copy.setHashVersion(block.getHashVersion());
+        copy.setTransactionsRoot(block.getTransactionsRoot());
+        copy.setStateRoot(block.getStateRoot());
+        return copy;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.domain.TransactionStatus;
+import com.cryptowallet.exception.InsufficientBalanceException;
+import com.cryptowallet.model.TransactionDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncTransactionProcessorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionLaneExecutor laneExecutor;
+
+    @InjectMocks
+    private AsyncTransactionProcessor processor;
+
+    private void processOnLane(String transactionId) {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        processor.processTransaction(transactionId, "from");
+        verify(laneExecutor).submit(eq("from"), task.capture());
+        task.getValue().run();
+    }
+
+    private TransactionDocument claimed(String transactionId) {
+        TransactionDocument transaction = new TransactionDocument("from", "to", new BigDecimal("10"), "BTC", "sig");
+        transaction.setId(transactionId);
+        transaction.setStatus(TransactionStatus.PROCESSING);
+        return transaction;
+    }
+
+    @Test
+    void processTransaction_shouldClaimWithOneUpdateAndCompleteWithAStatusOnlyUpdate() {
+        // Arrange
+        TransactionDocument transaction = claimed("tx-id");
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> completion = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(TransactionDocument.class)))
+                .thenReturn(transaction);
+
+        // Act
+        processOnLane("tx-id");
+
+        // Assert
+        assertThat(claim.getValue().getQueryObject().get("status")).isEqualTo(TransactionStatus.PENDING);
+        verify(transactionService).executeTransaction(transaction);
+        verify(mongoTemplate).updateFirst(any(Query.class), completion.capture(), eq(TransactionDocument.class));
+        assertThat(completion.getValue().getUpdateObject().get("$set", Document.class))
+                .containsOnlyKeys("status")
+                .containsEntry("status", TransactionStatus.COMPLETED);
+    }
+
+    @Test
+    void processTransaction_shouldSkipATransactionThatIsNoLongerPending() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(TransactionDocument.class)))
+                .thenReturn(null);
+
+        // Act
+        processOnLane("tx-id");
+
+        // Assert
+        verify(transactionService, never()).executeTransaction(any());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(TransactionDocument.class));
+    }
+
+    @Test
+    void processTransaction_shouldMarkTheTransactionFailedWhenExecutionFails() {
+        // Arrange
+        TransactionDocument transaction = claimed("tx-id");
+        ArgumentCaptor<Update> outcome = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(TransactionDocument.class)))
+                .thenReturn(transaction);
+        doThrow(new InsufficientBalanceException("Insufficient funds")).when(transactionService).executeTransaction(transaction);
+
+        // Act
+        processOnLane("tx-id");
+
+        // Assert
+        verify(mongoTemplate).updateFirst(any(Query.class), outcome.capture(), eq(TransactionDocument.class));
+        assertThat(outcome.getValue().getUpdateObject().get("$set", Document.class))
+                .containsEntry("status", TransactionStatus.FAILED);
+    }
+}
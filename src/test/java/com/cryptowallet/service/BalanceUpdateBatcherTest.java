@@ -0,0 +1,326 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.exception.InsufficientBalanceException;
+import com.cryptowallet.exception.WalletNotFoundException;
+import com.cryptowallet.model.TransactionDocument;
+import com.cryptowallet.model.WalletDocument;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BalanceUpdateBatcherTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private final TransactionLaneExecutor laneExecutor = new TransactionLaneExecutor(64, 16);
+
+    private BalanceUpdateBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, false, 256, 2);
+        lenient().when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> List.of(wallet("alice", "100"), wallet("bob", "0")));
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, WalletDocument.class)).thenReturn(bulkOperations);
+    }
+
+    private static WalletDocument wallet(String address, String usd) {
+        WalletDocument wallet = new WalletDocument("user-" + address, address);
+        wallet.getBalances().put("USD", new BigDecimal(usd));
+        return wallet;
+    }
+
+    private static TransactionDocument transfer(String id, String from, String to, String amount) {
+        TransactionDocument transaction = new TransactionDocument(from, to, new BigDecimal(amount), "USD", "sig-" + id);
+        transaction.setId(id);
+        return transaction;
+    }
+
+    private static BulkOperationException stoppedAt(int index) {
+        BulkWriteError duplicateAddress = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), index);
+        return new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, index, 0, index, List.of(), List.of()),
+                List.of(duplicateAddress), null, new ServerAddress(), Set.of()));
+    }
+
+    @Test
+    void apply_shouldCheckTransfersInOrderAndWriteTheAcceptedOnesInOneBulk() {
+        // Arrange
+        TransactionDocument first = transfer("tx-1", "alice", "bob", "60");
+        TransactionDocument overdraft = transfer("tx-2", "alice", "bob", "60"); // Only 40 left after tx-1
+        TransactionDocument spendReceived = transfer("tx-3", "bob", "alice", "30"); // Covered by tx-1
+        TransactionDocument unknownReceiver = transfer("tx-4", "alice", "carol", "1");
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures =
+                batcher.apply(List.of(first, overdraft, spendReceived, unknownReceiver));
+
+        // Assert
+        assertThat(failures).containsOnlyKeys(overdraft, unknownReceiver);
+        assertThat(failures.get(overdraft)).isInstanceOf(InsufficientBalanceException.class);
+        assertThat(failures.get(unknownReceiver)).isInstanceOf(WalletNotFoundException.class)
+                .hasMessage("Receiver wallet not found: carol");
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(WalletDocument.class));
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+        assertThat(batcher.metrics().roundTrips()).isEqualTo(2);
+    }
+
+    @Test
+    void apply_shouldFailTheTransferWhoseConditionalDebitStoppedTheBulkAndRetryTheRest() {
+        // Arrange
+        TransactionDocument first = transfer("tx-1", "alice", "bob", "10");
+        TransactionDocument raced = transfer("tx-2", "alice", "bob", "10");
+        TransactionDocument last = transfer("tx-3", "alice", "bob", "10");
+        when(bulkOperations.execute())
+                .thenThrow(stoppedAt(2))
+                .thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(first, raced, last));
+
+        // Assert
+        assertThat(failures).containsOnlyKeys(raced);
+        assertThat(failures.get(raced)).isInstanceOf(InsufficientBalanceException.class);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(WalletDocument.class)); // Fresh balances for tx-3
+        verify(bulkOperations, times(2)).execute();
+        assertThat(batcher.metrics().retriedTransfers()).isEqualTo(1);
+    }
+
+    @Test
+    void apply_shouldNetTransfersIntoOneGuardedUpdatePerWallet() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, true, 256, 2);
+        List<TransactionDocument> transfers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            transfers.add(transfer("out-" + i, "alice", "bob", "10"));
+            transfers.add(transfer("back-" + i, "bob", "alice", "8")); // bob returns most of it
+        }
+        TransactionDocument overdraft = transfer("overdraft", "alice", "bob", "1000");
+        transfers.add(overdraft);
+        ArgumentCaptor<Query> guards = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> guardedUpdates = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<Update> credits = ArgumentCaptor.forClass(Update.class);
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(transfers);
+
+        // Assert
+        assertThat(failures).containsOnlyKeys(overdraft);
+        verify(bulkOperations).upsert(guards.capture(), guardedUpdates.capture());
+        verify(bulkOperations).updateOne(any(Query.class), credits.capture());
+        verify(bulkOperations, times(1)).execute();
+        // alice ends 80 down, and is 88 down just before the last 8 comes back
+        Document guard = guards.getValue().getQueryObject();
+        assertThat(guard.get("address")).isEqualTo("alice");
+        assertThat(((Document) guard.get("balances.USD")).get("$gte")).isEqualTo(new BigDecimal("88"));
+        assertThat(((Document) guardedUpdates.getValue().getUpdateObject().get("$inc")).get("balances.USD"))
+                .isEqualTo(new BigDecimal("-80"));
+        assertThat(((Document) credits.getValue().getUpdateObject().get("$inc")).get("balances.USD"))
+                .isEqualTo(new BigDecimal("80"));
+        assertThat(batcher.metrics().writeOperations()).isEqualTo(2);
+    }
+
+    @Test
+    void apply_shouldWriteEveryGuardBeforeAnyCredit() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, true, 256, 2);
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> List.of(wallet("alice", "100"), wallet("bob", "100")));
+        TransactionDocument aliceToBob = transfer("tx-1", "alice", "bob", "60"); // alice dips by 60
+        TransactionDocument bobToAlice = transfer("tx-2", "bob", "alice", "70"); // bob dips by 10, alice ends 10 up
+        ArgumentCaptor<Update> guardedUpdates = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<Update> credits = ArgumentCaptor.forClass(Update.class);
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(aliceToBob, bobToAlice));
+
+        // Assert
+        assertThat(failures).isEmpty();
+        InOrder order = inOrder(bulkOperations);
+        order.verify(bulkOperations, times(2)).upsert(any(Query.class), guardedUpdates.capture());
+        order.verify(bulkOperations).updateOne(any(Query.class), credits.capture());
+        assertThat(guardedUpdates.getAllValues()).extracting(update -> usdIncrement(update))
+                .containsExactly(new BigDecimal("0"), new BigDecimal("-10")); // alice's guard carries no credit
+        assertThat(usdIncrement(credits.getValue())).isEqualTo(new BigDecimal("10"));
+    }
+
+    @Test
+    void apply_shouldRevertOnlyDebitsWhenANettedGuardFailsAndWriteTransferByTransfer() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, true, 256, 2);
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> List.of(wallet("alice", "100"), wallet("bob", "100"), wallet("carol", "0")));
+        TransactionDocument aliceToCarol = transfer("tx-1", "alice", "carol", "30");
+        TransactionDocument bobToCarol = transfer("tx-2", "bob", "carol", "30");
+        when(bulkOperations.execute())
+                .thenThrow(stoppedAt(1)) // bob's guard: his balance changed since it was read
+                .thenReturn(BulkWriteResult.acknowledged(0, 4, 0, 4, List.of(), List.of()));
+        ArgumentCaptor<Update> reverted = ArgumentCaptor.forClass(Update.class);
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(aliceToCarol, bobToCarol));
+
+        // Assert
+        assertThat(failures).isEmpty();
+        verify(mongoTemplate).updateFirst(any(Query.class), reverted.capture(), eq(WalletDocument.class));
+        assertThat(usdIncrement(reverted.getValue())).isEqualTo(new BigDecimal("30")); // alice's debit given back
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(WalletDocument.class));
+        verify(bulkOperations, times(4)).upsert(any(Query.class), any(Update.class)); // Two guards, then two debits
+        verify(bulkOperations, times(3)).updateOne(any(Query.class), any(Update.class)); // carol's net, then two credits
+        assertThat(batcher.metrics().nettingFallbacks()).isEqualTo(1);
+        assertThat(batcher.metrics().unsettledCredits()).isZero();
+    }
+
+    @Test
+    void apply_shouldLeaveOnlyDebitsBehindAndFailTheBatchWhenTheRevertFails() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, true, 256, 2);
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> List.of(wallet("alice", "100"), wallet("bob", "100"), wallet("carol", "0")));
+        when(bulkOperations.execute()).thenThrow(stoppedAt(1));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WalletDocument.class)))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ArgumentCaptor<Update> guardedUpdates = ArgumentCaptor.forClass(Update.class);
+        TransactionDocument aliceToCarol = transfer("tx-1", "alice", "carol", "30");
+        TransactionDocument bobToCarol = transfer("tx-2", "bob", "carol", "30");
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(aliceToCarol, bobToCarol));
+
+        // Assert
+        assertThat(failures).containsOnlyKeys(aliceToCarol, bobToCarol);
+        assertThat(failures.get(aliceToCarol)).isInstanceOf(IllegalStateException.class)
+                .hasMessage("Could not update the balances of transaction tx-1.");
+        assertThat(batcher.metrics().unsettledCredits()).isEqualTo(1); // alice's debit, to be given back
+        InOrder order = inOrder(bulkOperations);
+        order.verify(bulkOperations, times(2)).upsert(any(Query.class), guardedUpdates.capture());
+        order.verify(bulkOperations).updateOne(any(Query.class), any(Update.class));
+        // Everything the write could have applied before bob's guard is a debit, so no money was created
+        assertThat(usdIncrement(guardedUpdates.getAllValues().get(0))).isEqualTo(new BigDecimal("-30"));
+        verify(bulkOperations, times(1)).execute(); // Not written transfer by transfer on top of the failed revert
+
+        // Act
+        boolean settled = batcher.settle();
+
+        // Assert
+        assertThat(settled).isTrue();
+        assertThat(batcher.metrics().unsettledCredits()).isZero();
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(WalletDocument.class));
+    }
+
+    @Test
+    void apply_shouldWriteTheRemainingCreditsAgainOnceEveryGuardMatched() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, laneExecutor, true, true, 256, 2);
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class)))
+                .thenAnswer(invocation -> List.of(wallet("alice", "100"), wallet("bob", "0"), wallet("carol", "0")));
+        when(bulkOperations.execute()).thenThrow(stoppedAt(2)); // carol's credit, after alice's guard and bob's credit
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WalletDocument.class)))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ArgumentCaptor<Query> credited = ArgumentCaptor.forClass(Query.class);
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(
+                transfer("tx-1", "alice", "bob", "30"), transfer("tx-2", "alice", "carol", "30")));
+
+        // Assert
+        assertThat(failures).isEmpty(); // alice's debits stand, so both transfers are applied
+        verify(bulkOperations, times(1)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+        assertThat(batcher.metrics().nettingFallbacks()).isZero();
+        assertThat(batcher.metrics().unsettledCredits()).isEqualTo(1);
+
+        // Act
+        boolean settled = batcher.settle();
+
+        // Assert
+        assertThat(settled).isTrue();
+        verify(mongoTemplate, times(2)).updateFirst(credited.capture(), any(Update.class), eq(WalletDocument.class));
+        assertThat(credited.getAllValues()).extracting(query -> query.getQueryObject().get("address"))
+                .containsExactly("carol", "carol");
+        assertThat(batcher.metrics().unsettledCredits()).isZero();
+    }
+
+    @Test
+    void apply_shouldReportATransferWhoseCreditFailedAsAppliedAndWriteTheCreditAgain() {
+        // Arrange
+        TransactionDocument first = transfer("tx-1", "alice", "bob", "10");
+        TransactionDocument uncredited = transfer("tx-2", "alice", "bob", "20");
+        TransactionDocument last = transfer("tx-3", "alice", "bob", "30");
+        when(bulkOperations.execute())
+                .thenThrow(stoppedAt(3)) // tx-2's credit, after its debit
+                .thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WalletDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ArgumentCaptor<Update> credit = ArgumentCaptor.forClass(Update.class);
+
+        // Act
+        Map<TransactionDocument, RuntimeException> failures = batcher.apply(List.of(first, uncredited, last));
+
+        // Assert
+        assertThat(failures).isEmpty();
+        verify(bulkOperations, times(2)).execute(); // tx-3 checked and written again
+        assertThat(batcher.metrics().unsettledCredits()).isEqualTo(1);
+
+        // Act
+        batcher.settle();
+
+        // Assert
+        verify(mongoTemplate).updateFirst(any(Query.class), credit.capture(), eq(WalletDocument.class));
+        assertThat(usdIncrement(credit.getValue())).isEqualTo(new BigDecimal("20"));
+        assertThat(batcher.metrics().unsettledCredits()).isZero();
+    }
+
+    @Test
+    void metrics_shouldDefaultMaxItemsToTheLaneCount() {
+        // Arrange
+        batcher = new BalanceUpdateBatcher(mongoTemplate, new TransactionLaneExecutor(8, 16), true, true, 0, 2);
+
+        // Act & Assert
+        assertThat(batcher.metrics().maxItems()).isEqualTo(8);
+    }
+
+    private static Object usdIncrement(Update update) {
+        return ((Document) update.getUpdateObject().get("$inc")).get("balances.USD");
+    }
+}
@@ -0,0 +1,184 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.dto.BatchTransactionResponseDTO;
+import com.cryptowallet.dto.BatchTransactionResultDTO.Outcome;
+import com.cryptowallet.dto.SendTransactionRequestDTO;
+import com.cryptowallet.exception.InvalidTransactionException;
+import com.cryptowallet.model.TransactionDocument;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchTransactionServiceTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AsyncTransactionProcessor asyncTransactionProcessor;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private BatchTransactionService batchTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        batchTransactionService = new BatchTransactionService(transactionService, mongoTemplate, asyncTransactionProcessor, 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchTransactionService.shutdown();
+    }
+
+    private static SendTransactionRequestDTO transfer(String amount, String signature) {
+        return new SendTransactionRequestDTO("from", "to", new BigDecimal(amount), signature, "BTC");
+    }
+
+    @Test
+    void processBatch_shouldInsertNewTransactionsInOneBulkWriteAndReportDuplicates() {
+        // Arrange
+        List<SendTransactionRequestDTO> requests = List.of(
+                transfer("1", "sig-new"), transfer("2", "sig-stored"), transfer("3", "sig-new"), transfer("0", "sig-zero"));
+        when(transactionService.resolveSignature(any())).thenAnswer(i -> ((SendTransactionRequestDTO) i.getArgument(0)).signature());
+        TransactionDocument stored = new TransactionDocument("from", "to", new BigDecimal("2"), "BTC", "sig-stored");
+        stored.setId("stored-id");
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class))).thenReturn(List.of(stored));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        ArgumentCaptor<List<TransactionDocument>> dispatched = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        BatchTransactionResponseDTO response = batchTransactionService.processBatch(requests);
+
+        // Assert
+        assertThat(response.results()).extracting(r -> r.outcome())
+                .containsExactly(Outcome.ACCEPTED, Outcome.DUPLICATE, Outcome.DUPLICATE, Outcome.REJECTED);
+        assertThat(response.results().get(1).transaction().id()).isEqualTo("stored-id");
+        String acceptedId = response.results().get(0).transaction().id();
+        assertThat(acceptedId).isNotNull();
+        assertThat(response.results().get(2).transaction().id()).isEqualTo(acceptedId);
+        assertThat(response.results().get(3).error()).isEqualTo("Amount must be positive");
+        assertThat(response.accepted()).isEqualTo(1);
+        assertThat(response.duplicates()).isEqualTo(2);
+        assertThat(response.rejected()).isEqualTo(1);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(TransactionDocument.class));
+        verify(bulkOperations).execute();
+        verify(asyncTransactionProcessor).processTransactions(dispatched.capture());
+        assertThat(dispatched.getValue()).extracting(TransactionDocument::getId).containsExactly(acceptedId);
+    }
+
+    @Test
+    void processBatch_shouldKeepTheTransactionsThatTheBulkInsertDidNotReject() {
+        // Arrange
+        List<SendTransactionRequestDTO> requests = List.of(transfer("1", "sig-a"), transfer("2", "sig-b"), transfer("3", "sig-c"));
+        when(transactionService.resolveSignature(any())).thenAnswer(i -> ((SendTransactionRequestDTO) i.getArgument(0)).signature());
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        List<BulkWriteError> errors = List.of(
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1),
+                new BulkWriteError(121, "Document failed validation", new BsonDocument(), 2));
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                        errors, null, new ServerAddress(), Set.of())));
+
+        // Act
+        BatchTransactionResponseDTO response = batchTransactionService.processBatch(requests);
+
+        // Assert
+        assertThat(response.results()).extracting(r -> r.outcome())
+                .containsExactly(Outcome.ACCEPTED, Outcome.DUPLICATE, Outcome.REJECTED);
+        ArgumentCaptor<List<TransactionDocument>> dispatched = ArgumentCaptor.forClass(List.class);
+        verify(asyncTransactionProcessor).processTransactions(dispatched.capture());
+        assertThat(dispatched.getValue()).extracting(TransactionDocument::getId)
+                .containsExactly(response.results().get(0).transaction().id());
+    }
+
+    @Test
+    void processBatch_shouldRejectAnInvalidSignatureWithoutFailingTheBatch() {
+        // Arrange
+        List<SendTransactionRequestDTO> requests = List.of(transfer("1", "forged"));
+        when(transactionService.resolveSignature(any())).thenThrow(new InvalidTransactionException("Transaction signature is invalid."));
+
+        // Act
+        BatchTransactionResponseDTO response = batchTransactionService.processBatch(requests);
+
+        // Assert
+        assertThat(response.rejected()).isEqualTo(1);
+        assertThat(response.results().get(0).error()).isEqualTo("Transaction signature is invalid.");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(TransactionDocument.class));
+        verify(asyncTransactionProcessor, never()).processTransactions(anyList());
+    }
+
+    @Test
+    void processBatch_shouldResolveSignaturesOnTheSigningThreadsInsteadOfTheCommonPool() {
+        // Arrange
+        List<SendTransactionRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(transfer("1", "sig-" + i));
+        }
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(transactionService.resolveSignature(any())).thenAnswer(i -> {
+            threads.add(Thread.currentThread().getName());
+            return ((SendTransactionRequestDTO) i.getArgument(0)).signature();
+        });
+        when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        // Act
+        BatchTransactionResponseDTO response = batchTransactionService.processBatch(requests);
+
+        // Assert
+        assertThat(response.accepted()).isEqualTo(50);
+        assertThat(threads).isNotEmpty().allMatch(name -> name.startsWith("batch-signing-"));
+        assertThat(threads.size()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void processBatch_shouldRefuseAnOversizedBatch() {
+        // Arrange
+        List<SendTransactionRequestDTO> requests = Collections.nCopies(101, transfer("1", "sig"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> batchTransactionService.processBatch(requests))
+                .isInstanceOf(InvalidTransactionException.class)
+                .hasMessageContaining("at most 100");
+    }
+}
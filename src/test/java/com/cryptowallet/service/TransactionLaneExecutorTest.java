@@ -0,0 +1,109 @@
+package com.cryptowallet.service;
+
+import com.cryptowallet.dto.ExecutionLaneMetricsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionLaneExecutorTest {
+
+    private TransactionLaneExecutor executor;
+
+    private TransactionLaneExecutor start(int lanes, int capacity) {
+        executor = new TransactionLaneExecutor(lanes, capacity);
+        executor.start();
+        return executor;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.stop();
+    }
+
+    @Test
+    void submit_shouldRunTheTasksOfOneSenderInSubmissionOrder() throws InterruptedException {
+        // Arrange
+        TransactionLaneExecutor lanes = start(4, 1000);
+        Map<String, List<Integer>> executed = new HashMap<>();
+        List<String> senders = List.of("alice", "bob", "carol", "dave", "erin");
+        senders.forEach(sender -> executed.put(sender, Collections.synchronizedList(new ArrayList<>())));
+        CountDownLatch done = new CountDownLatch(senders.size() * 200);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            int sequence = i;
+            for (String sender : senders) {
+                lanes.submit(sender, () -> {
+                    executed.get(sender).add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        // Assert
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        for (String sender : senders) {
+            assertThat(executed.get(sender)).isSorted().hasSize(200);
+        }
+    }
+
+    @Test
+    void submit_shouldLetUnrelatedSendersProceedWhileALaneIsBusy() throws InterruptedException {
+        // Arrange
+        TransactionLaneExecutor lanes = start(2, 10);
+        String blocked = "alice";
+        String other = "bob";
+        while (lanes.laneOf(other) == lanes.laneOf(blocked)) {
+            other = other + "+";
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        lanes.submit(blocked, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Act
+        lanes.submit(other, otherRan::countDown);
+
+        // Assert
+        assertThat(otherRan.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    void submit_shouldKeepTheLaneRunningAfterAFailingTaskAndReportMetrics() throws InterruptedException {
+        // Arrange
+        TransactionLaneExecutor lanes = start(1, 10);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        // Act
+        lanes.submit("alice", () -> {
+            throw new IllegalStateException("Execution failed");
+        });
+        lanes.submit("alice", ran::countDown);
+
+        // Assert
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.stop();
+        ExecutionLaneMetricsDTO metrics = lanes.metrics();
+        assertThat(metrics.laneCount()).isEqualTo(1);
+        assertThat(metrics.submitted()).isEqualTo(2);
+        assertThat(metrics.executed()).isEqualTo(2);
+        assertThat(metrics.failed()).isEqualTo(1);
+        assertThat(metrics.maxDepth()).isZero();
+        assertThat(metrics.lanes()).singleElement().satisfies(lane -> assertThat(lane.executed()).isEqualTo(2));
+    }
+}
@@ -1,6 +1,6 @@
 package com.cryptowallet.service;
 
-import com.cryptowallet.blockchain.BlockChain;
+import com.cryptowallet.blockchain.mempool.BlockSealer;
 import com.cryptowallet.crypto.CryptoFacade;
 import com.cryptowallet.dto.SendTransactionRequestDTO;
 import com.cryptowallet.dto.TransactionDTO;
@@ -40,7 +40,7 @@ public class TransactionServiceTest {
     private AsyncTransactionProcessor asyncTransactionProcessor;
 
     @Mock
-    private BlockChain blockChain;
+    private BlockSealer blockSealer;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -64,7 +64,7 @@ public class TransactionServiceTest {
         assertThat(result.signature()).isEqualTo("sig");
         verify(cryptoFacade).verifySignature(dto.toSignableString(), "sig", "from");
         verify(transactionRepository).save(any(TransactionDocument.class));
-        verify(asyncTransactionProcessor).processTransaction("tx-id");
+        verify(asyncTransactionProcessor).processTransaction("tx-id", "from");
     }
 
     @Test
@@ -86,7 +86,7 @@ public class TransactionServiceTest {
         assertThat(result.signature()).isEqualTo("server-sig");
         verify(cryptoFacade).signData(dto.toSignableString(), "from");
         verify(transactionRepository).save(any(TransactionDocument.class));
-        verify(asyncTransactionProcessor).processTransaction("tx-id");
+        verify(asyncTransactionProcessor).processTransaction("tx-id", "from");
     }
 
     @Test
@@ -1,11 +1,15 @@
 package com.cryptowallet.service;
 
+import com.cryptowallet.blockchain.state.StateNodeStore;
+import com.cryptowallet.blockchain.state.StateTree;
 import com.cryptowallet.crypto.CryptoFacade;
 import com.cryptowallet.crypto.EncodedKeyPair;
 import com.cryptowallet.dto.CreateWalletRequestDTO;
 import com.cryptowallet.dto.WalletDTO;
+import com.cryptowallet.event.WalletCreatedEvent;
 import com.cryptowallet.exception.WalletNotFoundException;
 import com.cryptowallet.model.SecretStorageDocument;
+import com.cryptowallet.model.StateNode;
 import com.cryptowallet.model.WalletDocument;
 import com.cryptowallet.repository.SecretStorageRepository;
 import com.cryptowallet.repository.WalletRepository;
@@ -16,12 +20,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -40,6 +51,15 @@ public class WalletServiceTest {
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private StateTree stateTree;
+
+    @Mock
+    private StateNodeStore stateNodeStore;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private WalletService walletService;
 
@@ -79,11 +99,44 @@ public class WalletServiceTest {
         assertThat(secretCaptor.getValue().getId()).isEqualTo("public_key");
         assertThat(secretCaptor.getValue().getEncryptedPrivateKey()).isEqualTo(encryptedPrivateKey);
 
+        // Verify that the opening balance was written inside a state tree change
+        verify(stateTree).beginBalanceChange();
+        verify(stateTree).endBalanceChange();
+
         // Verify facade calls
         verify(cryptoFacade).generateKeyPair();
         verify(cryptoFacade).encryptData("private_key");
     }
 
+    @Test
+    void createWallet_shouldCommitTheOpeningBalanceToTheStateTree() {
+        // Arrange
+        when(cryptoFacade.generateKeyPair()).thenReturn(new EncodedKeyPair("public_key", "private_key"));
+        when(cryptoFacade.encryptData("private_key")).thenReturn("encrypted_private_key");
+        ArgumentCaptor<WalletDocument> saved = ArgumentCaptor.forClass(WalletDocument.class);
+        when(walletRepository.save(saved.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+        StateTree tree = new StateTree(stateNodeStore, mongoTemplate, 1024);
+        doAnswer(invocation -> {
+            tree.onWalletCreated(invocation.getArgument(0)); // Delivered as by the application context
+            return null;
+        }).when(eventPublisher).publishEvent(any(WalletCreatedEvent.class));
+        when(mongoTemplate.find(any(Query.class), eq(WalletDocument.class))).thenAnswer(invocation -> List.of(saved.getValue()));
+        String emptyRoot = tree.root();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<StateNode>> nodes = ArgumentCaptor.forClass(Collection.class);
+
+        // Act
+        walletService.createWallet(new CreateWalletRequestDTO("user-id-1"));
+        String root = tree.commit();
+
+        // Assert
+        assertThat(root).isNotEqualTo(emptyRoot);
+        verify(stateNodeStore, atLeastOnce()).saveAll(nodes.capture());
+        assertThat(nodes.getAllValues().stream().flatMap(Collection::stream).toList()).filteredOn(node -> node.getBalance() != null)
+                .extracting(StateNode::getBalance)
+                .containsExactly("1000.00");
+    }
+
     @Test
     void getWalletById_shouldReturnWallet_whenFound() {
         // Arrange